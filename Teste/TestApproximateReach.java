@@ -0,0 +1,83 @@
+import domain.network.GraphSnapshot;
+import domain.network.NeighborCursor;
+import domain.network.analytics.AnalyticsBenchmark;
+import domain.network.analytics.ApproximateReach;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+public class TestApproximateReach {
+
+    /**
+     * @return the exact number of other users within each number of friendships of the source, from 1 to maxHops
+     */
+    private static int[] exactReach(GraphSnapshot graph, int source, int maxHops) {
+        int[] distance = new int[graph.size()];
+        Arrays.fill(distance, -1);
+        int[] queue = new int[graph.size()];
+        int head = 0, tail = 0;
+        distance[source] = 0;
+        queue[tail++] = source;
+        int[] reach = new int[maxHops];
+        NeighborCursor cursor = graph.cursor();
+        while (head < tail) {
+            int v = queue[head++];
+            if (distance[v] == maxHops)
+                continue;
+            cursor.reset(v);
+            while (cursor.hasNext()) {
+                int w = cursor.next();
+                if (distance[w] < 0) {
+                    distance[w] = distance[v] + 1;
+                    queue[tail++] = w;
+                    for (int h = distance[w]; h <= maxHops; h++)
+                        reach[h - 1]++;
+                }
+            }
+        }
+        return reach;
+    }
+
+    @Test
+    public void testEstimates() {
+        GraphSnapshot graph = AnalyticsBenchmark.randomGraph(3000, 6000, 3);
+        ApproximateReach reach = new ApproximateReach(graph, 3, 11);
+        Assert.assertEquals(3, reach.getMaxHops());
+        double[] error = new double[3];
+        double[] exactFunction = new double[3];
+        for (int v = 0; v < graph.size(); v++) {
+            int[] exact = exactReach(graph, v, 3);
+            String email = graph.email(v);
+            Assert.assertEquals(graph.degree(v), reach.getReach(email, 1));
+            for (int h = 1; h <= 3; h++) {
+                Assert.assertTrue(reach.getReach(email, h) >= (h == 1 ? 0 : reach.getReach(email, h - 1)));
+                if (exact[h - 1] > 0)
+                    error[h - 1] += Math.abs(reach.getReach(email, h) - exact[h - 1]) / (double) exact[h - 1];
+                exactFunction[h - 1] += exact[h - 1];
+            }
+        }
+        for (int h = 2; h <= 3; h++) {
+            // the relative error of a counter of 64 registers is about 13%
+            Assert.assertTrue(error[h - 1] / graph.size() < 0.2);
+            Assert.assertEquals(exactFunction[h - 1], reach.getNeighborhoodFunction(h), 0.05 * exactFunction[h - 1]);
+        }
+        Assert.assertEquals(0, reach.getReach("nobody@bench.com", 2));
+    }
+
+    @Test
+    public void testSmall() {
+        GraphSnapshot.Builder builder = new GraphSnapshot.Builder();
+        builder.addFriendship("a", "b");
+        builder.addFriendship("b", "c");
+        builder.addUser("d");
+        GraphSnapshot graph = builder.build();
+        // the counters stop changing after two passes, the next hops keep the last estimate
+        ApproximateReach reach = new ApproximateReach(graph, 5, 1);
+        Assert.assertEquals(2, reach.getReach("a", 2));
+        Assert.assertEquals(2, reach.getReach("a", 5));
+        Assert.assertEquals(0, reach.getReach("d", 5));
+        Assert.assertEquals(2, reach.getScore("b"), 0.5);
+        Assert.assertEquals(0, new ApproximateReach(new GraphSnapshot.Builder().build(), 3, 1).getNeighborhoodFunction(3), 0);
+    }
+}
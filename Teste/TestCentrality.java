@@ -0,0 +1,75 @@
+import domain.network.GraphSnapshot;
+import domain.network.analytics.Betweenness;
+import domain.network.analytics.DegreeCentrality;
+import domain.network.analytics.PageRank;
+import domain.network.analytics.UserScore;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+public class TestCentrality {
+    private GraphSnapshot graph;
+
+    @Before
+    public void setUp() {
+        // a star with the center c and the leaves l1, l2, l3, and a path c - p1 - p2
+        GraphSnapshot.Builder builder = new GraphSnapshot.Builder();
+        builder.addFriendship("c", "l1");
+        builder.addFriendship("c", "l2");
+        builder.addFriendship("c", "l3");
+        builder.addFriendship("c", "p1");
+        builder.addFriendship("p1", "p2");
+        builder.addUser("alone");
+        graph = builder.build();
+    }
+
+    @Test
+    public void testDegree() {
+        DegreeCentrality degrees = new DegreeCentrality(graph);
+        Assert.assertEquals(4, degrees.getMaxDegree());
+        Assert.assertArrayEquals(new int[]{1, 4, 1, 0, 1}, degrees.getDistribution());
+        Assert.assertEquals(10.0 / 7, degrees.getAverageDegree(), 1e-9);
+        Assert.assertEquals("c", degrees.getTop(1).get(0).getEmail());
+        Assert.assertEquals(0, degrees.getScore("x"), 0);
+    }
+
+    @Test
+    public void testPageRank() {
+        PageRank pageRank = new PageRank(graph);
+        double sum = 0;
+        for (UserScore score : pageRank.getTop(graph.size()))
+            sum += score.getScore();
+        Assert.assertEquals(1, sum, 1e-6);
+        List<UserScore> top = pageRank.getTop(2);
+        Assert.assertEquals("c", top.get(0).getEmail());
+        Assert.assertEquals("p1", top.get(1).getEmail());
+        Assert.assertEquals(pageRank.getScore("l1"), pageRank.getScore("l3"), 1e-12);
+    }
+
+    @Test
+    public void testBetweenness() {
+        Betweenness betweenness = new Betweenness(graph);
+        Assert.assertFalse(betweenness.isSampled());
+        // c is on the paths between the 4 users around it: 4 * 3 / 2 pairs plus the 3 pairs through p1
+        Assert.assertEquals(9, betweenness.getScore("c"), 1e-9);
+        Assert.assertEquals(4, betweenness.getScore("p1"), 1e-9);
+        Assert.assertEquals(0, betweenness.getScore("l1"), 1e-9);
+        Assert.assertEquals(0, betweenness.getScore("alone"), 1e-9);
+        Betweenness all = new Betweenness(graph, 100, 1);
+        Assert.assertFalse(all.isSampled());
+        Assert.assertEquals(9, all.getScore("c"), 1e-9);
+        Assert.assertTrue(new Betweenness(graph, 3, 1).isSampled());
+    }
+
+    @Test
+    public void testTop() {
+        DegreeCentrality degrees = new DegreeCentrality(graph);
+        List<String> top = Arrays.asList(degrees.getTop(3).stream().map(UserScore::getEmail).toArray(String[]::new));
+        // on a tie the user with the smaller id comes first
+        Assert.assertEquals(List.of("c", "p1", "l1"), top);
+        Assert.assertEquals(graph.size(), degrees.getTop(100).size());
+    }
+}
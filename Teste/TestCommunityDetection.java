@@ -0,0 +1,49 @@
+import domain.network.GraphSnapshot;
+import domain.network.analytics.AnalyticsBenchmark;
+import domain.network.analytics.CommunityDetection;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+public class TestCommunityDetection {
+    private GraphSnapshot graph;
+
+    @Before
+    public void setUp() {
+        // two cliques of 5 joined by one friendship, and a user without friends
+        GraphSnapshot.Builder builder = new GraphSnapshot.Builder();
+        for (String group : new String[]{"a", "b"})
+            for (int i = 0; i < 5; i++)
+                for (int j = i + 1; j < 5; j++)
+                    builder.addFriendship(group + i, group + j);
+        builder.addFriendship("a0", "b0");
+        builder.addUser("alone");
+        graph = builder.build();
+    }
+
+    @Test
+    public void testTwoCliques() {
+        for (boolean parallel : new boolean[]{false, true}) {
+            CommunityDetection detection = new CommunityDetection(graph, 7, parallel);
+            Assert.assertEquals(3, detection.getNrCommunities());
+            Assert.assertEquals(List.of(5, 5, 1), detection.getSizes());
+            Assert.assertEquals(detection.getCommunity("a1"), detection.getCommunity("a4"));
+            Assert.assertNotEquals(detection.getCommunity("a0"), detection.getCommunity("b0"));
+            Assert.assertEquals(3, detection.getCommunity("alone"));
+            // 2 * (10 / 21 - (21 / 42)^2)
+            Assert.assertEquals(2 * (10.0 / 21 - 0.25), detection.getModularity(), 1e-12);
+        }
+    }
+
+    @Test
+    public void testDeterministicSeed() {
+        GraphSnapshot random = AnalyticsBenchmark.randomGraph(3000, 9000, 2);
+        CommunityDetection first = new CommunityDetection(random, 42, false);
+        CommunityDetection second = new CommunityDetection(random, 42, false);
+        Assert.assertEquals(first.getCommunities(), second.getCommunities());
+        Assert.assertEquals(first.getModularity(), second.getModularity(), 0);
+        Assert.assertTrue(first.getModularity() > 0);
+    }
+}
@@ -0,0 +1,77 @@
+import domain.network.GraphSnapshot;
+import domain.network.NeighborCursor;
+import domain.network.analytics.AnalyticsBenchmark;
+import domain.network.analytics.PageRank;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestCompressedAdjacency {
+
+    private static void assertSameLists(GraphSnapshot expected, GraphSnapshot actual) {
+        Assert.assertEquals(expected.size(), actual.size());
+        Assert.assertEquals(expected.nrFriendships(), actual.nrFriendships());
+        NeighborCursor cursor = actual.cursor();
+        for (int v = 0; v < expected.size(); v++) {
+            Assert.assertEquals(expected.email(v), actual.email(v));
+            Assert.assertEquals(expected.degree(v), actual.degree(v));
+            Assert.assertArrayEquals(expected.neighbors(v), actual.neighbors(v));
+            cursor.reset(v);
+            for (int i = 0; i < expected.degree(v); i++) {
+                Assert.assertTrue(cursor.hasNext());
+                Assert.assertEquals(expected.neighbor(v, i), cursor.next());
+                Assert.assertEquals(expected.neighbor(v, i), actual.neighbor(v, i));
+            }
+            Assert.assertFalse(cursor.hasNext());
+        }
+    }
+
+    @Test
+    public void testSameLists() {
+        GraphSnapshot graph = AnalyticsBenchmark.randomGraph(2000, 10000, 3);
+        GraphSnapshot compressed = graph.compressed();
+        assertSameLists(graph, compressed);
+        Assert.assertSame(compressed, compressed.compressed());
+        Assert.assertTrue(compressed.sizeInBytes() < graph.sizeInBytes());
+        for (int u = 0; u < 200; u++)
+            for (int v = 0; v < 200; v++) {
+                Assert.assertEquals(graph.areFriends(u, v), compressed.areFriends(u, v));
+                Assert.assertArrayEquals(graph.mutualFriends(u, v), compressed.mutualFriends(u, v));
+            }
+        PageRank expected = new PageRank(graph), actual = new PageRank(compressed);
+        for (int v = 0; v < graph.size(); v++)
+            Assert.assertEquals(expected.getScore(graph.email(v)), actual.getScore(graph.email(v)), 1e-12);
+    }
+
+    @Test
+    public void testLargeGaps() {
+        // gaps of 1, 2 and 3 bytes, and an empty list
+        GraphSnapshot.Builder builder = new GraphSnapshot.Builder();
+        for (int i = 0; i < 100_000; i++)
+            builder.addUser("u" + i);
+        builder.addFriendship("u0", "u1");
+        builder.addFriendship("u0", "u200");
+        builder.addFriendship("u0", "u20000");
+        builder.addFriendship("u0", "u99999");
+        builder.addFriendship("u1", "u99999");
+        GraphSnapshot graph = builder.build();
+        GraphSnapshot compressed = graph.compressed();
+        assertSameLists(graph, compressed);
+        Assert.assertArrayEquals(new int[]{1, 200, 20000, 99999}, compressed.neighbors(0));
+        Assert.assertArrayEquals(new int[]{99999}, compressed.mutualFriends(0, 1));
+        Assert.assertEquals(0, compressed.degree(5));
+    }
+
+    @Test
+    public void testChanges() {
+        GraphSnapshot graph = AnalyticsBenchmark.randomGraph(100, 300, 5);
+        GraphSnapshot compressed = graph.compressed();
+        graph = graph.withFriendship("user1@bench.com", "user2@bench.com").withFriendship("user1@bench.com", "new@bench.com");
+        compressed = compressed.withFriendship("user1@bench.com", "user2@bench.com").withFriendship("user1@bench.com", "new@bench.com");
+        assertSameLists(graph, compressed);
+        Assert.assertTrue(compressed.sizeInBytes() < graph.sizeInBytes());
+        graph = graph.withoutFriendship("user1@bench.com", "user2@bench.com");
+        compressed = compressed.withoutFriendship("user1@bench.com", "user2@bench.com");
+        assertSameLists(graph, compressed);
+        Assert.assertEquals(graph.getGeneration(), compressed.getGeneration());
+    }
+}
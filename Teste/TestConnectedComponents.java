@@ -0,0 +1,53 @@
+import domain.network.GraphSnapshot;
+import domain.network.analytics.AnalyticsBenchmark;
+import domain.network.analytics.ConnectedComponents;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+
+public class TestConnectedComponents {
+
+    @Test
+    public void testComponents() {
+        // a - b - c, d - e, f alone
+        GraphSnapshot.Builder builder = new GraphSnapshot.Builder();
+        builder.addFriendship("a", "b");
+        builder.addFriendship("c", "b");
+        builder.addFriendship("d", "e");
+        builder.addUser("f");
+        GraphSnapshot graph = builder.build();
+        for (boolean parallel : new boolean[]{false, true}) {
+            ConnectedComponents components = new ConnectedComponents(graph, parallel);
+            Assert.assertEquals(3, components.getNrComponents());
+            Assert.assertEquals(List.of(3, 2, 1), components.getSizes());
+            Assert.assertEquals(1, components.getComponent("c"));
+            Assert.assertEquals(2, components.getComponent("e"));
+            Assert.assertEquals(3, components.getComponent("f"));
+            Assert.assertEquals(0, components.getComponent("x"));
+            Map<Integer, List<String>> members = components.getComponents();
+            Assert.assertEquals(List.of("a", "b", "c"), members.get(1));
+            Assert.assertEquals(List.of("f"), members.get(3));
+        }
+    }
+
+    @Test
+    public void testSameAsDepthFirst() {
+        // sparse enough to have many components, dense enough for a giant one
+        GraphSnapshot graph = AnalyticsBenchmark.randomGraph(20000, 12000, 3);
+        ConnectedComponents dfs = new ConnectedComponents(graph, false);
+        ConnectedComponents unionFind = new ConnectedComponents(graph, true);
+        Assert.assertEquals(dfs.getSizes(), unionFind.getSizes());
+        for (int u = 0; u < graph.size(); u++)
+            for (int v : graph.neighbors(u))
+                Assert.assertEquals(unionFind.getComponent(graph.email(u)), unionFind.getComponent(graph.email(v)));
+        Assert.assertTrue(dfs.getNrComponents() > 1);
+    }
+
+    @Test
+    public void testEmpty() {
+        ConnectedComponents components = new ConnectedComponents(new GraphSnapshot.Builder().build(), true);
+        Assert.assertEquals(0, components.getNrComponents());
+    }
+}
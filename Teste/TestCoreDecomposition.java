@@ -0,0 +1,51 @@
+import domain.network.GraphSnapshot;
+import domain.network.analytics.AnalyticsBenchmark;
+import domain.network.analytics.CoreDecomposition;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+public class TestCoreDecomposition {
+    private GraphSnapshot graph;
+
+    @Before
+    public void setUp() {
+        // a clique a, b, c, d (3-core), e friends with a and b (2-core), a chain e - f - g (1-core)
+        GraphSnapshot.Builder builder = new GraphSnapshot.Builder();
+        String[] clique = {"a", "b", "c", "d"};
+        for (int i = 0; i < clique.length; i++)
+            for (int j = i + 1; j < clique.length; j++)
+                builder.addFriendship(clique[i], clique[j]);
+        builder.addFriendship("e", "a");
+        builder.addFriendship("e", "b");
+        builder.addFriendship("e", "f");
+        builder.addFriendship("f", "g");
+        builder.addUser("alone");
+        graph = builder.build();
+    }
+
+    @Test
+    public void testCoreNumbers() {
+        for (boolean parallel : new boolean[]{false, true}) {
+            CoreDecomposition cores = new CoreDecomposition(graph, parallel);
+            Assert.assertEquals(3, cores.getMaxCore());
+            Assert.assertEquals(3, cores.getCoreNumber("a"));
+            Assert.assertEquals(2, cores.getCoreNumber("e"));
+            Assert.assertEquals(1, cores.getCoreNumber("g"));
+            Assert.assertEquals(0, cores.getCoreNumber("alone"));
+            Assert.assertEquals(List.of("a", "b", "c", "d"), cores.getDensestCore());
+            Assert.assertEquals(5, cores.getKCore(2).size());
+        }
+    }
+
+    @Test
+    public void testParallelAgrees() {
+        GraphSnapshot random = AnalyticsBenchmark.randomGraph(2000, 10000, 3);
+        CoreDecomposition buckets = new CoreDecomposition(random);
+        CoreDecomposition parallel = new CoreDecomposition(random, true);
+        for (int v = 0; v < random.size(); v++)
+            Assert.assertEquals(buckets.getCoreNumber(random.email(v)), parallel.getCoreNumber(random.email(v)));
+    }
+}
@@ -0,0 +1,132 @@
+import domain.network.GraphSnapshot;
+import domain.network.GraphStorage;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.*;
+
+public class TestDeltaAdjacency {
+
+    /**
+     * @return the sorted emails of the friends of each user
+     */
+    private static Map<String, List<String>> friends(GraphSnapshot graph) {
+        Map<String, List<String>> friends = new HashMap<>();
+        for (int v = 0; v < graph.size(); v++) {
+            List<String> emails = new ArrayList<>();
+            for (int w : graph.neighbors(v))
+                emails.add(graph.email(w));
+            Collections.sort(emails);
+            friends.put(graph.email(v), emails);
+        }
+        return friends;
+    }
+
+    private static List<String> pair(String a, String b) {
+        return a.compareTo(b) < 0 ? List.of(a, b) : List.of(b, a);
+    }
+
+    private static void assertConsistent(GraphSnapshot graph) {
+        long targets = 0;
+        for (int v = 0; v < graph.size(); v++) {
+            int[] friends = graph.neighbors(v);
+            Assert.assertEquals(graph.degree(v), friends.length);
+            for (int i = 0; i < friends.length; i++) {
+                Assert.assertEquals(friends[i], graph.neighbor(v, i));
+                Assert.assertTrue(graph.areFriends(friends[i], v));
+                if (i > 0)
+                    Assert.assertTrue(friends[i - 1] < friends[i]);
+            }
+            targets += friends.length;
+        }
+        Assert.assertEquals(targets, 2 * graph.nrFriendships());
+    }
+
+    private void testChanges(GraphStorage storage) {
+        Random random = new Random(17);
+        GraphSnapshot.Builder builder = new GraphSnapshot.Builder();
+        for (int i = 0; i < 300; i++)
+            builder.addFriendship("u" + random.nextInt(200), "u" + random.nextInt(200));
+        GraphSnapshot graph = builder.build().stored(storage);
+        Set<List<String>> expected = new HashSet<>();
+        for (int v = 0; v < graph.size(); v++)
+            for (int w : graph.neighbors(v))
+                expected.add(pair(graph.email(v), graph.email(w)));
+        GraphSnapshot first = graph;
+        Map<String, List<String>> firstFriends = friends(first);
+        // enough changes for the replaced lists to be merged into the base several times
+        for (int i = 0; i < 2000; i++) {
+            String a = "u" + random.nextInt(250), b = "u" + random.nextInt(250);
+            if (a.equals(b))
+                continue;
+            if (random.nextBoolean()) {
+                graph = graph.withFriendship(a, b);
+                expected.add(pair(a, b));
+            } else {
+                graph = graph.withoutFriendship(a, b);
+                expected.remove(pair(a, b));
+            }
+            Assert.assertEquals(storage, graph.getStorage());
+        }
+        assertConsistent(graph);
+        Assert.assertEquals(expected.size(), graph.nrFriendships());
+        for (List<String> pair : expected)
+            Assert.assertTrue(graph.areFriends(graph.id(pair.get(0)), graph.id(pair.get(1))));
+        // the first generation is still read unchanged
+        Assert.assertEquals(firstFriends, friends(first));
+    }
+
+    @Test
+    public void testChangesHeap() {
+        testChanges(GraphStorage.HEAP);
+    }
+
+    @Test
+    public void testChangesCompressed() {
+        testChanges(GraphStorage.COMPRESSED);
+    }
+
+    @Test
+    public void testChangesOffHeap() {
+        testChanges(GraphStorage.OFF_HEAP);
+    }
+
+    @Test
+    public void testGenerations() {
+        GraphSnapshot.Builder builder = new GraphSnapshot.Builder();
+        builder.addFriendship("a", "b");
+        GraphSnapshot first = builder.build();
+        GraphSnapshot second = first.withFriendship("b", "c");
+        GraphSnapshot third = second.withoutFriendship("a", "b");
+        Assert.assertEquals(1, second.getGeneration());
+        Assert.assertEquals(2, third.getGeneration());
+        Assert.assertEquals(2, first.size());
+        Assert.assertEquals(1, first.nrFriendships());
+        Assert.assertEquals(2, second.nrFriendships());
+        Assert.assertEquals(1, third.nrFriendships());
+        Assert.assertEquals(0, third.degree(third.id("a")));
+        Assert.assertEquals(List.of("b"), friends(third).get("c"));
+        Assert.assertSame(third, third.withoutFriendship("a", "b"));
+        Assert.assertSame(third, third.withFriendship("c", "b"));
+    }
+
+    @Test
+    public void testNewUsers() {
+        GraphSnapshot.Builder builder = new GraphSnapshot.Builder();
+        builder.addFriendship("n0", "n1");
+        GraphSnapshot first = builder.build();
+        GraphSnapshot graph = first;
+        // each friendship adds a user, the added users are merged with the others several times
+        for (int i = 2; i < 3000; i++)
+            graph = graph.withFriendship("n" + (i - 1), "n" + i);
+        Assert.assertEquals(3000, graph.size());
+        Assert.assertEquals(2999, graph.nrFriendships());
+        for (int i = 0; i < 3000; i++) {
+            Assert.assertEquals("n" + i, graph.email(graph.id("n" + i)));
+            Assert.assertEquals(i == 0 || i == 2999 ? 1 : 2, graph.degree(graph.id("n" + i)));
+        }
+        assertConsistent(graph);
+        Assert.assertEquals(2, first.size());
+        Assert.assertEquals(-1, first.id("n2"));
+    }
+}
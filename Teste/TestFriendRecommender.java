@@ -0,0 +1,75 @@
+import domain.network.FriendRecommender;
+import domain.network.GraphSnapshot;
+import domain.network.Recommendation;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+public class TestFriendRecommender {
+    private GraphSnapshot graph;
+
+    @Before
+    public void setUp() {
+        // a and d have two mutual friends (b, c), a and e have one (c)
+        GraphSnapshot.Builder builder = new GraphSnapshot.Builder();
+        builder.addFriendship("a", "b");
+        builder.addFriendship("a", "c");
+        builder.addFriendship("b", "d");
+        builder.addFriendship("c", "d");
+        builder.addFriendship("c", "e");
+        builder.addFriendship("b", "a");
+        graph = builder.build();
+    }
+
+    @Test
+    public void testSnapshot() {
+        Assert.assertEquals(5, graph.size());
+        Assert.assertEquals(5, graph.nrFriendships());
+        int a = graph.id("a"), d = graph.id("d");
+        Assert.assertTrue(graph.areFriends(a, graph.id("b")));
+        Assert.assertFalse(graph.areFriends(a, d));
+        Assert.assertArrayEquals(new int[]{graph.id("b"), graph.id("c")}, graph.mutualFriends(a, d));
+        Assert.assertEquals(-1, graph.id("x"));
+    }
+
+    @Test
+    public void testChanges() {
+        GraphSnapshot added = graph.withFriendship("a", "x");
+        Assert.assertEquals(6, added.size());
+        Assert.assertEquals(1, added.getGeneration());
+        Assert.assertTrue(added.areFriends(added.id("x"), added.id("a")));
+        Assert.assertEquals(-1, graph.id("x"));
+        GraphSnapshot removed = added.withoutFriendship("b", "a");
+        Assert.assertFalse(removed.areFriends(removed.id("a"), removed.id("b")));
+        Assert.assertTrue(added.areFriends(added.id("a"), added.id("b")));
+        Assert.assertSame(removed, removed.withoutFriendship("a", "b"));
+    }
+
+    @Test
+    public void testRecommendations() {
+        FriendRecommender recommender = new FriendRecommender(graph, 10);
+        List<Recommendation> recommendations = recommender.getRecommendations("a");
+        Assert.assertEquals(2, recommendations.size());
+        Assert.assertEquals("d", recommendations.get(0).getEmail());
+        Assert.assertEquals(2, recommendations.get(0).getMutualFriends());
+        Assert.assertEquals("e", recommendations.get(1).getEmail());
+        Assert.assertEquals(1, new FriendRecommender(graph, 1).getRecommendations("a").size());
+        Assert.assertTrue(recommender.getRecommendations("x").isEmpty());
+    }
+
+    @Test
+    public void testIncrementalUpdate() {
+        FriendRecommender recommender = new FriendRecommender(graph, 10);
+        GraphSnapshot changed = graph.withFriendship("a", "d").withFriendship("e", "x");
+        recommender.friendshipChanged(changed.withoutFriendship("e", "x"), "a", "d");
+        List<Recommendation> recommendations = recommender.getRecommendations("a");
+        Assert.assertEquals(1, recommendations.size());
+        Assert.assertEquals("e", recommendations.get(0).getEmail());
+        // b now has a as a mutual friend with c, besides d
+        Assert.assertEquals(2, recommender.getRecommendations("b").get(0).getMutualFriends());
+        recommender.friendshipChanged(changed, "e", "x");
+        Assert.assertEquals("c", recommender.getRecommendations("x").get(0).getEmail());
+    }
+}
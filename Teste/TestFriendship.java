@@ -16,6 +16,14 @@ public class TestFriendship {
         Assert.assertEquals(f1.getSecond(), us2.getEmail());
     }
 
+    @Test
+    public void testCanonicalOrder() {
+        Assert.assertEquals(f1, f2);
+        Assert.assertEquals(f1.hashCode(), f2.hashCode());
+        Assert.assertEquals(f2.getFirst(), us1.getEmail());
+        Assert.assertEquals(f2.getSecond(), us2.getEmail());
+    }
+
     @Test
     public void testToString() {
         Assert.assertEquals(0, f1.toString().compareTo(us1.getEmail() + " --- " + us2.getEmail()));
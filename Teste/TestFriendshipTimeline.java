@@ -0,0 +1,117 @@
+import domain.network.FriendshipTimeline;
+import domain.network.GraphSnapshot;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.util.*;
+
+public class TestFriendshipTimeline {
+    private static final LocalDate START = LocalDate.of(2022, 1, 1);
+
+    /**
+     * @return the sorted emails of the friends of each user that has friends
+     */
+    private static Map<String, List<String>> friends(GraphSnapshot graph) {
+        Map<String, List<String>> friends = new HashMap<>();
+        for (int v = 0; v < graph.size(); v++) {
+            List<String> emails = new ArrayList<>();
+            for (int w : graph.neighbors(v))
+                emails.add(graph.email(w));
+            Collections.sort(emails);
+            if (!emails.isEmpty())
+                friends.put(graph.email(v), emails);
+        }
+        return friends;
+    }
+
+    @Test
+    public void testAsOf() {
+        Random random = new Random(5);
+        GraphSnapshot.Builder builder = new GraphSnapshot.Builder();
+        List<String[]> pairs = new ArrayList<>();
+        List<LocalDate> dates = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            String a = "u" + random.nextInt(150), b = "u" + random.nextInt(150);
+            if (a.equals(b))
+                continue;
+            builder.addFriendship(a, b);
+            pairs.add(new String[]{a, b});
+            dates.add(START.plusDays(random.nextInt(365)));
+        }
+        GraphSnapshot graph = builder.build();
+        FriendshipTimeline.Builder timelineBuilder = new FriendshipTimeline.Builder(graph);
+        for (int i = 0; i < pairs.size(); i++)
+            timelineBuilder.addFriendship(pairs.get(i)[0], pairs.get(i)[1], dates.get(i));
+        FriendshipTimeline timeline = timelineBuilder.build();
+        for (int day : new int[]{-1, 0, 40, 180, 364, 400}) {
+            LocalDate date = START.plusDays(day);
+            GraphSnapshot.Builder expected = new GraphSnapshot.Builder();
+            for (int i = 0; i < pairs.size(); i++)
+                if (!dates.get(i).isAfter(date))
+                    expected.addFriendship(pairs.get(i)[0], pairs.get(i)[1]);
+            GraphSnapshot past = timeline.asOf(graph, date);
+            Assert.assertEquals(graph.size(), past.size());
+            Assert.assertEquals(friends(expected.build()), friends(past));
+            Assert.assertSame(past, timeline.asOf(graph, date));
+        }
+        Assert.assertEquals(graph.nrFriendships(), timeline.asOf(graph, START.plusDays(365)).nrFriendships());
+    }
+
+    @Test
+    public void testChanges() {
+        GraphSnapshot.Builder builder = new GraphSnapshot.Builder();
+        builder.addFriendship("a", "b");
+        builder.addFriendship("b", "c");
+        GraphSnapshot graph = builder.build();
+        FriendshipTimeline.Builder timelineBuilder = new FriendshipTimeline.Builder(graph);
+        timelineBuilder.addFriendship("b", "c", START.plusDays(10));
+        // a friendship without a date is taken to be the oldest one
+        timelineBuilder.addFriendship("a", "b", null);
+        timelineBuilder.addFriendship("a", "x", START);
+        FriendshipTimeline timeline = timelineBuilder.build();
+        Assert.assertEquals(2, timeline.nrFriendships());
+        GraphSnapshot before = timeline.asOf(graph, START.minusYears(10));
+        Assert.assertEquals(Map.of("a", List.of("b"), "b", List.of("a")), friends(before));
+
+        GraphSnapshot next = graph.withFriendship("c", "d");
+        timeline.friendshipAdded(next, "c", "d", START.plusDays(20));
+        // the replayed snapshot taken before the change doesn't have the new user
+        Assert.assertEquals(3, timeline.asOf(graph, START.plusDays(30)).size());
+        GraphSnapshot after = timeline.asOf(next, START.plusDays(30));
+        Assert.assertEquals(List.of("b", "d"), friends(after).get("c"));
+        Assert.assertNull(friends(timeline.asOf(next, START.plusDays(15))).get("d"));
+
+        next = next.withoutFriendship("a", "b");
+        timeline.friendshipRemoved(next, "b", "a");
+        Assert.assertEquals(2, timeline.nrFriendships());
+        Assert.assertEquals(Map.of("b", List.of("c"), "c", List.of("b", "d"), "d", List.of("c")),
+                friends(timeline.asOf(next, START.plusDays(30))));
+        Assert.assertEquals(0, timeline.asOf(next, START).nrFriendships());
+        // a friendship made again after it was removed is at its new date
+        next = next.withFriendship("a", "b");
+        timeline.friendshipAdded(next, "a", "b", START.plusDays(40));
+        Assert.assertEquals(3, timeline.nrFriendships());
+        Assert.assertNull(friends(timeline.asOf(next, START.plusDays(30))).get("a"));
+        Assert.assertEquals(List.of("b"), friends(timeline.asOf(next, START.plusDays(40))).get("a"));
+    }
+
+    @Test
+    public void testRemovedTwice() {
+        GraphSnapshot.Builder builder = new GraphSnapshot.Builder();
+        builder.addFriendship("a", "b");
+        GraphSnapshot graph = builder.build();
+        FriendshipTimeline.Builder timelineBuilder = new FriendshipTimeline.Builder(graph);
+        // a friendship given twice is kept at its oldest date
+        timelineBuilder.addFriendship("a", "b", START.plusDays(5));
+        timelineBuilder.addFriendship("b", "a", START);
+        FriendshipTimeline timeline = timelineBuilder.build();
+        Assert.assertEquals(1, timeline.nrFriendships());
+        Assert.assertEquals(1, timeline.asOf(graph, START).nrFriendships());
+        GraphSnapshot next = graph.withoutFriendship("a", "b");
+        timeline.friendshipRemoved(next, "a", "b");
+        timeline.friendshipRemoved(next, "b", "a");
+        Assert.assertEquals(0, timeline.nrFriendships());
+        Assert.assertEquals(0, timeline.asOf(next, START.plusDays(10)).nrFriendships());
+    }
+}
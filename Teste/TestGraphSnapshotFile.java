@@ -0,0 +1,108 @@
+import domain.network.GraphChange;
+import domain.network.GraphSnapshot;
+import domain.network.GraphSnapshotFile;
+import domain.network.GraphStorage;
+import domain.network.analytics.AnalyticsBenchmark;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+public class TestGraphSnapshotFile {
+    private Path directory;
+    private GraphSnapshotFile file;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("snapshot");
+        file = new GraphSnapshotFile(directory.resolve("network.graph"));
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        try (var files = Files.list(directory)) {
+            for (Path path : files.toList())
+                Files.delete(path);
+        }
+        Files.delete(directory);
+    }
+
+    private static void assertSameGraph(GraphSnapshot expected, GraphSnapshot actual) {
+        Assert.assertEquals(expected.size(), actual.size());
+        Assert.assertEquals(expected.nrFriendships(), actual.nrFriendships());
+        for (int v = 0; v < expected.size(); v++) {
+            Assert.assertEquals(v, actual.id(expected.email(v)));
+            Assert.assertArrayEquals(expected.neighbors(v), actual.neighbors(v));
+        }
+    }
+
+    @Test
+    public void testSaveLoad() {
+        Assert.assertNull(file.load());
+        GraphSnapshot graph = AnalyticsBenchmark.randomGraph(1000, 5000, 13);
+        file.save(graph, 42);
+        GraphSnapshotFile.Loaded loaded = file.load();
+        Assert.assertEquals(42, loaded.getVersion());
+        Assert.assertEquals(GraphStorage.OFF_HEAP, loaded.getGraph().getStorage());
+        assertSameGraph(graph, loaded.getGraph());
+        // a newer snapshot replaces the file, the mapped one is still readable
+        GraphSnapshot changed = loaded.getGraph().withFriendship("user1@bench.com", "other@bench.com");
+        file.save(changed, 43);
+        assertSameGraph(graph, loaded.getGraph());
+        Assert.assertEquals(43, file.load().getVersion());
+        assertSameGraph(changed, file.load().getGraph());
+    }
+
+    @Test
+    public void testEmpty() {
+        file.save(new GraphSnapshot.Builder().build(), 0);
+        Assert.assertEquals(0, file.load().getGraph().size());
+    }
+
+    @Test
+    public void testDamaged() throws IOException {
+        file.save(AnalyticsBenchmark.randomGraph(100, 300, 1), 5);
+        byte[] bytes = Files.readAllBytes(file.getPath());
+        Files.write(file.getPath(), Arrays.copyOf(bytes, bytes.length - 4));
+        Assert.assertNull(file.load());
+        Files.write(file.getPath(), new byte[]{1, 2, 3});
+        Assert.assertNull(file.load());
+    }
+
+    @Test
+    public void testWithChanges() {
+        GraphSnapshot.Builder builder = new GraphSnapshot.Builder();
+        builder.addFriendship("a", "b");
+        builder.addFriendship("b", "c");
+        builder.addFriendship("c", "d");
+        GraphSnapshot graph = builder.build();
+        Assert.assertSame(graph, graph.withChanges(List.of()));
+        GraphSnapshot changed = graph.withChanges(List.of(
+                new GraphChange(1, "e", null, true),
+                new GraphChange(2, "a", "e", true),
+                new GraphChange(3, "c", "b", false),
+                new GraphChange(4, "d", null, false),
+                new GraphChange(5, "d", null, true),
+                new GraphChange(6, "a", "d", true),
+                new GraphChange(7, "b", "c", true),
+                new GraphChange(8, "b", "c", false)));
+        Assert.assertEquals(8, changed.getGeneration());
+        Assert.assertEquals(5, changed.size());
+        Assert.assertEquals(3, changed.nrFriendships());
+        Assert.assertTrue(changed.areFriends(changed.id("a"), changed.id("b")));
+        Assert.assertTrue(changed.areFriends(changed.id("a"), changed.id("e")));
+        Assert.assertTrue(changed.areFriends(changed.id("a"), changed.id("d")));
+        // d was removed with its friendship to c, then added again
+        Assert.assertFalse(changed.areFriends(changed.id("c"), changed.id("d")));
+        Assert.assertEquals(0, changed.degree(changed.id("c")));
+        GraphSnapshot removed = graph.withChanges(List.of(new GraphChange(1, "b", null, false)));
+        Assert.assertEquals(-1, removed.id("b"));
+        Assert.assertEquals(1, removed.nrFriendships());
+    }
+}
@@ -0,0 +1,73 @@
+import domain.network.GraphSnapshot;
+import domain.network.analytics.AnalyticsBenchmark;
+import domain.network.analytics.MaximumClique;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+
+public class TestMaximumClique {
+
+    private static void addClique(GraphSnapshot.Builder builder, String... users) {
+        for (int i = 0; i < users.length; i++)
+            for (int j = i + 1; j < users.length; j++)
+                builder.addFriendship(users[i], users[j]);
+    }
+
+    @Test
+    public void testLargestClique() {
+        // a 4-clique and a 5-clique in another component, joined to a path
+        GraphSnapshot.Builder builder = new GraphSnapshot.Builder();
+        addClique(builder, "a", "b", "c", "d");
+        builder.addFriendship("d", "e");
+        builder.addFriendship("e", "f");
+        addClique(builder, "p", "q", "r", "s", "t");
+        builder.addFriendship("p", "x");
+        builder.addFriendship("x", "q");
+        MaximumClique clique = new MaximumClique(builder.build(), 10_000);
+        Assert.assertTrue(clique.isComplete());
+        Assert.assertEquals(5, clique.getSize());
+        Assert.assertEquals(List.of("p", "q", "r", "s", "t"), clique.getClique());
+    }
+
+    @Test
+    public void testEdgeCases() {
+        Assert.assertEquals(0, new MaximumClique(new GraphSnapshot.Builder().build(), 1000).getSize());
+        GraphSnapshot.Builder builder = new GraphSnapshot.Builder();
+        builder.addUser("alone");
+        Assert.assertEquals(List.of("alone"), new MaximumClique(builder.build(), 1000).getClique());
+    }
+
+    @Test
+    public void testCliqueOnRandomNetwork() {
+        GraphSnapshot graph = AnalyticsBenchmark.randomGraph(300, 6000, 11);
+        MaximumClique clique = new MaximumClique(graph, 10_000);
+        Assert.assertTrue(clique.isComplete());
+        List<String> users = clique.getClique();
+        for (int i = 0; i < users.size(); i++)
+            for (int j = i + 1; j < users.size(); j++)
+                Assert.assertTrue(graph.areFriends(graph.id(users.get(i)), graph.id(users.get(j))));
+        // no user outside the clique is friends with all of it
+        for (int v = 0; v < graph.size(); v++) {
+            int u = v;
+            if (!users.contains(graph.email(u)))
+                Assert.assertFalse(users.stream().allMatch(e -> graph.areFriends(u, graph.id(e))));
+        }
+    }
+
+    @Test
+    public void testMatchesExhaustiveSearch() {
+        GraphSnapshot graph = AnalyticsBenchmark.randomGraph(18, 90, 5);
+        int n = graph.size(), largest = 0;
+        for (int set = 1; set < 1 << n; set++) {
+            boolean isClique = true;
+            for (int u = 0; u < n && isClique; u++)
+                for (int v = u + 1; v < n && isClique; v++)
+                    if ((set >> u & 1) == 1 && (set >> v & 1) == 1 && !graph.areFriends(u, v))
+                        isClique = false;
+            if (isClique)
+                largest = Math.max(largest, Integer.bitCount(set));
+        }
+        Assert.assertEquals(largest, new MaximumClique(graph, 10_000).getSize());
+    }
+}
@@ -0,0 +1,84 @@
+import domain.network.GraphSnapshot;
+import domain.network.NeighborhoodFinder;
+import domain.network.analytics.AnalyticsBenchmark;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.*;
+
+public class TestNeighborhoodFinder {
+
+    /**
+     * @return the emails of the users at each distance from the source, up to k, sorted
+     */
+    private static List<Set<String>> levels(GraphSnapshot graph, String email, int k) {
+        Map<Integer, Integer> distance = new HashMap<>();
+        Deque<Integer> queue = new ArrayDeque<>();
+        int source = graph.id(email);
+        distance.put(source, 0);
+        queue.add(source);
+        List<Set<String>> levels = new ArrayList<>();
+        while (!queue.isEmpty()) {
+            int v = queue.poll();
+            int d = distance.get(v);
+            if (d == k)
+                continue;
+            for (int w : graph.neighbors(v)) {
+                if (distance.containsKey(w))
+                    continue;
+                distance.put(w, d + 1);
+                queue.add(w);
+                if (levels.size() == d)
+                    levels.add(new TreeSet<>());
+                levels.get(d).add(graph.email(w));
+            }
+        }
+        return levels;
+    }
+
+    private static List<Set<String>> sorted(List<List<String>> levels) {
+        List<Set<String>> sorted = new ArrayList<>();
+        for (List<String> level : levels)
+            sorted.add(new TreeSet<>(level));
+        return sorted;
+    }
+
+    @Test
+    public void testLevels() {
+        GraphSnapshot graph = AnalyticsBenchmark.randomGraph(2000, 3000, 7);
+        NeighborhoodFinder finder = new NeighborhoodFinder();
+        for (int v = 0; v < graph.size(); v += 37) {
+            String email = graph.email(v);
+            for (int k = 1; k <= 4; k++)
+                Assert.assertEquals(levels(graph, email, k), sorted(finder.neighborhood(graph, email, k, Integer.MAX_VALUE)));
+        }
+        Assert.assertTrue(finder.neighborhood(graph, "nobody@bench.com", 3, 10).isEmpty());
+        Assert.assertTrue(finder.neighborhood(graph, graph.email(0), 0, 10).isEmpty());
+    }
+
+    @Test
+    public void testLimit() {
+        GraphSnapshot.Builder builder = new GraphSnapshot.Builder();
+        for (int i = 0; i < 4; i++) {
+            builder.addFriendship("me", "f" + i);
+            for (int j = 0; j < 3; j++)
+                builder.addFriendship("f" + i, "ff" + i + j);
+        }
+        GraphSnapshot graph = builder.build();
+        NeighborhoodFinder finder = new NeighborhoodFinder();
+        List<List<String>> limited = finder.neighborhood(graph, "me", 2, 6);
+        Assert.assertEquals(2, limited.size());
+        Assert.assertEquals(4, limited.get(0).size());
+        Assert.assertEquals(2, limited.get(1).size());
+        Assert.assertEquals(List.of(List.of("f0", "f1")), finder.neighborhood(graph, "me", 3, 2));
+        // the marks of the searches that stopped early were cleared
+        Assert.assertEquals(16, finder.neighborhood(graph, "me", 3, 100).stream().mapToInt(List::size).sum());
+        List<Set<String>> fromFriend = sorted(finder.neighborhood(graph, "f0", 3, 100));
+        Assert.assertEquals(Set.of("me", "ff00", "ff01", "ff02"), fromFriend.get(0));
+        Assert.assertEquals(Set.of("f1", "f2", "f3"), fromFriend.get(1));
+        Assert.assertEquals(9, fromFriend.get(2).size());
+        // a larger snapshot after a smaller one
+        Assert.assertEquals(3, finder.neighborhood(AnalyticsBenchmark.randomGraph(500, 2000, 1),
+                "user1@bench.com", 3, 3).stream().mapToInt(List::size).sum());
+    }
+}
@@ -1,23 +1,33 @@
 import domain.Friendship;
 import domain.User;
+import domain.network.GraphSnapshot;
+import domain.network.GraphSnapshotFile;
 import domain.network.MostFriendlyCommunity;
 import domain.network.Network;
+import domain.network.NetworkAnalysis;
 import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
+import org.junit.BeforeClass;
 import org.junit.Test;
+import repository.db.AnalyticsDbRepo;
 import repository.db.FriendshipDbRepo;
+import repository.db.GraphChangeDbRepo;
+import repository.db.SchemaMigrator;
 import repository.db.UserDbRepo;
 import validator.FriendshipValidator;
 import validator.UserValidator;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Map;
 
 public class TestNetwork {
-    private final String url = "jdbc:postgresql://localhost:5432/TestToySocialNetwork";
-    private final String username = "postgres";
-    private final String password = "postgres";
+    private static final String url = "jdbc:postgresql://localhost:5432/TestToySocialNetwork";
+    private static final String username = "postgres";
+    private static final String password = "postgres";
     private final UserDbRepo uRepo = new UserDbRepo(url, username, password, new UserValidator(), "users");
     private final User us1 = new User("adi", "popa", "adi.popa@yahoo.com");
     private final User us2 = new User("alex", "popescu", "popescu.alex@gmail.com");
@@ -30,6 +40,11 @@ public class TestNetwork {
     private final Friendship f3 = new Friendship(us4, us5);
     private final Network ntw = new Network(uRepo, fRepo);
 
+    @BeforeClass
+    public static void migrate() {
+        new SchemaMigrator(url, username, password).migrate();
+    }
+
     @Before
     public void setUp() throws Exception {
         uRepo.save(us1);
@@ -64,4 +79,52 @@ public class TestNetwork {
         List<User> users = ntw.getUsersMostFrCom();
         Assert.assertEquals(3, users.size());
     }
+
+    @Test
+    public void testStoredAnalysis() {
+        AnalyticsDbRepo aRepo = new AnalyticsDbRepo(url, username, password, "network_analytics");
+        new Network(uRepo, fRepo, aRepo).reload();
+        Network restarted = new Network(uRepo, fRepo, aRepo);
+        Assert.assertTrue(restarted.loadStored());
+        NetworkAnalysis stored = restarted.getAnalysis();
+        Assert.assertEquals(2, stored.getNrCommunities());
+        Assert.assertEquals(List.of(3, 2), stored.getComponentSizes());
+        Assert.assertEquals(3, stored.getUsersMostFrCom().size());
+        // without a change log the saved analysis may be out of date
+        Network unversioned = new Network(uRepo, fRepo, aRepo);
+        Assert.assertTrue(unversioned.loadStored());
+        Assert.assertTrue(unversioned.isStale());
+
+        GraphChangeDbRepo cRepo = new GraphChangeDbRepo(url, username, password);
+        new Network(uRepo, fRepo, aRepo, cRepo, null).reload();
+        Network current = new Network(uRepo, fRepo, aRepo, cRepo, null);
+        Assert.assertTrue(current.loadStored());
+        Assert.assertFalse(current.isStale());
+        fRepo.removeFriendship(f1);
+        Network changed = new Network(uRepo, fRepo, aRepo, cRepo, null);
+        Assert.assertTrue(changed.loadStored());
+        Assert.assertTrue(changed.isStale());
+    }
+
+    @Test
+    public void testSnapshotFile() throws IOException {
+        GraphChangeDbRepo cRepo = new GraphChangeDbRepo(url, username, password);
+        Path directory = Files.createTempDirectory("network");
+        GraphSnapshotFile file = new GraphSnapshotFile(directory.resolve("network.graph"));
+        try {
+            Assert.assertEquals(3, new Network(uRepo, fRepo, null, cRepo, file).getGraph().nrFriendships());
+            Assert.assertEquals(cRepo.getVersion(), file.load().getVersion());
+            // the changes made while the process was stopped are applied to the file
+            fRepo.removeFriendship(f1);
+            uRepo.remove(us5.getEmail());
+            GraphSnapshot graph = new Network(uRepo, fRepo, null, cRepo, file).getGraph();
+            Assert.assertEquals(1, graph.nrFriendships());
+            Assert.assertEquals(-1, graph.id(us5.getEmail()));
+            Assert.assertFalse(graph.areFriends(graph.id(us1.getEmail()), graph.id(us2.getEmail())));
+            Assert.assertEquals(cRepo.getVersion(), file.load().getVersion());
+        } finally {
+            Files.deleteIfExists(file.getPath());
+            Files.delete(directory);
+        }
+    }
 }
@@ -0,0 +1,67 @@
+import domain.REQUESTSTATE;
+import domain.network.GraphSnapshot;
+import domain.network.analytics.ConnectedComponents;
+import domain.network.analytics.NetworkStatistics;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.TreeMap;
+
+public class TestNetworkStatistics {
+
+    private static GraphSnapshot path(int length) {
+        GraphSnapshot.Builder builder = new GraphSnapshot.Builder();
+        for (int i = 0; i < length; i++)
+            builder.addFriendship("p" + i, "p" + (i + 1));
+        return builder.build();
+    }
+
+    @Test
+    public void testDiameter() {
+        Assert.assertEquals(0, NetworkStatistics.estimateDiameter(new GraphSnapshot.Builder().build()));
+        Assert.assertEquals(7, NetworkStatistics.estimateDiameter(path(7)));
+        GraphSnapshot.Builder builder = new GraphSnapshot.Builder();
+        for (int i = 0; i < 10; i++)
+            builder.addFriendship("c" + i, "c" + (i + 1) % 10);
+        Assert.assertEquals(5, NetworkStatistics.estimateDiameter(builder.build()));
+        // a star with one long arm, the search starts at the center
+        builder = new GraphSnapshot.Builder();
+        for (int i = 0; i < 5; i++)
+            builder.addFriendship("center", "leaf" + i);
+        builder.addFriendship("leaf0", "arm1");
+        builder.addFriendship("arm1", "arm2");
+        Assert.assertEquals(4, NetworkStatistics.estimateDiameter(builder.build()));
+    }
+
+    @Test
+    public void testStatistics() {
+        GraphSnapshot.Builder builder = new GraphSnapshot.Builder();
+        builder.addFriendship("a", "b");
+        builder.addFriendship("b", "c");
+        builder.addFriendship("d", "e");
+        builder.addUser("f");
+        GraphSnapshot graph = builder.build();
+        TreeMap<LocalDate, Long> messages = new TreeMap<>(Map.of(LocalDate.of(2024, 3, 2), 4L, LocalDate.of(2024, 3, 1), 1L));
+        NetworkStatistics stats = new NetworkStatistics(graph, new ConnectedComponents(graph, true),
+                Map.of(REQUESTSTATE.APPROVED, 3L, REQUESTSTATE.REJECTED, 1L), messages);
+        Assert.assertEquals(6, stats.getNrUsers());
+        Assert.assertEquals(3, stats.getNrFriendships());
+        Assert.assertArrayEquals(new int[]{1, 4, 1}, stats.getDegreeDistribution());
+        Assert.assertEquals(Map.of(1, 1, 2, 1, 3, 1), stats.getComponentSizes());
+        Assert.assertEquals(2, stats.getDiameter());
+        Assert.assertEquals(0L, (long) stats.getRequests().get(REQUESTSTATE.PENDING));
+        Assert.assertEquals(0.75, stats.getAcceptanceRate(), 1e-9);
+        Assert.assertEquals(LocalDate.of(2024, 3, 1), stats.getMessagesPerDay().firstKey());
+
+        String json = stats.toJson();
+        Assert.assertTrue(json.contains("\"users\": 6,"));
+        Assert.assertTrue(json.contains("\"degreeDistribution\": [1, 4, 1],"));
+        Assert.assertTrue(json.contains("\"componentSizes\": {\"1\": 1, \"2\": 1, \"3\": 1},"));
+        Assert.assertTrue(json.contains("\"requests\": {\"PENDING\": 0, \"APPROVED\": 3, \"REJECTED\": 1},"));
+        Assert.assertTrue(json.contains("\"acceptanceRate\": 0.75,"));
+        Assert.assertTrue(json.contains("\"messagesPerDay\": {\"2024-03-01\": 1, \"2024-03-02\": 4}"));
+        Assert.assertTrue(json.startsWith("{") && json.strip().endsWith("}"));
+    }
+}
@@ -0,0 +1,70 @@
+import domain.network.GraphSnapshot;
+import domain.network.GraphStorage;
+import domain.network.analytics.AnalyticsBenchmark;
+import domain.network.analytics.CoreDecomposition;
+import domain.network.analytics.Triangles;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestOffHeapAdjacency {
+
+    private static void assertSameLists(GraphSnapshot expected, GraphSnapshot actual) {
+        Assert.assertEquals(expected.size(), actual.size());
+        Assert.assertEquals(expected.nrFriendships(), actual.nrFriendships());
+        for (int v = 0; v < expected.size(); v++) {
+            Assert.assertEquals(expected.email(v), actual.email(v));
+            Assert.assertArrayEquals(expected.neighbors(v), actual.neighbors(v));
+            for (int i = 0; i < expected.degree(v); i++)
+                Assert.assertEquals(expected.neighbor(v, i), actual.neighbor(v, i));
+        }
+    }
+
+    @Test
+    public void testSameLists() {
+        GraphSnapshot graph = AnalyticsBenchmark.randomGraph(2000, 10000, 7);
+        GraphSnapshot offHeap = graph.stored(GraphStorage.OFF_HEAP);
+        Assert.assertEquals(GraphStorage.HEAP, graph.getStorage());
+        Assert.assertEquals(GraphStorage.OFF_HEAP, offHeap.getStorage());
+        Assert.assertSame(offHeap, offHeap.stored(GraphStorage.OFF_HEAP));
+        assertSameLists(graph, offHeap);
+        for (int u = 0; u < 200; u++)
+            for (int v = 0; v < 200; v++) {
+                Assert.assertEquals(graph.areFriends(u, v), offHeap.areFriends(u, v));
+                Assert.assertArrayEquals(graph.mutualFriends(u, v), offHeap.mutualFriends(u, v));
+            }
+        Assert.assertEquals(new Triangles(graph).getNrTriangles(), new Triangles(offHeap).getNrTriangles());
+        Assert.assertEquals(new CoreDecomposition(graph).getMaxCore(), new CoreDecomposition(offHeap).getMaxCore());
+    }
+
+    @Test
+    public void testConversions() {
+        GraphSnapshot graph = AnalyticsBenchmark.randomGraph(500, 2000, 9);
+        GraphSnapshot back = graph.stored(GraphStorage.OFF_HEAP).stored(GraphStorage.COMPRESSED).stored(GraphStorage.HEAP);
+        Assert.assertEquals(GraphStorage.HEAP, back.getStorage());
+        assertSameLists(graph, back);
+    }
+
+    @Test
+    public void testChanges() {
+        GraphSnapshot graph = AnalyticsBenchmark.randomGraph(100, 300, 11);
+        GraphSnapshot offHeap = graph.stored(GraphStorage.OFF_HEAP);
+        graph = graph.withFriendship("user3@bench.com", "user4@bench.com").withFriendship("new@bench.com", "user3@bench.com");
+        offHeap = offHeap.withFriendship("user3@bench.com", "user4@bench.com").withFriendship("new@bench.com", "user3@bench.com");
+        Assert.assertEquals(GraphStorage.OFF_HEAP, offHeap.getStorage());
+        assertSameLists(graph, offHeap);
+        graph = graph.withoutFriendship("user3@bench.com", "user4@bench.com");
+        offHeap = offHeap.withoutFriendship("user3@bench.com", "user4@bench.com");
+        assertSameLists(graph, offHeap);
+        Assert.assertEquals(graph.getGeneration(), offHeap.getGeneration());
+    }
+
+    @Test
+    public void testEmpty() {
+        GraphSnapshot.Builder builder = new GraphSnapshot.Builder();
+        builder.addUser("a");
+        GraphSnapshot offHeap = builder.build().stored(GraphStorage.OFF_HEAP);
+        Assert.assertEquals(0, offHeap.degree(0));
+        Assert.assertEquals(0, offHeap.neighbors(0).length);
+        Assert.assertEquals(1, offHeap.withFriendship("a", "b").degree(0));
+    }
+}
@@ -0,0 +1,50 @@
+import domain.network.GraphSnapshot;
+import domain.network.PathFinder;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+public class TestPathFinder {
+    private final PathFinder finder = new PathFinder();
+    private GraphSnapshot graph;
+
+    @Before
+    public void setUp() {
+        // a - b - c - d - e and a shortcut a - f - d; g is alone
+        GraphSnapshot.Builder builder = new GraphSnapshot.Builder();
+        builder.addFriendship("a", "b");
+        builder.addFriendship("b", "c");
+        builder.addFriendship("c", "d");
+        builder.addFriendship("d", "e");
+        builder.addFriendship("a", "f");
+        builder.addFriendship("f", "d");
+        builder.addUser("g");
+        graph = builder.build();
+    }
+
+    @Test
+    public void testShortestPath() {
+        Assert.assertEquals(List.of("a", "f", "d", "e"), finder.shortestPath(graph, "a", "e", 6));
+        Assert.assertEquals(List.of("e", "d", "f", "a"), finder.shortestPath(graph, "e", "a", 6));
+        Assert.assertEquals(List.of("b", "c"), finder.shortestPath(graph, "b", "c", 6));
+        Assert.assertEquals(List.of("a"), finder.shortestPath(graph, "a", "a", 6));
+    }
+
+    @Test
+    public void testNotConnected() {
+        Assert.assertTrue(finder.shortestPath(graph, "a", "g", 6).isEmpty());
+        Assert.assertTrue(finder.shortestPath(graph, "a", "x", 6).isEmpty());
+        Assert.assertTrue(finder.shortestPath(graph, "a", "e", 2).isEmpty());
+        Assert.assertEquals(4, finder.shortestPath(graph, "a", "e", 3).size());
+    }
+
+    @Test
+    public void testReusedAcrossSnapshots() {
+        Assert.assertEquals(3, finder.shortestPath(graph, "b", "d", 6).size());
+        GraphSnapshot changed = graph.withFriendship("b", "x").withFriendship("x", "g");
+        Assert.assertEquals(List.of("a", "b", "x", "g"), finder.shortestPath(changed, "a", "g", 6));
+        Assert.assertEquals(List.of("c", "d"), finder.shortestPath(changed, "c", "d", 6));
+    }
+}
@@ -0,0 +1,56 @@
+import domain.network.GraphSnapshot;
+import domain.network.PersonalizedPageRank;
+import domain.network.Recommendation;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+public class TestPersonalizedPageRank {
+    private GraphSnapshot graph;
+
+    @Before
+    public void setUp() {
+        // a path a - b - c - d - e
+        GraphSnapshot.Builder builder = new GraphSnapshot.Builder();
+        builder.addFriendship("a", "b");
+        builder.addFriendship("b", "c");
+        builder.addFriendship("c", "d");
+        builder.addFriendship("d", "e");
+        graph = builder.build();
+    }
+
+    @Test
+    public void testRecommendations() {
+        PersonalizedPageRank pageRank = new PersonalizedPageRank(graph, 200, 1);
+        List<Recommendation> recommendations = pageRank.getRecommendations("a", 10);
+        Assert.assertEquals(3, recommendations.size());
+        Assert.assertEquals("c", recommendations.get(0).getEmail());
+        Assert.assertEquals(1, recommendations.get(0).getMutualFriends());
+        Assert.assertEquals("e", recommendations.get(2).getEmail());
+        Assert.assertTrue(recommendations.get(0).getScore() > recommendations.get(2).getScore());
+        Assert.assertEquals(1, pageRank.getRecommendations("a", 1).size());
+    }
+
+    @Test
+    public void testIncrementalUpdate() {
+        PersonalizedPageRank pageRank = new PersonalizedPageRank(graph, 200, 1);
+        GraphSnapshot added = graph.withFriendship("a", "c");
+        pageRank.friendshipAdded(added, "a", "c");
+        List<Recommendation> recommendations = pageRank.getRecommendations("a", 10);
+        Assert.assertEquals("d", recommendations.get(0).getEmail());
+        Assert.assertTrue(recommendations.stream().noneMatch(r -> r.getEmail().equals("c")));
+
+        GraphSnapshot removed = added.withoutFriendship("a", "b").withoutFriendship("a", "c");
+        pageRank.friendshipRemoved(added.withoutFriendship("a", "b"), "a", "b");
+        pageRank.friendshipRemoved(removed, "a", "c");
+        Assert.assertTrue(pageRank.getRecommendations("a", 10).isEmpty());
+        // no walk of the others goes through a anymore
+        Assert.assertTrue(pageRank.getRecommendations("b", 10).stream().noneMatch(r -> r.getEmail().equals("a")));
+
+        pageRank.friendshipAdded(removed.withFriendship("a", "x"), "a", "x");
+        Assert.assertTrue(pageRank.getRecommendations("x", 10).isEmpty());
+        Assert.assertTrue(pageRank.getRecommendations("b", 10).stream().noneMatch(r -> r.getEmail().equals("x")));
+    }
+}
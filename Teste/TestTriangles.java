@@ -0,0 +1,66 @@
+import domain.network.GraphSnapshot;
+import domain.network.analytics.AnalyticsBenchmark;
+import domain.network.analytics.Triangles;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+public class TestTriangles {
+    private GraphSnapshot graph;
+
+    @Before
+    public void setUp() {
+        // a clique a, b, c, d, a triangle d, e, f hanging from it, and a pair x - y
+        GraphSnapshot.Builder builder = new GraphSnapshot.Builder();
+        String[] clique = {"a", "b", "c", "d"};
+        for (int i = 0; i < clique.length; i++)
+            for (int j = i + 1; j < clique.length; j++)
+                builder.addFriendship(clique[i], clique[j]);
+        builder.addFriendship("d", "e");
+        builder.addFriendship("e", "f");
+        builder.addFriendship("f", "d");
+        builder.addFriendship("x", "y");
+        graph = builder.build();
+    }
+
+    @Test
+    public void testCounts() {
+        Triangles triangles = new Triangles(graph);
+        Assert.assertEquals(5, triangles.getNrTriangles());
+        Assert.assertEquals(3, triangles.getTriangles("a"));
+        Assert.assertEquals(4, triangles.getTriangles("d"));
+        Assert.assertEquals(1, triangles.getTriangles("e"));
+        Assert.assertEquals(0, triangles.getTriangles("x"));
+    }
+
+    @Test
+    public void testClustering() {
+        Triangles triangles = new Triangles(graph);
+        Assert.assertEquals(1, triangles.getScore("a"), 1e-12);
+        // d has 5 friends, 10 pairs of them, 4 of the pairs are friends
+        Assert.assertEquals(0.4, triangles.getScore("d"), 1e-12);
+        Assert.assertEquals(0, triangles.getScore("x"), 1e-12);
+        List<String> community = List.of("a", "b", "c", "d", "e", "f");
+        // 3 * 5 triangles over 3 * 3 + 10 + 1 + 1 pairs of friends
+        Assert.assertEquals(15.0 / 21, triangles.getClustering(community), 1e-12);
+        Assert.assertEquals(15.0 / 21, triangles.getGlobalClustering(), 1e-12);
+        Assert.assertEquals((3 + 0.4 + 2) / 6, triangles.getAverageClustering(community), 1e-12);
+    }
+
+    @Test
+    public void testMarkedAndMergedAgree() {
+        // a dense random network has users with many oriented friends, they are intersected by marking
+        GraphSnapshot dense = AnalyticsBenchmark.randomGraph(200, 6000, 7);
+        Triangles triangles = new Triangles(dense);
+        long expected = 0;
+        for (int u = 0; u < dense.size(); u++)
+            for (int v : dense.neighbors(u))
+                if (u < v)
+                    for (int w : dense.mutualFriends(u, v))
+                        if (v < w)
+                            expected++;
+        Assert.assertEquals(expected, triangles.getNrTriangles());
+    }
+}
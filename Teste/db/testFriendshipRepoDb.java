@@ -5,9 +5,11 @@ import domain.User;
 import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
+import org.junit.BeforeClass;
 import org.junit.Test;
 import repository.RepoException;
 import repository.db.FriendshipDbRepo;
+import repository.db.SchemaMigrator;
 import repository.db.UserDbRepo;
 import validator.FriendshipValidator;
 import validator.UserValidator;
@@ -16,9 +18,9 @@ import java.time.LocalDate;
 import java.util.List;
 
 public class testFriendshipRepoDb {
-    private final String url = "jdbc:postgresql://localhost:5432/TestToySocialNetwork";
-    private final String username = "postgres";
-    private final String password = "postgres";
+    private static final String url = "jdbc:postgresql://localhost:5432/TestToySocialNetwork";
+    private static final String username = "postgres";
+    private static final String password = "postgres";
     private final UserDbRepo uRepo = new UserDbRepo(url, username, password, new UserValidator(), "users");
     private final User us1 = new User("adi", "popa", "adi.popa@yahoo.com");
     private final User us2 = new User("alex", "popescu", "popescu.alex@gmail.com");
@@ -29,6 +31,11 @@ public class testFriendshipRepoDb {
     private final Friendship f2 = new Friendship(us1, us3, LocalDate.now());
     private final Friendship f3 = new Friendship(us2, us4, LocalDate.now());
 
+    @BeforeClass
+    public static void migrate() {
+        new SchemaMigrator(url, username, password).migrate();
+    }
+
     @Before
     public void setUp() throws Exception {
         uRepo.save(us1);
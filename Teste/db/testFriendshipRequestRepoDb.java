@@ -6,18 +6,20 @@ import domain.User;
 import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
+import org.junit.BeforeClass;
 import org.junit.Test;
 import repository.RepoException;
 import repository.db.FriendshipRequestDbRepo;
+import repository.db.SchemaMigrator;
 import repository.db.UserDbRepo;
 import validator.UserValidator;
 
 import java.util.List;
 
 public class testFriendshipRequestRepoDb {
-    private final String url = "jdbc:postgresql://localhost:5432/TestToySocialNetwork";
-    private final String username = "postgres";
-    private final String password = "postgres";
+    private static final String url = "jdbc:postgresql://localhost:5432/TestToySocialNetwork";
+    private static final String username = "postgres";
+    private static final String password = "postgres";
     private final UserDbRepo uRepo = new UserDbRepo(url, username, password, new UserValidator(), "users");
     private final User us1 = new User("adi", "popa", "one@gmail.com");
     private final User us2 = new User("alex", "popescu", "two@gmail.com");
@@ -28,6 +30,11 @@ public class testFriendshipRequestRepoDb {
     private final FriendshipRequest f2 = new FriendshipRequest(us1, us3);
     private final FriendshipRequest f3 = new FriendshipRequest(us2, us4);
 
+    @BeforeClass
+    public static void migrate() {
+        new SchemaMigrator(url, username, password).migrate();
+    }
+
     @Before
     public void setUp() throws Exception {
         uRepo.save(us1);
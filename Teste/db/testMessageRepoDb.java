@@ -6,18 +6,20 @@ import domain.User;
 import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
+import org.junit.BeforeClass;
 import org.junit.Test;
 import repository.db.MessageDbRepo;
 import repository.db.MessageReceiverDbRepo;
+import repository.db.SchemaMigrator;
 import repository.db.UserDbRepo;
 import validator.MessageReceiverValidator;
 import validator.MessageValidator;
 import validator.UserValidator;
 
 public class testMessageRepoDb {
-    private final String url = "jdbc:postgresql://localhost:5432/TestToySocialNetwork";
-    private final String username = "postgres";
-    private final String password = "postgres";
+    private static final String url = "jdbc:postgresql://localhost:5432/TestToySocialNetwork";
+    private static final String username = "postgres";
+    private static final String password = "postgres";
     private final User us1 = new User("adi", "popa", "adi.popa@yahoo.com");
     private final User us2 = new User("alex", "popescu", "popescu.alex@gmail.com");
     private final User us3 = new User("maria", "lazar", "l.maria@gmail.com");
@@ -29,6 +31,11 @@ public class testMessageRepoDb {
     private final Message m2 = new Message("popescu.alex@gmail.com","mesaj2");
     private final MessageReceiver mr1 = new MessageReceiver(1, "popescu.alex@gmail.com");
 
+    @BeforeClass
+    public static void migrate() {
+        new SchemaMigrator(url, username, password).migrate();
+    }
+
     @Before
     public void setUp() throws Exception {
         mrRepo.clear();
@@ -6,6 +6,7 @@ import domain.network.Network;
 import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
+import org.junit.BeforeClass;
 import org.junit.Test;
 import repository.RepoException;
 import repository.db.*;
@@ -16,11 +17,12 @@ import validator.MessageValidator;
 import validator.UserValidator;
 
 import java.util.List;
+import java.util.Map;
 
 public class testServiceDb {
-    private final String url = "jdbc:postgresql://localhost:5432/TestToySocialNetwork";
-    private final String username = "postgres";
-    private final String password = "postgres";
+    private static final String url = "jdbc:postgresql://localhost:5432/TestToySocialNetwork";
+    private static final String username = "postgres";
+    private static final String password = "postgres";
     private final UserDbRepo uRepo = new UserDbRepo(url, username, password, new UserValidator(), "users");
     private final UserService uSrv = new UserService(uRepo);
     private final User us1 = new User("adi", "popa", "adi.popa@yahoo.com");
@@ -41,6 +43,11 @@ public class testServiceDb {
     private final Network ntw = new Network(uRepo, fRepo);
     private final Service service = new Service(uSrv, fSrv, mSrv, mrSrv, ntw);
 
+    @BeforeClass
+    public static void migrate() {
+        new SchemaMigrator(url, username, password).migrate();
+    }
+
     @Before
     public void setUp() throws Exception {
         service.addUser(us1.getFirstName(), us1.getLastName(), us1.getEmail(), us1.getPassword());
@@ -152,6 +159,26 @@ public class testServiceDb {
         Assert.assertEquals(service.getUserFriends(us2.getEmail()).get(0).getEmail(), us1.getEmail());
     }
 
+    @Test
+    public void testAnswerFriendRequestsBatch() {
+        service.addFriendship(us2.getEmail(), us1.getEmail());
+        service.addFriendship(us3.getEmail(), us1.getEmail());
+        service.addFriendship(us4.getEmail(), us1.getEmail());
+        service.rejectFriendship(us4.getEmail(), us1.getEmail());
+
+        Map<String, RequestOutcome> outcomes = service.acceptFriendships(us1.getEmail(),
+                List.of(us2.getEmail(), us3.getEmail(), us4.getEmail(), "nobody@gmail.com"));
+        Assert.assertEquals(RequestOutcome.ACCEPTED, outcomes.get(us2.getEmail()));
+        Assert.assertEquals(RequestOutcome.ACCEPTED, outcomes.get(us3.getEmail()));
+        Assert.assertEquals(RequestOutcome.ALREADY_ANSWERED, outcomes.get(us4.getEmail()));
+        Assert.assertEquals(RequestOutcome.NO_REQUEST, outcomes.get("nobody@gmail.com"));
+        Assert.assertEquals(2, service.getUserFriends(us1.getEmail()).size());
+        Assert.assertEquals(0, service.getUserFriendRequests(us1.getEmail()).size());
+
+        outcomes = service.rejectFriendships(us1.getEmail(), List.of(us2.getEmail()));
+        Assert.assertEquals(RequestOutcome.ALREADY_ANSWERED, outcomes.get(us2.getEmail()));
+    }
+
     @Test
     public void testNetwork() {
         service.addFriendship(f1.getFirst(), f1.getSecond());
@@ -1,35 +1,34 @@
 package domain;
 
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
 import java.util.Objects;
 
 public class Friendship {
-    //a friendship contains as attributes the emails of the users
+    //a friendship contains as attributes the emails of the users,
+    //kept in order (least, greatest) so that a friendship has only one representation
     private String email1, email2;
 
     private LocalDate date;
     public Friendship(String e1, String e2) {
-        this.email1 = e1;
-        this.email2 = e2;
-        date = LocalDate.now();
+        this(e1, e2, LocalDate.now());
     }
 
     public Friendship(User u1, User u2) {
-        this.email1 = u1.getEmail();
-        this.email2 = u2.getEmail();
-        date = LocalDate.now();
+        this(u1.getEmail(), u2.getEmail(), LocalDate.now());
     }
     public Friendship(String e1, String e2, LocalDate date) {
-        this.email1 = e1;
-        this.email2 = e2;
+        if (e1.compareTo(e2) <= 0) {
+            this.email1 = e1;
+            this.email2 = e2;
+        } else {
+            this.email1 = e2;
+            this.email2 = e1;
+        }
         this.date = date;
     }
 
     public Friendship(User u1, User u2, LocalDate date) {
-        this.email1 = u1.getEmail();
-        this.email2 = u2.getEmail();
-        this.date = date;
+        this(u1.getEmail(), u2.getEmail(), date);
     }
 
     @Override
@@ -43,12 +42,12 @@ public class Friendship {
     }
 
     /**
-     * @return the email of the first user of the friendship
+     * @return the email of the first user of the friendship, the least of the two emails
      */
     public String getFirst() { return email1; }
 
     /**
-     * @return the email of the second user of the friendship
+     * @return the email of the second user of the friendship, the greatest of the two emails
      */
     public String getSecond() { return email2; }
 
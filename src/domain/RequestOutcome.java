@@ -0,0 +1,15 @@
+package domain;
+
+/*
+Class that abstracts the outcome of answering one friend request from a batch:
+ACCEPTED - the pending request was approved and the friendship was saved
+REJECTED - the pending request was rejected
+NO_REQUEST - there is no request from that user
+ALREADY_ANSWERED - the request was already approved or rejected
+ */
+public enum RequestOutcome {
+    ACCEPTED,
+    REJECTED,
+    NO_REQUEST,
+    ALREADY_ANSWERED
+}
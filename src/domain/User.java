@@ -6,6 +6,7 @@ import repository.RepoException;
 import java.util.*;
 
 public class User {
+    private Long id;
     private String firstName, lastName, email, password;
 
     /**
@@ -83,6 +84,22 @@ public class User {
         return lastName + " " + firstName;
     }
 
+    /**
+     * Returns the id given to the user by the repository
+     * @return id - Long, null if the user was not saved
+     */
+    public Long getId() {
+        return id;
+    }
+
+    /**
+     * Sets the id given to the user by the repository
+     * @param id - Long
+     */
+    public void setId(Long id) {
+        this.id = id;
+    }
+
     /**
      * Returns the email of a user
      * @return email - String
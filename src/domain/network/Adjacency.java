@@ -0,0 +1,69 @@
+package domain.network;
+
+/**
+ * The sorted friends of the users of a snapshot, numbered from 0 to size() - 1.
+ * The implementations differ in where and how the lists are stored
+ */
+public interface Adjacency {
+
+    /**
+     * @return the number of users
+     */
+    int size();
+
+    /**
+     * @return the length of all the lists together, twice the number of friendships
+     */
+    long nrTargets();
+
+    /**
+     * @return the number of friends of the user v
+     */
+    int degree(int v);
+
+    /**
+     * Random access to a list; the formats that can't do it in O(1) decode the list up to i,
+     * so a whole list is read with a cursor
+     * @return the id of the i-th friend of v
+     */
+    int neighbor(int v, int i);
+
+    /**
+     * @return a new cursor over the lists
+     */
+    NeighborCursor cursor();
+
+    /**
+     * @return the memory taken by the lists, in bytes
+     */
+    long sizeInBytes();
+
+    /**
+     * @return where the lists are kept
+     */
+    GraphStorage storage();
+
+    /**
+     * @param adjacency - the lists, read once or twice with a cursor
+     * @return an adjacency in the same format as this one, with the given lists
+     */
+    Adjacency rebuilt(Adjacency adjacency);
+
+    /**
+     * @return true if w is in the list of v
+     */
+    default boolean contains(int v, int w) {
+        int low = 0, high = degree(v) - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int x = neighbor(v, mid);
+            if (x < w)
+                low = mid + 1;
+            else if (x > w)
+                high = mid - 1;
+            else
+                return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,98 @@
+package domain.network;
+
+import java.util.Arrays;
+
+/**
+ * The lists in two heap arrays (compressed sparse rows): the friends of v are
+ * targets[offsets[v]], ..., targets[offsets[v + 1] - 1]; 4 bytes for each friend in a list
+ */
+public class ArrayAdjacency implements Adjacency {
+    private final int[] offsets;
+    private final int[] targets;
+
+    public ArrayAdjacency(int[] offsets, int[] targets) {
+        this.offsets = offsets;
+        this.targets = targets;
+    }
+
+    /**
+     * Copies the lists of another adjacency to the heap
+     */
+    public ArrayAdjacency(Adjacency adjacency) {
+        int n = adjacency.size();
+        offsets = new int[n + 1];
+        targets = new int[Math.toIntExact(adjacency.nrTargets())];
+        NeighborCursor cursor = adjacency.cursor();
+        int size = 0;
+        for (int v = 0; v < n; v++) {
+            offsets[v] = size;
+            cursor.reset(v);
+            while (cursor.hasNext())
+                targets[size++] = cursor.next();
+        }
+        offsets[n] = size;
+    }
+
+    @Override
+    public int size() {
+        return offsets.length - 1;
+    }
+
+    @Override
+    public long nrTargets() {
+        return targets.length;
+    }
+
+    @Override
+    public int degree(int v) {
+        return offsets[v + 1] - offsets[v];
+    }
+
+    @Override
+    public int neighbor(int v, int i) {
+        return targets[offsets[v] + i];
+    }
+
+    @Override
+    public boolean contains(int v, int w) {
+        return Arrays.binarySearch(targets, offsets[v], offsets[v + 1], w) >= 0;
+    }
+
+    @Override
+    public NeighborCursor cursor() {
+        return new NeighborCursor() {
+            private int position, end;
+
+            @Override
+            public void reset(int v) {
+                position = offsets[v];
+                end = offsets[v + 1];
+            }
+
+            @Override
+            public boolean hasNext() {
+                return position < end;
+            }
+
+            @Override
+            public int next() {
+                return targets[position++];
+            }
+        };
+    }
+
+    @Override
+    public long sizeInBytes() {
+        return 4L * offsets.length + 4L * targets.length;
+    }
+
+    @Override
+    public GraphStorage storage() {
+        return GraphStorage.HEAP;
+    }
+
+    @Override
+    public Adjacency rebuilt(Adjacency adjacency) {
+        return new ArrayAdjacency(adjacency);
+    }
+}
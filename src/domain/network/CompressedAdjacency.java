@@ -0,0 +1,185 @@
+package domain.network;
+
+import java.util.Arrays;
+
+/**
+ * The lists delta- and varint-encoded: each friend is stored as the gap from the previous one
+ * in the list, 7 bits per byte with the high bit set on all the bytes but the last. Friends with
+ * close ids take one or two bytes instead of four. The bytes are kept in pages of up to 1 GiB,
+ * a list is never split between two pages, so the graph isn't limited by the size of an array
+ */
+public class CompressedAdjacency implements Adjacency {
+    private static final int PAGE_BITS = 30;
+    private static final long PAGE_MASK = (1L << PAGE_BITS) - 1;
+    private final byte[][] pages;
+    // the position of each list: the page in the high bits, the offset in the page in the low ones
+    private final long[] positions;
+    private final int[] degrees;
+    private final long nrTargets;
+
+    /**
+     * Encodes the lists of another adjacency
+     */
+    public CompressedAdjacency(Adjacency adjacency) {
+        int n = adjacency.size();
+        positions = new long[n];
+        degrees = new int[n];
+        NeighborCursor cursor = adjacency.cursor();
+        // the size of each page is known before it is filled, so the pages aren't resized
+        int[] pageSizes = new int[1];
+        int page = 0;
+        long used = 0;
+        for (int v = 0; v < n; v++) {
+            long length = encodedLength(cursor, v);
+            if (used + length > 1L << PAGE_BITS) {
+                pageSizes[page] = (int) used;
+                page++;
+                if (page == pageSizes.length)
+                    pageSizes = Arrays.copyOf(pageSizes, page * 2);
+                used = 0;
+            }
+            positions[v] = (long) page << PAGE_BITS | used;
+            degrees[v] = adjacency.degree(v);
+            used += length;
+        }
+        pageSizes[page] = (int) used;
+        pages = new byte[page + 1][];
+        for (int p = 0; p <= page; p++)
+            pages[p] = new byte[pageSizes[p]];
+        long total = 0;
+        for (int v = 0; v < n; v++) {
+            byte[] bytes = pages[(int) (positions[v] >>> PAGE_BITS)];
+            int offset = (int) (positions[v] & PAGE_MASK);
+            int last = -1;
+            cursor.reset(v);
+            while (cursor.hasNext()) {
+                int w = cursor.next();
+                offset = write(bytes, offset, w - last - 1);
+                last = w;
+            }
+            total += degrees[v];
+        }
+        nrTargets = total;
+    }
+
+    private static long encodedLength(NeighborCursor cursor, int v) {
+        long length = 0;
+        int last = -1;
+        cursor.reset(v);
+        while (cursor.hasNext()) {
+            int w = cursor.next();
+            length += varintLength(w - last - 1);
+            last = w;
+        }
+        return length;
+    }
+
+    private static int varintLength(int value) {
+        int length = 1;
+        while ((value >>>= 7) != 0)
+            length++;
+        return length;
+    }
+
+    private static int write(byte[] bytes, int offset, int value) {
+        while ((value & ~0x7F) != 0) {
+            bytes[offset++] = (byte) (value & 0x7F | 0x80);
+            value >>>= 7;
+        }
+        bytes[offset++] = (byte) value;
+        return offset;
+    }
+
+    @Override
+    public int size() {
+        return degrees.length;
+    }
+
+    @Override
+    public long nrTargets() {
+        return nrTargets;
+    }
+
+    @Override
+    public int degree(int v) {
+        return degrees[v];
+    }
+
+    @Override
+    public int neighbor(int v, int i) {
+        NeighborCursor cursor = cursor();
+        cursor.reset(v);
+        int w = -1;
+        for (int j = 0; j <= i; j++)
+            w = cursor.next();
+        return w;
+    }
+
+    /**
+     * A linear scan, the list is sorted so it stops at the first friend past w
+     */
+    @Override
+    public boolean contains(int v, int w) {
+        NeighborCursor cursor = cursor();
+        cursor.reset(v);
+        while (cursor.hasNext()) {
+            int x = cursor.next();
+            if (x >= w)
+                return x == w;
+        }
+        return false;
+    }
+
+    @Override
+    public NeighborCursor cursor() {
+        return new NeighborCursor() {
+            private byte[] bytes;
+            private int offset, remaining, last;
+
+            @Override
+            public void reset(int v) {
+                bytes = pages[(int) (positions[v] >>> PAGE_BITS)];
+                offset = (int) (positions[v] & PAGE_MASK);
+                remaining = degrees[v];
+                last = -1;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return remaining > 0;
+            }
+
+            @Override
+            public int next() {
+                int value = 0, shift = 0;
+                byte b;
+                do {
+                    b = bytes[offset++];
+                    value |= (b & 0x7F) << shift;
+                    shift += 7;
+                } while (b < 0);
+                remaining--;
+                last += value + 1;
+                return last;
+            }
+        };
+    }
+
+    @Override
+    public long sizeInBytes() {
+        long bytes = 12L * degrees.length;
+        for (byte[] page : pages)
+            bytes += page.length;
+        return bytes;
+    }
+
+    @Override
+    public GraphStorage storage() {
+        return GraphStorage.COMPRESSED;
+    }
+
+    @Override
+    public Adjacency rebuilt(Adjacency adjacency) {
+        return new CompressedAdjacency(adjacency);
+    }
+}
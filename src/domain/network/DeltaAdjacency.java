@@ -0,0 +1,177 @@
+package domain.network;
+
+import java.util.Arrays;
+
+/**
+ * The lists of a base adjacency with the lists of a few users replaced: a change of a friendship copies
+ * the lists of its two users and the small table of the replaced lists, instead of all the lists.
+ * When the replaced lists grow past about the square root of the size of the base they are merged
+ * into a new base, in its format, so a change costs O(degrees + sqrt(friendships)) amortized
+ */
+class DeltaAdjacency implements Adjacency {
+    private final Adjacency base;
+    private final int size;
+    // the users whose lists are replaced, sorted, and their lists
+    private final int[] users;
+    private final int[][] lists;
+    private final long nrTargets;
+
+    private DeltaAdjacency(Adjacency base, int size, int[] users, int[][] lists, long nrTargets) {
+        this.base = base;
+        this.size = size;
+        this.users = users;
+        this.lists = lists;
+        this.nrTargets = nrTargets;
+    }
+
+    /**
+     * @param adjacency - the lists before the change
+     * @param size - int the number of users after the change, the users added have ids from adjacency.size()
+     * @param u - int a user whose list changed
+     * @param listU - the new sorted list of u
+     * @param v - int the other user whose list changed
+     * @param listV - the new sorted list of v
+     * @return the lists after the change
+     */
+    static Adjacency patched(Adjacency adjacency, int size, int u, int[] listU, int v, int[] listV) {
+        long nrTargets = adjacency.nrTargets() + listU.length + listV.length;
+        if (u < adjacency.size())
+            nrTargets -= adjacency.degree(u);
+        if (v < adjacency.size())
+            nrTargets -= adjacency.degree(v);
+        DeltaAdjacency delta = adjacency instanceof DeltaAdjacency d ? d :
+                new DeltaAdjacency(adjacency, adjacency.size(), new int[0], new int[0][], adjacency.nrTargets());
+        DeltaAdjacency patched = delta.with(u, listU, size, nrTargets).with(v, listV, size, nrTargets);
+        if (patched.users.length > Math.max(64, Math.sqrt(patched.base.size() + (double) patched.base.nrTargets())))
+            return patched.compacted();
+        return patched;
+    }
+
+    /**
+     * The tables of the replaced lists are copied, a generation never changes the ones of another
+     * @return the lists with the list of v replaced
+     */
+    private DeltaAdjacency with(int v, int[] list, int size, long nrTargets) {
+        int i = Arrays.binarySearch(users, v);
+        if (i >= 0) {
+            int[][] newLists = lists.clone();
+            newLists[i] = list;
+            return new DeltaAdjacency(base, size, users, newLists, nrTargets);
+        }
+        i = -i - 1;
+        return new DeltaAdjacency(base, size, inserted(users, i, v), inserted(lists, i, list), nrTargets);
+    }
+
+    private static int[] inserted(int[] array, int i, int value) {
+        int[] copy = new int[array.length + 1];
+        System.arraycopy(array, 0, copy, 0, i);
+        copy[i] = value;
+        System.arraycopy(array, i, copy, i + 1, array.length - i);
+        return copy;
+    }
+
+    private static int[][] inserted(int[][] array, int i, int[] value) {
+        int[][] copy = new int[array.length + 1][];
+        System.arraycopy(array, 0, copy, 0, i);
+        copy[i] = value;
+        System.arraycopy(array, i, copy, i + 1, array.length - i);
+        return copy;
+    }
+
+    /**
+     * The lists are read with a cursor straight into the new base, without a copy on the heap
+     * @return the lists merged into one adjacency in the format of the base
+     */
+    Adjacency compacted() {
+        return base.rebuilt(this);
+    }
+
+    /**
+     * @return the list of v if it was replaced, null otherwise
+     */
+    private int[] replaced(int v) {
+        int i = Arrays.binarySearch(users, v);
+        return i < 0 ? null : lists[i];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public long nrTargets() {
+        return nrTargets;
+    }
+
+    @Override
+    public int degree(int v) {
+        int[] list = replaced(v);
+        if (list != null)
+            return list.length;
+        return v < base.size() ? base.degree(v) : 0;
+    }
+
+    @Override
+    public int neighbor(int v, int i) {
+        int[] list = replaced(v);
+        return list != null ? list[i] : base.neighbor(v, i);
+    }
+
+    @Override
+    public boolean contains(int v, int w) {
+        int[] list = replaced(v);
+        if (list != null)
+            return Arrays.binarySearch(list, w) >= 0;
+        return v < base.size() && base.contains(v, w);
+    }
+
+    @Override
+    public NeighborCursor cursor() {
+        NeighborCursor baseCursor = base.cursor();
+        return new NeighborCursor() {
+            private int[] list;
+            private int position;
+            private boolean fromBase;
+
+            @Override
+            public void reset(int v) {
+                list = replaced(v);
+                position = 0;
+                fromBase = list == null && v < base.size();
+                if (fromBase)
+                    baseCursor.reset(v);
+            }
+
+            @Override
+            public boolean hasNext() {
+                if (fromBase)
+                    return baseCursor.hasNext();
+                return list != null && position < list.length;
+            }
+
+            @Override
+            public int next() {
+                return fromBase ? baseCursor.next() : list[position++];
+            }
+        };
+    }
+
+    @Override
+    public long sizeInBytes() {
+        long bytes = base.sizeInBytes() + 4L * users.length;
+        for (int[] list : lists)
+            bytes += 4L * list.length;
+        return bytes;
+    }
+
+    @Override
+    public GraphStorage storage() {
+        return base.storage();
+    }
+
+    @Override
+    public Adjacency rebuilt(Adjacency adjacency) {
+        return base.rebuilt(adjacency);
+    }
+}
@@ -0,0 +1,194 @@
+package domain.network;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * "People you may know": for each user, the k users that are not friends with the user
+ * and have the most friends in common with the user. The suggestions of all the users are
+ * computed in parallel; when a friendship is added or removed only the suggestions of the
+ * users around it are computed again
+ */
+public class FriendRecommender {
+    private final int k;
+    private GraphSnapshot graph;
+    // the suggested users and their mutual friends, by user, in decreasing order of mutual friends
+    private int[][] suggested;
+    private int[][] mutual;
+    private final ThreadLocal<Scratch> scratch = new ThreadLocal<>();
+
+    /**
+     * The counters of one thread, they are reset after each user so they cost O(explored) and not O(V)
+     */
+    private static class Scratch {
+        final int[] count;
+        final int[] touched;
+        final long[] heap;
+        // the cursors over the friends of the user and over the friends of a friend, for one snapshot
+        GraphSnapshot graph;
+        NeighborCursor friends, friendsOfFriend;
+
+        Scratch(int n, int k) {
+            count = new int[n];
+            touched = new int[n];
+            heap = new long[k];
+        }
+    }
+
+    /**
+     * @param graph - the snapshot of the network
+     * @param k - int the number of suggestions kept for each user
+     */
+    public FriendRecommender(GraphSnapshot graph, int k) {
+        this.k = k;
+        this.graph = graph;
+        this.suggested = new int[graph.size()][];
+        this.mutual = new int[graph.size()][];
+        recompute(IntStream.range(0, graph.size()).toArray());
+    }
+
+    /**
+     * @param email - String the email of the user
+     * @return the suggested friends of the user, the ones with the most mutual friends first
+     */
+    public synchronized List<Recommendation> getRecommendations(String email) {
+        int u = graph.id(email);
+        List<Recommendation> recommendations = new ArrayList<>();
+        if (u < 0)
+            return recommendations;
+        for (int i = 0; i < suggested[u].length; i++)
+            recommendations.add(new Recommendation(graph.email(suggested[u][i]), mutual[u][i]));
+        return recommendations;
+    }
+
+    /**
+     * Updates the suggestions after a friendship was added or removed. Only the mutual friends
+     * of the pairs made of one of the two users and a friend of the other one change, so only
+     * the two users and their friends are computed again
+     * @param graph - the snapshot with the change
+     * @param email1 - String the email of a user of the friendship
+     * @param email2 - String the email of the other user
+     */
+    public synchronized void friendshipChanged(GraphSnapshot graph, String email1, String email2) {
+        this.graph = graph;
+        if (graph.size() > suggested.length) {
+            int old = suggested.length;
+            suggested = Arrays.copyOf(suggested, graph.size());
+            mutual = Arrays.copyOf(mutual, graph.size());
+            for (int v = old; v < graph.size(); v++) {
+                suggested[v] = new int[0];
+                mutual[v] = new int[0];
+            }
+        }
+        int u = graph.id(email1), v = graph.id(email2);
+        if (u < 0 || v < 0)
+            return;
+        int[] affected = IntStream.concat(IntStream.of(u, v),
+                        IntStream.concat(Arrays.stream(graph.neighbors(u)), Arrays.stream(graph.neighbors(v))))
+                .distinct().toArray();
+        recompute(affected);
+    }
+
+    private void recompute(int[] users) {
+        IntStream.of(users).parallel().forEach(u -> {
+            Scratch s = scratch.get();
+            if (s == null || s.count.length < graph.size()) {
+                s = new Scratch(graph.size(), k);
+                scratch.set(s);
+            }
+            if (s.graph != graph) {
+                s.graph = graph;
+                s.friends = graph.cursor();
+                s.friendsOfFriend = graph.cursor();
+            }
+            computeUser(u, s);
+        });
+    }
+
+    /**
+     * Counts the mutual friends of u and each user two friendships away from u
+     * and keeps the best k in a min-heap
+     */
+    private void computeUser(int u, Scratch s) {
+        int[] count = s.count;
+        int nrTouched = 0;
+        // the user and the friends of the user are marked so they aren't counted
+        count[u] = -1;
+        NeighborCursor friends = s.friends, friendsOfFriend = s.friendsOfFriend;
+        friends.reset(u);
+        while (friends.hasNext())
+            count[friends.next()] = -1;
+        friends.reset(u);
+        while (friends.hasNext()) {
+            friendsOfFriend.reset(friends.next());
+            while (friendsOfFriend.hasNext()) {
+                int c = friendsOfFriend.next();
+                if (count[c] < 0)
+                    continue;
+                if (count[c]++ == 0)
+                    s.touched[nrTouched++] = c;
+            }
+        }
+        // the heap keys are the number of mutual friends in the high half and the reversed id
+        // in the low half, so on a tie the user with the smaller id is ranked first
+        long[] heap = s.heap;
+        int size = 0;
+        for (int i = 0; i < nrTouched; i++) {
+            int c = s.touched[i];
+            long key = (long) count[c] << 32 | (Integer.MAX_VALUE - c);
+            count[c] = 0;
+            if (size < k) {
+                heap[size] = key;
+                siftUp(heap, size++);
+            } else if (key > heap[0]) {
+                heap[0] = key;
+                siftDown(heap, size);
+            }
+        }
+        count[u] = 0;
+        friends.reset(u);
+        while (friends.hasNext())
+            count[friends.next()] = 0;
+        int[] users = new int[size];
+        int[] counts = new int[size];
+        for (int i = size - 1; i >= 0; i--) {
+            long key = heap[0];
+            heap[0] = heap[i];
+            siftDown(heap, i);
+            users[i] = Integer.MAX_VALUE - (int) key;
+            counts[i] = (int) (key >>> 32);
+        }
+        suggested[u] = users;
+        mutual[u] = counts;
+    }
+
+    private static void siftUp(long[] heap, int i) {
+        while (i > 0 && heap[(i - 1) / 2] > heap[i]) {
+            swap(heap, i, (i - 1) / 2);
+            i = (i - 1) / 2;
+        }
+    }
+
+    private static void siftDown(long[] heap, int size) {
+        int i = 0;
+        while (true) {
+            int min = i, l = 2 * i + 1, r = 2 * i + 2;
+            if (l < size && heap[l] < heap[min])
+                min = l;
+            if (r < size && heap[r] < heap[min])
+                min = r;
+            if (min == i)
+                return;
+            swap(heap, i, min);
+            i = min;
+        }
+    }
+
+    private static void swap(long[] heap, int i, int j) {
+        long aux = heap[i];
+        heap[i] = heap[j];
+        heap[j] = aux;
+    }
+}
@@ -0,0 +1,13 @@
+package domain.network;
+
+/**
+ * What the most friendly community of the network is taken to be
+ */
+public enum FriendlyCommunityMode {
+    // the users of the longest path of friendships
+    LONGEST_PATH,
+    // the k-core with the largest k: a group where everyone has at least k friends inside the group
+    DENSEST_CORE,
+    // the largest clique: a group where everyone is friends with everyone
+    MAX_CLIQUE
+}
@@ -0,0 +1,286 @@
+package domain.network;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * The friendships of the network sorted by the date they were made, for the queries about the network
+ * as it was at a past date. The network as of a date is replayed from the friendships made up to it:
+ * a binary search finds them, a prefix of the timeline, and they are grouped into the lists of a snapshot
+ * of the same users, so a query costs O(users + friendships up to the date) instead of a read of the tables.
+ * The users are the ids of the current snapshot; a friendship removed since is no longer in the timeline,
+ * the network of the past is the one of the friendships that still exist. Friendships without a date
+ * are taken to be the oldest ones, a friendship added twice is kept at its oldest date. The position
+ * of each friendship is kept in a hash table by its pair of users, so a removal doesn't search the timeline
+ */
+public class FriendshipTimeline {
+    // the day of the friendships without a date, before any other
+    private static final int NO_DATE = Integer.MIN_VALUE;
+    // the users of each friendship and its epoch day, in increasing order of the days;
+    // the users of a removed friendship are -1
+    private int[] first;
+    private int[] second;
+    private int[] days;
+    private int size;
+    private long nrRemoved;
+    // the position of each friendship by the key of its pair of users, in an open-addressing table with
+    // linear probing; the key 0 marks an empty slot, a removed friendship keeps its key with the position -1
+    private long[] keys = new long[16];
+    private int[] positions = new int[16];
+    private int nrKeys;
+    // the last snapshot replayed, kept until a friendship is added or removed
+    private int replayedLength = -1;
+    private int replayedUsers;
+    private GraphSnapshot replayed;
+
+    /**
+     * @param size - int the number of friendships, sorted by day; the ones after the first of a pair are dropped
+     */
+    private FriendshipTimeline(int[] first, int[] second, int[] days, int size) {
+        this.first = first;
+        this.second = second;
+        this.days = days;
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            long key = key(first[i], second[i]);
+            if (position(key) >= 0)
+                continue;
+            first[kept] = first[i];
+            second[kept] = second[i];
+            days[kept] = days[i];
+            put(key, kept);
+            kept++;
+        }
+        this.size = kept;
+    }
+
+    /**
+     * Collects the dated friendships of a snapshot
+     */
+    public static class Builder {
+        private final GraphSnapshot graph;
+        private int[] pairs = new int[16];
+        private int[] days = new int[8];
+        private int nrPairs;
+
+        /**
+         * @param graph - the snapshot the ids of the users are taken from
+         */
+        public Builder(GraphSnapshot graph) {
+            this.graph = graph;
+        }
+
+        /**
+         * Adds a friendship; the ones between users that aren't in the snapshot are ignored
+         * @param email1 - String the email of a user
+         * @param email2 - String the email of the other user
+         * @param date - the date the friendship was made, null if it is not known
+         */
+        public void addFriendship(String email1, String email2, LocalDate date) {
+            int u = graph.id(email1), v = graph.id(email2);
+            if (u < 0 || v < 0 || u == v)
+                return;
+            if (nrPairs == days.length) {
+                pairs = Arrays.copyOf(pairs, pairs.length * 2);
+                days = Arrays.copyOf(days, days.length * 2);
+            }
+            pairs[nrPairs * 2] = u;
+            pairs[nrPairs * 2 + 1] = v;
+            days[nrPairs] = day(date);
+            nrPairs++;
+        }
+
+        public FriendshipTimeline build() {
+            // the day in the high half and the position in the low one, so one sort of longs orders the friendships
+            long[] keys = new long[nrPairs];
+            for (int i = 0; i < nrPairs; i++)
+                keys[i] = (long) days[i] << 32 | i;
+            Arrays.sort(keys);
+            int[] first = new int[nrPairs], second = new int[nrPairs], sorted = new int[nrPairs];
+            for (int i = 0; i < nrPairs; i++) {
+                int p = (int) keys[i];
+                first[i] = pairs[p * 2];
+                second[i] = pairs[p * 2 + 1];
+                sorted[i] = days[p];
+            }
+            return new FriendshipTimeline(first, second, sorted, nrPairs);
+        }
+    }
+
+    private static int day(LocalDate date) {
+        return date == null ? NO_DATE : Math.toIntExact(date.toEpochDay());
+    }
+
+    /**
+     * @return the key of the pair of users, never 0 since the users are different
+     */
+    private static long key(int u, int v) {
+        return (long) Math.min(u, v) << 32 | Math.max(u, v);
+    }
+
+    /**
+     * @return the slot of the key in the table, or the empty slot where it goes
+     */
+    private int slot(long key) {
+        int mask = keys.length - 1;
+        int i = (int) ((key * 0x9E3779B97F4A7C15L) >>> (64 - Integer.numberOfTrailingZeros(keys.length)));
+        while (keys[i] != 0 && keys[i] != key)
+            i = (i + 1) & mask;
+        return i;
+    }
+
+    /**
+     * @return the position of the friendship with the key, -1 if it isn't in the timeline
+     */
+    private int position(long key) {
+        int i = slot(key);
+        return keys[i] == 0 ? -1 : positions[i];
+    }
+
+    private void put(long key, int position) {
+        if (2 * (nrKeys + 1) > keys.length) {
+            long[] oldKeys = keys;
+            int[] oldPositions = positions;
+            keys = new long[oldKeys.length * 2];
+            positions = new int[oldKeys.length * 2];
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != 0) {
+                    int j = slot(oldKeys[i]);
+                    keys[j] = oldKeys[i];
+                    positions[j] = oldPositions[i];
+                }
+            }
+        }
+        int i = slot(key);
+        if (keys[i] == 0) {
+            keys[i] = key;
+            nrKeys++;
+        }
+        positions[i] = position;
+    }
+
+    /**
+     * @return the number of friendships in the timeline
+     */
+    public synchronized long nrFriendships() {
+        return size - nrRemoved;
+    }
+
+    /**
+     * Adds a friendship made after the ones of the timeline, unless it is in the timeline already
+     * @param graph - the snapshot with the friendship
+     * @param email1 - String the email of a user
+     * @param email2 - String the email of the other user
+     * @param date - the date the friendship was made; an earlier date than the last one of the timeline is taken to be the last one
+     */
+    public synchronized void friendshipAdded(GraphSnapshot graph, String email1, String email2, LocalDate date) {
+        int u = graph.id(email1), v = graph.id(email2);
+        if (u < 0 || v < 0 || u == v || position(key(u, v)) >= 0)
+            return;
+        if (size == first.length) {
+            int capacity = Math.max(16, size + (size >> 1));
+            first = Arrays.copyOf(first, capacity);
+            second = Arrays.copyOf(second, capacity);
+            days = Arrays.copyOf(days, capacity);
+        }
+        first[size] = u;
+        second[size] = v;
+        days[size] = size == 0 ? day(date) : Math.max(day(date), days[size - 1]);
+        put(key(u, v), size);
+        size++;
+        replayed = null;
+    }
+
+    /**
+     * Removes a friendship from the timeline; its position is looked up in the table, the timeline isn't searched
+     * @param graph - the snapshot the users are in
+     * @param email1 - String the email of a user
+     * @param email2 - String the email of the other user
+     */
+    public synchronized void friendshipRemoved(GraphSnapshot graph, String email1, String email2) {
+        int u = graph.id(email1), v = graph.id(email2);
+        if (u < 0 || v < 0 || u == v)
+            return;
+        long key = key(u, v);
+        int i = position(key);
+        if (i < 0)
+            return;
+        first[i] = -1;
+        second[i] = -1;
+        put(key, -1);
+        nrRemoved++;
+        replayed = null;
+    }
+
+    /**
+     * @param date - the date
+     * @return the number of positions of the timeline with a friendship made up to the date, removed ones included
+     */
+    private int prefix(LocalDate date) {
+        int day = day(date);
+        int low = 0, high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (days[middle] <= day)
+                low = middle + 1;
+            else
+                high = middle;
+        }
+        return low;
+    }
+
+    /**
+     * @param n - int the number of users of the snapshot replayed into
+     * @return true if the friendship at position i wasn't removed and both its users are in the snapshot;
+     * a snapshot taken before a user was added doesn't have the user's friendships
+     */
+    private boolean replayable(int i, int n) {
+        return first[i] >= 0 && first[i] < n && second[i] < n;
+    }
+
+    /**
+     * Replays the friendships made up to the date into the lists of a snapshot; the last one replayed
+     * is reused while no friendship is added or removed and the date falls on the same friendships
+     * @param graph - the current snapshot, the snapshot of the past has its users
+     * @param date - the date
+     * @return the network as it was at the end of the date
+     */
+    public synchronized GraphSnapshot asOf(GraphSnapshot graph, LocalDate date) {
+        int length = prefix(date);
+        if (replayed != null && replayedLength == length && replayedUsers == graph.size())
+            return replayed;
+        int n = graph.size();
+        int[] offsets = new int[n + 1];
+        for (int i = 0; i < length; i++) {
+            if (replayable(i, n)) {
+                offsets[first[i] + 1]++;
+                offsets[second[i] + 1]++;
+            }
+        }
+        for (int v = 0; v < n; v++)
+            offsets[v + 1] += offsets[v];
+        int[] targets = new int[offsets[n]];
+        int[] next = Arrays.copyOf(offsets, n);
+        for (int i = 0; i < length; i++) {
+            if (replayable(i, n)) {
+                targets[next[first[i]]++] = second[i];
+                targets[next[second[i]]++] = first[i];
+            }
+        }
+        // sorts the friends of each user and drops the friendships added twice
+        int position = 0;
+        for (int v = 0; v < n; v++) {
+            int start = offsets[v], end = offsets[v + 1];
+            Arrays.sort(targets, start, end);
+            offsets[v] = position;
+            for (int i = start; i < end; i++)
+                if (i == start || targets[i] != targets[i - 1])
+                    targets[position++] = targets[i];
+        }
+        offsets[n] = position;
+        replayed = graph.withAdjacency(new ArrayAdjacency(offsets, Arrays.copyOf(targets, position)));
+        replayedLength = length;
+        replayedUsers = n;
+        return replayed;
+    }
+}
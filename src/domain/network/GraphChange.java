@@ -0,0 +1,47 @@
+package domain.network;
+
+/**
+ * A change of the friends network recorded by the database: a user or a friendship added or removed
+ */
+public class GraphChange {
+    private final long version;
+    private final String email1;
+    private final String email2;
+    private final boolean added;
+
+    /**
+     * @param version - long the number of the change, changes are numbered in the order they were committed
+     * @param email1 - String the email of the user, or of a user of the friendship
+     * @param email2 - String the email of the other user of the friendship, null for a change of a user
+     * @param added - true if the user or the friendship was added, false if it was removed
+     */
+    public GraphChange(long version, String email1, String email2, boolean added) {
+        this.version = version;
+        this.email1 = email1;
+        this.email2 = email2;
+        this.added = added;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public String getEmail1() {
+        return email1;
+    }
+
+    public String getEmail2() {
+        return email2;
+    }
+
+    public boolean isAdded() {
+        return added;
+    }
+
+    /**
+     * @return true if a user was added or removed, false if a friendship was
+     */
+    public boolean isUserChange() {
+        return email2 == null;
+    }
+}
@@ -0,0 +1,389 @@
+package domain.network;
+
+import java.util.*;
+
+/**
+ * An immutable snapshot of the friends network. The users are numbered from 0 to size() - 1
+ * and the friends of each user are kept sorted by id in an Adjacency, in heap arrays by default
+ * (compressed sparse rows), compressed or outside the heap. The lists are read with a NeighborCursor.
+ * A change of the network gives a new snapshot, the next generation, so the threads reading the old one
+ * are not disturbed. The next generation shares the lists of the old one and replaces the lists
+ * of the two users of the changed friendship (a DeltaAdjacency); a new user is added to a small table
+ * of the added users (a UserIndex), merged with the others when the lists are compacted
+ */
+public class GraphSnapshot {
+    private final UserIndex users;
+    private final Adjacency adjacency;
+    private final long generation;
+
+    private GraphSnapshot(UserIndex users, Adjacency adjacency, long generation) {
+        this.users = users;
+        this.adjacency = adjacency;
+        this.generation = generation;
+    }
+
+    /**
+     * @return a snapshot over lists that were already built, like the ones of a snapshot file
+     */
+    static GraphSnapshot of(String[] emails, Adjacency adjacency) {
+        Map<String, Integer> ids = new HashMap<>();
+        for (int v = 0; v < emails.length; v++)
+            ids.put(emails[v], v);
+        return new GraphSnapshot(new UserIndex(emails, ids), adjacency, 0);
+    }
+
+    /**
+     * @param adjacency - the lists of other friendships of the same users
+     * @return a snapshot of the users of this one with the friendships of the lists, like the network of a past date
+     */
+    GraphSnapshot withAdjacency(Adjacency adjacency) {
+        return new GraphSnapshot(users, adjacency, generation);
+    }
+
+    /**
+     * Collects the users and the friendships of a snapshot
+     */
+    public static class Builder {
+        private final Map<String, Integer> ids = new HashMap<>();
+        private final List<String> emails = new ArrayList<>();
+        private int[] pairs = new int[16];
+        private int nrPairs;
+
+        /**
+         * @param email - String the email of the user, a user added twice is kept once
+         * @return the id of the user in the snapshot
+         */
+        public int addUser(String email) {
+            Integer id = ids.get(email);
+            if (id == null) {
+                id = emails.size();
+                ids.put(email, id);
+                emails.add(email);
+            }
+            return id;
+        }
+
+        /**
+         * Adds a friendship; the users that weren't added are added
+         * @param email1 - String the email of a user
+         * @param email2 - String the email of the other user
+         */
+        public void addFriendship(String email1, String email2) {
+            int u = addUser(email1);
+            int v = addUser(email2);
+            if (u == v)
+                return;
+            if (nrPairs * 2 == pairs.length)
+                pairs = Arrays.copyOf(pairs, pairs.length * 2);
+            pairs[nrPairs * 2] = u;
+            pairs[nrPairs * 2 + 1] = v;
+            nrPairs++;
+        }
+
+        public GraphSnapshot build() {
+            int n = emails.size();
+            int[] offsets = new int[n + 1];
+            for (int i = 0; i < nrPairs * 2; i++)
+                offsets[pairs[i] + 1]++;
+            for (int v = 0; v < n; v++)
+                offsets[v + 1] += offsets[v];
+            int[] targets = new int[nrPairs * 2];
+            int[] next = Arrays.copyOf(offsets, n);
+            for (int i = 0; i < nrPairs; i++) {
+                int u = pairs[i * 2], v = pairs[i * 2 + 1];
+                targets[next[u]++] = v;
+                targets[next[v]++] = u;
+            }
+            // sorts the friends of each user and drops the friendships added twice
+            int size = 0;
+            for (int v = 0; v < n; v++) {
+                int start = offsets[v], end = offsets[v + 1];
+                Arrays.sort(targets, start, end);
+                offsets[v] = size;
+                for (int i = start; i < end; i++)
+                    if (i == start || targets[i] != targets[i - 1])
+                        targets[size++] = targets[i];
+            }
+            offsets[n] = size;
+            return new GraphSnapshot(new UserIndex(emails.toArray(new String[0]), new HashMap<>(ids)),
+                    new ArrayAdjacency(offsets, Arrays.copyOf(targets, size)), 0);
+        }
+    }
+
+    /**
+     * @return the number of users
+     */
+    public int size() {
+        return users.size();
+    }
+
+    /**
+     * @return the number of friendships
+     */
+    public long nrFriendships() {
+        return adjacency.nrTargets() / 2;
+    }
+
+    /**
+     * @return the number of changes from the snapshot that was read from the repositories
+     */
+    public long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * @param email - String the email of a user
+     * @return the id of the user, -1 if the user is not in the snapshot
+     */
+    public int id(String email) {
+        return users.id(email);
+    }
+
+    /**
+     * @param v - int the id of a user
+     * @return the email of the user
+     */
+    public String email(int v) {
+        return users.email(v);
+    }
+
+    /**
+     * @return the number of friends of the user v
+     */
+    public int degree(int v) {
+        return adjacency.degree(v);
+    }
+
+    /**
+     * Random access to the friends of a user; O(1) in arrays and off the heap, the compressed lists are decoded
+     * up to i, so a whole list is read with cursor()
+     * @param v - int the id of a user
+     * @param i - int the position of the friend, from 0 to degree(v) - 1
+     * @return the id of the i-th friend of v, friends are in increasing order of their ids
+     */
+    public int neighbor(int v, int i) {
+        return adjacency.neighbor(v, i);
+    }
+
+    /**
+     * @return a new cursor over the friends of the users, to be reused for many users by one thread
+     */
+    public NeighborCursor cursor() {
+        return adjacency.cursor();
+    }
+
+    /**
+     * @return the ids of the friends of v, in increasing order
+     */
+    public int[] neighbors(int v) {
+        int[] friends = new int[degree(v)];
+        NeighborCursor cursor = cursor();
+        cursor.reset(v);
+        for (int i = 0; cursor.hasNext(); i++)
+            friends[i] = cursor.next();
+        return friends;
+    }
+
+    /**
+     * Searches v in the sorted friends of u
+     * @return true if u and v are friends
+     */
+    public boolean areFriends(int u, int v) {
+        return adjacency.contains(u, v);
+    }
+
+    /**
+     * Intersects the sorted friends of the two users
+     * @return the ids of the mutual friends of u and v, in increasing order
+     */
+    public int[] mutualFriends(int u, int v) {
+        NeighborCursor a = cursor(), b = cursor();
+        a.reset(u);
+        b.reset(v);
+        int[] common = new int[Math.min(degree(u), degree(v))];
+        int size = 0;
+        if (common.length == 0)
+            return common;
+        int x = a.next(), y = b.next();
+        while (true) {
+            if (x < y) {
+                if (!a.hasNext())
+                    break;
+                x = a.next();
+            } else if (x > y) {
+                if (!b.hasNext())
+                    break;
+                y = b.next();
+            } else {
+                common[size++] = x;
+                if (!a.hasNext() || !b.hasNext())
+                    break;
+                x = a.next();
+                y = b.next();
+            }
+        }
+        return Arrays.copyOf(common, size);
+    }
+
+    /**
+     * @return the memory taken by the friends lists, in bytes
+     */
+    public long sizeInBytes() {
+        return adjacency.sizeInBytes();
+    }
+
+    /**
+     * @return where the friends lists are kept
+     */
+    public GraphStorage getStorage() {
+        return adjacency.storage();
+    }
+
+    /**
+     * @param storage - where the friends lists are kept
+     * @return a snapshot with the same users, friendships and generation, with the lists kept in storage;
+     * the changes of the new snapshot are kept there too. This snapshot if it is already kept there
+     */
+    public GraphSnapshot stored(GraphStorage storage) {
+        if (storage == getStorage())
+            return this;
+        Adjacency stored = switch (storage) {
+            case HEAP -> new ArrayAdjacency(adjacency);
+            case COMPRESSED -> new CompressedAdjacency(adjacency);
+            case OFF_HEAP -> new OffHeapAdjacency(adjacency);
+        };
+        return new GraphSnapshot(users.compacted(), stored, generation);
+    }
+
+    /**
+     * @return a snapshot with the lists delta- and varint-encoded
+     */
+    public GraphSnapshot compressed() {
+        return stored(GraphStorage.COMPRESSED);
+    }
+
+    /**
+     * Applies the changes logged since this snapshot was read, in one rebuild of the lists.
+     * The last change of each user and of each friendship wins; a removed user loses the friendships
+     * it had before it was removed, so the ids of the users after it change
+     * @param changes - the changes, in the order they were made
+     * @return a snapshot with the changes, in the same storage; this snapshot if there are none
+     */
+    public GraphSnapshot withChanges(List<GraphChange> changes) {
+        if (changes.isEmpty())
+            return this;
+        Map<String, Boolean> changedUsers = new HashMap<>();
+        Set<String> removed = new HashSet<>();
+        Map<List<String>, Boolean> friendships = new LinkedHashMap<>();
+        for (GraphChange change : changes) {
+            String email1 = change.getEmail1(), email2 = change.getEmail2();
+            if (change.isUserChange()) {
+                changedUsers.put(email1, change.isAdded());
+                if (!change.isAdded()) {
+                    removed.add(email1);
+                    friendships.keySet().removeIf(pair -> pair.contains(email1));
+                }
+            } else
+                friendships.put(email1.compareTo(email2) < 0 ? List.of(email1, email2) : List.of(email2, email1),
+                        change.isAdded());
+        }
+        Builder builder = new Builder();
+        int n = size();
+        for (int v = 0; v < n; v++)
+            if (changedUsers.getOrDefault(email(v), true))
+                builder.addUser(email(v));
+        changedUsers.forEach((email, added) -> {
+            if (added)
+                builder.addUser(email);
+        });
+        NeighborCursor cursor = cursor();
+        for (int u = 0; u < n; u++) {
+            if (removed.contains(email(u)))
+                continue;
+            cursor.reset(u);
+            while (cursor.hasNext()) {
+                int w = cursor.next();
+                String email1 = email(u), email2 = email(w);
+                if (u > w || removed.contains(email2))
+                    continue;
+                Boolean kept = friendships.isEmpty() ? null :
+                        friendships.get(email1.compareTo(email2) < 0 ? List.of(email1, email2) : List.of(email2, email1));
+                if (kept == null || kept)
+                    builder.addFriendship(email1, email2);
+            }
+        }
+        friendships.forEach((pair, added) -> {
+            if (added)
+                builder.addFriendship(pair.get(0), pair.get(1));
+        });
+        GraphSnapshot built = builder.build();
+        return new GraphSnapshot(built.users, built.adjacency, generation + changes.size()).stored(getStorage());
+    }
+
+    /**
+     * @param email1 - String the email of a user
+     * @param email2 - String the email of the other user
+     * @return a snapshot with the friendship added; this snapshot if they are already friends
+     */
+    public GraphSnapshot withFriendship(String email1, String email2) {
+        int u = id(email1), v = id(email2);
+        if (email1.equals(email2) || u >= 0 && v >= 0 && areFriends(u, v))
+            return this;
+        UserIndex newUsers = users;
+        if (u < 0) {
+            u = newUsers.size();
+            newUsers = newUsers.with(email1);
+        }
+        if (v < 0) {
+            v = newUsers.size();
+            newUsers = newUsers.with(email2);
+        }
+        Adjacency next = DeltaAdjacency.patched(adjacency, newUsers.size(),
+                u, withFriend(u, v), v, withFriend(v, u));
+        // the added users are merged with the lists, when they are compacted
+        if (!(next instanceof DeltaAdjacency))
+            newUsers = newUsers.compacted();
+        return new GraphSnapshot(newUsers, next, generation + 1);
+    }
+
+    /**
+     * @return the sorted friends of u with v inserted; u may be a user that isn't in this snapshot yet
+     */
+    private int[] withFriend(int u, int v) {
+        int[] friends = u < size() ? neighbors(u) : new int[0];
+        int i = -Arrays.binarySearch(friends, v) - 1;
+        int[] list = new int[friends.length + 1];
+        System.arraycopy(friends, 0, list, 0, i);
+        list[i] = v;
+        System.arraycopy(friends, i, list, i + 1, friends.length - i);
+        return list;
+    }
+
+    /**
+     * @param email1 - String the email of a user
+     * @param email2 - String the email of the other user
+     * @return a snapshot without the friendship; this snapshot if they are not friends
+     */
+    public GraphSnapshot withoutFriendship(String email1, String email2) {
+        int u = id(email1), v = id(email2);
+        if (u < 0 || v < 0 || !areFriends(u, v))
+            return this;
+        Adjacency next = DeltaAdjacency.patched(adjacency, size(),
+                u, withoutFriend(u, v), v, withoutFriend(v, u));
+        if (!(next instanceof DeltaAdjacency))
+            return new GraphSnapshot(users.compacted(), next, generation + 1);
+        return new GraphSnapshot(users, next, generation + 1);
+    }
+
+    /**
+     * @return the sorted friends of u without v
+     */
+    private int[] withoutFriend(int u, int v) {
+        int[] friends = neighbors(u);
+        int i = Arrays.binarySearch(friends, v);
+        int[] list = new int[friends.length - 1];
+        System.arraycopy(friends, 0, list, 0, i);
+        System.arraycopy(friends, i + 1, list, i, list.length - i);
+        return list;
+    }
+}
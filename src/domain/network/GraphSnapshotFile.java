@@ -0,0 +1,178 @@
+package domain.network;
+
+import repository.RepoException;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A snapshot of the network saved in a binary file, with the version of the database change log it was
+ * read at. The file is a 64 bytes header, the emails of the users in the order of their ids, then the
+ * offsets (longs) and the targets (ints) of the lists, big-endian. The lists are mapped with FileChannel.map
+ * and read in place, outside the heap; only the emails are read in memory.
+ * The file is only a cache of the database: a missing or unreadable file is read again from the database
+ */
+public class GraphSnapshotFile {
+    private static final int MAGIC = 0x54534E47;
+    // changed when the layout of the file changes, the files of other formats are ignored
+    private static final int FORMAT = 1;
+    private static final int HEADER_BYTES = 64;
+    private final Path path;
+
+    /**
+     * A snapshot read from the file
+     */
+    public static class Loaded {
+        private final GraphSnapshot graph;
+        private final long version;
+
+        private Loaded(GraphSnapshot graph, long version) {
+            this.graph = graph;
+            this.version = version;
+        }
+
+        /**
+         * @return the snapshot, its lists are mapped from the file
+         */
+        public GraphSnapshot getGraph() {
+            return graph;
+        }
+
+        /**
+         * @return the version of the change log the snapshot was read at
+         */
+        public long getVersion() {
+            return version;
+        }
+    }
+
+    public GraphSnapshotFile(Path path) {
+        this.path = path;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * Writes the snapshot to a temporary file and moves it over the old one, so a process
+     * that mapped the old file keeps reading it unchanged
+     * @param graph - the snapshot
+     * @param version - long the version of the change log the snapshot was read at
+     * @throws RepoException if the file can't be written
+     */
+    public synchronized void save(GraphSnapshot graph, long version) {
+        int n = graph.size();
+        long nrTargets = 2 * graph.nrFriendships();
+        long dictionaryBytes = 0;
+        for (int v = 0; v < n; v++)
+            dictionaryBytes += 2 + graph.email(v).getBytes(StandardCharsets.UTF_8).length;
+        long offsetsStart = align(HEADER_BYTES + dictionaryBytes);
+        long targetsStart = offsetsStart + 8L * (n + 1);
+        long length = targetsStart + 4 * nrTargets;
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary), 1 << 16))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT);
+                out.writeLong(version);
+                out.writeInt(n);
+                out.writeInt(0);
+                out.writeLong(nrTargets);
+                out.writeLong(HEADER_BYTES);
+                out.writeLong(offsetsStart);
+                out.writeLong(targetsStart);
+                out.writeLong(length);
+                for (int v = 0; v < n; v++) {
+                    byte[] email = graph.email(v).getBytes(StandardCharsets.UTF_8);
+                    out.writeShort(email.length);
+                    out.write(email);
+                }
+                for (long p = HEADER_BYTES + dictionaryBytes; p < offsetsStart; p++)
+                    out.writeByte(0);
+                long offset = 0;
+                for (int v = 0; v < n; v++) {
+                    out.writeLong(offset);
+                    offset += graph.degree(v);
+                }
+                out.writeLong(offset);
+                NeighborCursor cursor = graph.cursor();
+                for (int v = 0; v < n; v++) {
+                    cursor.reset(v);
+                    while (cursor.hasNext())
+                        out.writeInt(cursor.next());
+                }
+            }
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new RepoException("The snapshot of the network could not be saved: " + e.getMessage());
+        }
+    }
+
+    private static long align(long position) {
+        return (position + 7) & ~7L;
+    }
+
+    /**
+     * Maps the lists of the file and reads the emails of the users
+     * @return the snapshot and its version; null if there is no file, or it is of another format or damaged
+     */
+    public Loaded load() {
+        if (!Files.isRegularFile(path))
+            return null;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            while (header.hasRemaining())
+                if (channel.read(header) < 0)
+                    return null;
+            header.flip();
+            if (header.getInt() != MAGIC || header.getInt() != FORMAT)
+                return null;
+            long version = header.getLong();
+            int n = header.getInt();
+            header.getInt();
+            long nrTargets = header.getLong();
+            long dictionaryStart = header.getLong();
+            long offsetsStart = header.getLong();
+            long targetsStart = header.getLong();
+            long length = header.getLong();
+            if (length != channel.size() || n < 0 || targetsStart + 4 * nrTargets != length)
+                return null;
+            LongBuffer[] offsets = new LongBuffer[OffHeapAdjacency.offsetPages(n)];
+            long position = offsetsStart;
+            for (int p = 0; p < offsets.length; p++) {
+                long bytes = 8L * OffHeapAdjacency.offsetPageSize(n, p);
+                offsets[p] = channel.map(FileChannel.MapMode.READ_ONLY, position, bytes).asLongBuffer();
+                position += bytes;
+            }
+            IntBuffer[] targets = new IntBuffer[OffHeapAdjacency.targetPages(nrTargets)];
+            position = targetsStart;
+            for (int p = 0; p < targets.length; p++) {
+                long bytes = 4L * OffHeapAdjacency.targetPageSize(nrTargets, p);
+                targets[p] = channel.map(FileChannel.MapMode.READ_ONLY, position, bytes).asIntBuffer();
+                position += bytes;
+            }
+            // the stream isn't closed, closing it would close the channel
+            DataInputStream in = new DataInputStream(new BufferedInputStream(
+                    Channels.newInputStream(channel.position(dictionaryStart)), 1 << 16));
+            String[] emails = new String[n];
+            for (int v = 0; v < n; v++) {
+                byte[] email = new byte[in.readUnsignedShort()];
+                in.readFully(email);
+                emails[v] = new String(email, StandardCharsets.UTF_8);
+            }
+            return new Loaded(GraphSnapshot.of(emails, new OffHeapAdjacency(offsets, targets, n, nrTargets)), version);
+        } catch (IOException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
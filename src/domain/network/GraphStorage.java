@@ -0,0 +1,13 @@
+package domain.network;
+
+/**
+ * Where and how the friends lists of the snapshots of the network are kept
+ */
+public enum GraphStorage {
+    // int arrays on the heap, 4 bytes for each friend in a list
+    HEAP,
+    // delta- and varint-encoded on the heap, usually 1 or 2 bytes for each friend in a list
+    COMPRESSED,
+    // int buffers outside the heap, so the garbage collector doesn't scan them
+    OFF_HEAP
+}
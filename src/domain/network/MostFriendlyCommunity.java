@@ -2,38 +2,70 @@ package domain.network;
 
 import domain.Friendship;
 import domain.User;
-import repository.FriendshipRepository;
-import repository.UserRepository;
 
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.IntConsumer;
 
 public class MostFriendlyCommunity {
-    private final UserRepository uRepo;
-    private final FriendshipRepository fRepo;
+    private final Map<String, User> users;
+    private final Map<String, List<String>> friends;
     int nrUsersLongestPath;
     private final List<User> usersMostFrCom;
     private final List<Friendship> friendshipsMostFrCom;
     private final Map<String, Boolean> used;
     private final Map<String, UserNode> nodes;
 
-    public MostFriendlyCommunity(UserRepository uRepo, FriendshipRepository fRepo, Map<String, Integer> com, int nrCommunities) {
-        this.uRepo = uRepo;
-        this.fRepo = fRepo;
+    /**
+     * @param users - the users of the network, by email
+     * @param friends - the emails of the friends of each user, by email
+     */
+    public MostFriendlyCommunity(Map<String, User> users, Map<String, List<String>> friends) {
+        this(users, friends, done -> {});
+    }
+
+    /**
+     * @param users - the users of the network, by email
+     * @param friends - the emails of the friends of each user, by email
+     * @param progress - receives the number of users from which the search was done
+     */
+    public MostFriendlyCommunity(Map<String, User> users, Map<String, List<String>> friends, IntConsumer progress) {
+        this.users = users;
+        this.friends = friends;
         usersMostFrCom = new ArrayList<>();
         friendshipsMostFrCom = new ArrayList<>();
         used = new HashMap<>();
         nodes = new HashMap<>();
-        for (User u : uRepo.getAll()) {
+        for (User u : users.values()) {
             nodes.put(u.getEmail(), new UserNode(u));
             used.put(u.getEmail(), false);
         }
-        for (User u : uRepo.getAll()) {
+        int done = 0;
+        for (User u : users.values()) {
             nodes.put(u.getEmail(), new UserNode(u));
             DFS(u.getEmail());
+            progress.accept(++done);
         }
+        used.clear();
+        nodes.clear();
+    }
+
+    /**
+     * Restores a longest path that was already computed
+     * @param path - the users of the path, in order
+     */
+    MostFriendlyCommunity(List<User> path) {
+        this.users = new HashMap<>();
+        this.friends = new HashMap<>();
+        usersMostFrCom = new ArrayList<>(path);
+        friendshipsMostFrCom = new ArrayList<>();
+        used = new HashMap<>();
+        nodes = new HashMap<>();
+        for (int i = 1; i < path.size(); i++)
+            friendshipsMostFrCom.add(new Friendship(path.get(i - 1), path.get(i)));
+        nrUsersLongestPath = path.size();
     }
 
     /**
@@ -43,6 +75,13 @@ public class MostFriendlyCommunity {
         return usersMostFrCom;
     }
 
+    /**
+     * @return the friendships of the longest path from the friends network - List[Friendship]
+     */
+    public List<Friendship> getFriendshipsMostFrCom() {
+        return friendshipsMostFrCom;
+    }
+
     public int getNrUsers() {
         return nrUsersLongestPath;
     }
@@ -53,9 +92,9 @@ public class MostFriendlyCommunity {
      */
     private void DFS(String e) {
         used.put(e, true);
-        for (String em : fRepo.getUserFriends(uRepo.getUser(e).getEmail())) {
+        for (String em : friends.get(e)) {
             if (used.get(em) == false) {
-                nodes.put(em, new UserNode(uRepo.getUser(em), uRepo.getUser(e), nodes.get(e).steps + 1));
+                nodes.put(em, new UserNode(users.get(em), users.get(e), nodes.get(e).steps + 1));
                 DFS(em);
             }
         }
@@ -0,0 +1,21 @@
+package domain.network;
+
+/**
+ * Iterates the friends of a user, in increasing order of their ids, without allocating.
+ * A cursor is reused for many users and is used by one thread at a time
+ */
+public interface NeighborCursor {
+
+    /**
+     * Moves the cursor to the first friend of a user
+     * @param v - int the id of the user
+     */
+    void reset(int v);
+
+    boolean hasNext();
+
+    /**
+     * @return the id of the next friend
+     */
+    int next();
+}
@@ -0,0 +1,80 @@
+package domain.network;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Finds the users within k friendships of a user, grouped by their distance, with a level-synchronous
+ * breadth-first search: the queue holds the levels one after the other and each level is expanded
+ * from the previous one. The search stops as soon as it found the number of users asked for.
+ * The visited users are marked in a bitset kept between searches; after a search only the words of
+ * the users it queued are cleared, so a search costs the users it explores, not the size of the network.
+ * The cursor is made for each search, one small object: a cursor kept between searches would keep the
+ * lists of an old snapshot, and their buffers, alive as long as the thread of the finder.
+ * A neighborhood finder is used by one thread at a time
+ */
+public class NeighborhoodFinder {
+    private long[] visited = new long[0];
+    private int[] queue = new int[0];
+
+    /**
+     * @param graph - the snapshot of the network
+     * @param email - String the email of the user
+     * @param k - int the maximum number of friendships from the user
+     * @param limit - int the maximum number of users found
+     * @return the emails of the users at 1, 2, ..., k friendships from the user, the list at index i for the distance
+     * i + 1, at most limit users in all; fewer lists if no user is further or the limit was reached,
+     * none if the user is not in the snapshot
+     */
+    public List<List<String>> neighborhood(GraphSnapshot graph, String email, int k, int limit) {
+        List<List<String>> levels = new ArrayList<>();
+        int source = graph.id(email);
+        if (source < 0 || k <= 0 || limit <= 0)
+            return levels;
+        ensureCapacity(graph.size());
+        int tail = 0;
+        queue[tail++] = source;
+        mark(source);
+        NeighborCursor cursor = graph.cursor();
+        int found = 0;
+        int levelStart = 0;
+        for (int hops = 1; hops <= k && levelStart < tail && found < limit; hops++) {
+            int levelEnd = tail;
+            List<String> level = new ArrayList<>();
+            for (int i = levelStart; i < levelEnd && found < limit; i++) {
+                cursor.reset(queue[i]);
+                while (cursor.hasNext() && found < limit) {
+                    int w = cursor.next();
+                    if (isMarked(w))
+                        continue;
+                    mark(w);
+                    queue[tail++] = w;
+                    level.add(graph.email(w));
+                    found++;
+                }
+            }
+            if (!level.isEmpty())
+                levels.add(level);
+            levelStart = levelEnd;
+        }
+        for (int i = 0; i < tail; i++)
+            visited[queue[i] >>> 6] = 0;
+        return levels;
+    }
+
+    private boolean isMarked(int v) {
+        return (visited[v >>> 6] & 1L << v) != 0;
+    }
+
+    private void mark(int v) {
+        visited[v >>> 6] |= 1L << v;
+    }
+
+    private void ensureCapacity(int n) {
+        if (queue.length >= n)
+            return;
+        visited = Arrays.copyOf(visited, (n + 63) >>> 6);
+        queue = new int[n];
+    }
+}
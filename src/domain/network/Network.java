@@ -1,90 +1,694 @@
 package domain.network;
 
+import domain.Friendship;
 import domain.User;
+import domain.network.analytics.ApproximateReach;
+import domain.network.analytics.Betweenness;
+import domain.network.analytics.CommunityDetection;
+import domain.network.analytics.ConnectedComponents;
+import domain.network.analytics.CoreDecomposition;
+import domain.network.analytics.DegreeCentrality;
+import domain.network.analytics.MaximumClique;
+import domain.network.analytics.PageRank;
+import domain.network.analytics.Triangles;
+import repository.AnalyticsRepository;
 import repository.FriendshipRepository;
+import repository.GraphChangeRepository;
+import repository.RepoException;
 import repository.UserRepository;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
 
+/**
+ * The analytics of the friends network. Nothing is computed when the network is created:
+ * the analysis is computed on first use or warmed up on a background thread, and while
+ * a new analysis is computed the last completed one is served
+ */
 public class Network {
     private final UserRepository uRepo;
     private final FriendshipRepository fRepo;
-    private int communitiesNr;
-    private final Map<String, Integer> com;
-    private MostFriendlyCommunity mfCom;
+    private final AnalyticsRepository aRepo;
+    private final GraphChangeRepository cRepo;
+    private final GraphSnapshotFile snapshotFile;
+    private final ExecutorService executor;
+    private final List<Runnable> changeListeners = new CopyOnWriteArrayList<>();
+    // suggestions kept for each user
+    private static final int RECOMMENDATIONS = 10;
+    private final Object graphLock = new Object();
+    // above this many friendships the lists of the snapshot are kept compressed, unless a storage was chosen
+    private static final long COMPRESSED_FRIENDSHIPS = 1_000_000;
+    private GraphStorage storage;
+    // the current generation of the snapshot; readers take it without locking and keep the generation they took,
+    // writers replace it under graphLock, together with the suggestions derived from it
+    private final AtomicReference<GraphSnapshot> graph = new AtomicReference<>();
+    private FriendRecommender recommender;
+    // random walks that start from each user, for the personalized PageRank suggestions
+    private static final int WALKS_PER_USER = 16;
+    private PersonalizedPageRank pageRank;
+    // the friendships by date, for the queries about the network of a past date
+    private FriendshipTimeline timeline;
+    private final ThreadLocal<PathFinder> pathFinders = ThreadLocal.withInitial(PathFinder::new);
+    private final ThreadLocal<NeighborhoodFinder> neighborhoodFinders = ThreadLocal.withInitial(NeighborhoodFinder::new);
+    // up to this many users betweenness is exact, above it is estimated from BETWEENNESS_SAMPLES sources
+    private static final int EXACT_BETWEENNESS_USERS = 5000;
+    private static final int BETWEENNESS_SAMPLES = 500;
+    private final SnapshotCache<DegreeCentrality> degrees = new SnapshotCache<>(DegreeCentrality::new);
+    private final SnapshotCache<PageRank> pageRanks = new SnapshotCache<>(PageRank::new);
+    private final SnapshotCache<Betweenness> betweenness = new SnapshotCache<>(g -> g.size() <= EXACT_BETWEENNESS_USERS ?
+            new Betweenness(g) : new Betweenness(g, BETWEENNESS_SAMPLES, g.getGeneration()));
+    private final SnapshotCache<Triangles> triangles = new SnapshotCache<>(Triangles::new);
+    // the reach of the users is estimated up to this many friendships
+    public static final int MAX_REACH_HOPS = 3;
+    private final SnapshotCache<ApproximateReach> reach = new SnapshotCache<>(g -> new ApproximateReach(g, MAX_REACH_HOPS, 1));
+    private final SnapshotCache<CoreDecomposition> cores = new SnapshotCache<>(g -> new CoreDecomposition(g, true));
+    // the time the search for the largest clique may take
+    private static final long CLIQUE_BUDGET_MILLIS = 10_000;
+    private final SnapshotCache<CommunityDetection> detected = new SnapshotCache<>(g -> new CommunityDetection(g, 0, true));
+    private final SnapshotCache<MaximumClique> cliques = new SnapshotCache<>(g -> new MaximumClique(g, CLIQUE_BUDGET_MILLIS));
+    private long graphChanges;
+    private volatile NetworkAnalysis last;
+    private volatile boolean stale;
+    private volatile int progress;
+    private CompletableFuture<NetworkAnalysis> running;
 
     public Network(UserRepository usRepo, FriendshipRepository frRepo) {
+        this(usRepo, frRepo, null);
+    }
+
+    /**
+     * @param anRepo - where the computed analyses are saved, so a restart can serve the last one
+     *               without recomputing it; null if they aren't saved
+     */
+    public Network(UserRepository usRepo, FriendshipRepository frRepo, AnalyticsRepository anRepo) {
+        this(usRepo, frRepo, anRepo, null, null);
+    }
+
+    /**
+     * @param anRepo - where the computed analyses are saved, null if they aren't saved
+     * @param chRepo - the log of the changes of the users and the friendships, null if there is none
+     * @param snapshotFile - where the snapshot of the network is saved, so a restart maps it instead of
+     *                     reading the tables and applies the changes logged since; null if it isn't saved
+     */
+    public Network(UserRepository usRepo, FriendshipRepository frRepo, AnalyticsRepository anRepo,
+                   GraphChangeRepository chRepo, GraphSnapshotFile snapshotFile) {
         this.uRepo = usRepo;
         this.fRepo = frRepo;
-        this.com = new HashMap<>();
-        reload();
+        this.aRepo = anRepo;
+        this.cRepo = chRepo;
+        this.snapshotFile = snapshotFile;
+        this.executor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "network-analytics");
+            thread.setDaemon(true);
+            return thread;
+        });
     }
 
     /**
      * @return the users of the longest path from the friends network - List[User]
      */
     public List<User> getUsersMostFrCom() {
-        reload();
-        return mfCom.getUsersMostFrCom();
+        return getAnalysis().getUsersMostFrCom();
     }
 
+    /**
+     * Recomputes the analysis on the calling thread and publishes it
+     */
     public void reload() {
-        this.communitiesNr = countCommunities();
-        this.mfCom = new MostFriendlyCommunity(uRepo, fRepo, com, communitiesNr);
+        stale = false;
+        publish(compute(), true);
     }
 
     /**
-     * Returns a dictionary where the key is the number of the community and the value
-     * is the list of the users' emails from that community
-     * @return the dictionary with the users from the communities - Map[Integer, List[String]]
+     * Starts computing the analysis on the background thread, if it isn't already computing
+     * @return the future of the computation
      */
-    public Map<Integer, List<String>> getCommunities() {
-        reload();
-        Map<Integer, List<String>> comms = new HashMap<>();
-        for (int i = 1; i <= communitiesNr; i++)
-            comms.put(i, new ArrayList<String>());
-        for (User u : uRepo.getAll()) {
-            comms.get(com.get(u.getEmail())).add(u.getEmail());
+    public synchronized CompletableFuture<NetworkAnalysis> warmUp() {
+        if (running == null || running.isDone()) {
+            stale = false;
+            running = CompletableFuture.supplyAsync(this::compute, executor);
+            running.thenAccept(a -> publish(a, true));
         }
-        return comms;
+        return running;
+    }
+
+    /**
+     * @return true if the network changed since the last analysis was computed, or it was loaded
+     * and may be out of date
+     */
+    public boolean isStale() {
+        return stale;
+    }
+
+    /**
+     * Marks the last analysis as out of date; the next request for it starts a recomputation
+     */
+    public void invalidate() {
+        stale = true;
+        changeListeners.forEach(Runnable::run);
     }
 
     /**
-     * Marks'true' all the friends of an user in used (a community)
-     * @param e - the email of the user
+     * Updates the snapshot of the network and the suggestions after a friendship was added
+     * @param email1 - String the email of a user
+     * @param email2 - String the email of the other user
      */
-    private void dfs(String e, Integer c) {
-        com.put(e, c);
-        for (String em : fRepo.getUserFriends(uRepo.getUser(e).getEmail())) {
-            if (com.get(em) == 0)
-                dfs(em, c);
+    public void friendshipAdded(String email1, String email2) {
+        synchronized (graphLock) {
+            graphChanges++;
+            GraphSnapshot current = graph.get();
+            if (current != null) {
+                GraphSnapshot next = current.withFriendship(email1, email2);
+                graph.set(next);
+                if (recommender != null)
+                    recommender.friendshipChanged(next, email1, email2);
+                if (pageRank != null)
+                    pageRank.friendshipAdded(next, email1, email2);
+                if (timeline != null && next != current)
+                    timeline.friendshipAdded(next, email1, email2, LocalDate.now());
+            }
         }
+        invalidate();
     }
 
-    public MostFriendlyCommunity getmfrCom() {
-        return mfCom;
+    /**
+     * Updates the snapshot of the network and the suggestions after a friendship was removed
+     * @param email1 - String the email of a user
+     * @param email2 - String the email of the other user
+     */
+    public void friendshipRemoved(String email1, String email2) {
+        synchronized (graphLock) {
+            graphChanges++;
+            GraphSnapshot current = graph.get();
+            if (current != null) {
+                GraphSnapshot next = current.withoutFriendship(email1, email2);
+                graph.set(next);
+                if (recommender != null)
+                    recommender.friendshipChanged(next, email1, email2);
+                if (pageRank != null)
+                    pageRank.friendshipRemoved(next, email1, email2);
+                if (timeline != null && next != current)
+                    timeline.friendshipRemoved(next, email1, email2);
+            }
+        }
+        invalidate();
+    }
+
+    /**
+     * Chooses where the friends lists of the snapshots are kept; the current snapshot is moved there
+     * @param storage - the storage, null to keep the small networks in heap arrays and the large ones compressed
+     */
+    public void setStorage(GraphStorage storage) {
+        synchronized (graphLock) {
+            // a snapshot being read is kept in the old storage, so it isn't kept
+            graphChanges++;
+            this.storage = storage;
+            GraphSnapshot current = graph.get();
+            if (current != null)
+                graph.set(stored(current, storage));
+        }
+    }
+
+    /**
+     * @return where the friends lists of the current snapshot are kept
+     */
+    public GraphStorage getStorage() {
+        return getGraph().getStorage();
+    }
+
+    /**
+     * Drops the snapshot of the network after a user was removed, it is read again on next use
+     */
+    public void userRemoved() {
+        synchronized (graphLock) {
+            graphChanges++;
+            graph.set(null);
+            recommender = null;
+            pageRank = null;
+            timeline = null;
+        }
+        invalidate();
     }
 
     /**
-     * Counts the communities in a network
-     * @return no of communities - int
+     * Returns the snapshot of the network, reading it from the repositories on first use
+     * @return the current snapshot
      */
-    private int countCommunities() {
-        List<User> users = uRepo.getAll();
-        int nr = 0;
-        com.clear();
-        for (User u : users)
-            com.put(u.getEmail(), 0);
-        for (User u : users) {
-            if (com.get(u.getEmail()) == 0) {
-                nr++;
-                dfs(u.getEmail(), nr);
+    public GraphSnapshot getGraph() {
+        GraphSnapshot current = graph.get();
+        if (current != null)
+            return current;
+        long changes;
+        synchronized (graphLock) {
+            current = graph.get();
+            if (current != null)
+                return current;
+            changes = graphChanges;
+        }
+        GraphSnapshot read = readGraph();
+        synchronized (graphLock) {
+            // a change made while reading may be missing from the snapshot, so it isn't kept
+            if (changes == graphChanges)
+                graph.compareAndSet(null, read);
+            current = graph.get();
+            return current != null ? current : read;
+        }
+    }
+
+    /**
+     * @param email - String the email of the user
+     * @return the users suggested as friends, the ones with the most mutual friends first
+     */
+    public List<Recommendation> getRecommendations(String email) {
+        GraphSnapshot current = getGraph();
+        synchronized (graphLock) {
+            if (recommender != null && current == graph.get())
+                return recommender.getRecommendations(email);
+        }
+        // computed without the lock, so the writers aren't blocked; it is kept if no change was made meanwhile
+        FriendRecommender computed = new FriendRecommender(current, RECOMMENDATIONS);
+        synchronized (graphLock) {
+            if (current == graph.get())
+                recommender = computed;
+            // once kept, the writers update it under the lock
+            return computed.getRecommendations(email);
+        }
+    }
+
+    /**
+     * @param email - String the email of the user
+     * @param k - int the maximum number of suggestions
+     * @return the users suggested by personalized PageRank, they may be more than two friendships away
+     */
+    public List<Recommendation> getPageRankRecommendations(String email, int k) {
+        GraphSnapshot current = getGraph();
+        PersonalizedPageRank walks;
+        synchronized (graphLock) {
+            walks = current == graph.get() ? pageRank : null;
+        }
+        if (walks == null) {
+            walks = new PersonalizedPageRank(current, WALKS_PER_USER, System.nanoTime());
+            synchronized (graphLock) {
+                if (current == graph.get() && pageRank == null)
+                    pageRank = walks;
+            }
+        }
+        return walks.getRecommendations(email, k);
+    }
+
+    /**
+     * @param email1 - String the email of the first user
+     * @param email2 - String the email of the second user
+     * @param maxHops - int the maximum number of friendships of the path
+     * @return the emails of the users of the shortest chain of friends from the first user to the second one,
+     * an empty list if there is no chain of at most maxHops friendships
+     */
+    public List<String> getFriendshipPath(String email1, String email2, int maxHops) {
+        return pathFinders.get().shortestPath(getGraph(), email1, email2, maxHops);
+    }
+
+    /**
+     * @param email - String the email of the user
+     * @param k - int the maximum number of friendships from the user
+     * @param limit - int the maximum number of users
+     * @return the emails of the users at 1, 2, ..., k friendships from the user, the list at index i
+     * for the distance i + 1, at most limit users in all
+     */
+    public List<List<String>> getNeighborhood(String email, int k, int limit) {
+        return neighborhoodFinders.get().neighborhood(getGraph(), email, k, limit);
+    }
+
+    /**
+     * Replays the friendships made up to the date; the friendships are read with their dates on first use,
+     * then the timeline is kept up to date with the changes like the snapshot
+     * @param date - the date
+     * @return the network as it was at the end of the date, with the users of the current snapshot;
+     * the friendships removed since are not in it
+     */
+    public GraphSnapshot getGraphAsOf(LocalDate date) {
+        GraphSnapshot current = getGraph();
+        FriendshipTimeline kept;
+        long changes;
+        synchronized (graphLock) {
+            kept = timeline;
+            changes = graphChanges;
+        }
+        if (kept == null) {
+            FriendshipTimeline.Builder builder = new FriendshipTimeline.Builder(current);
+            fRepo.forEach(f -> builder.addFriendship(f.getFirst(), f.getSecond(), f.getDate()));
+            kept = builder.build();
+            synchronized (graphLock) {
+                // a change made while reading may be missing from the timeline, so it isn't kept
+                if (changes == graphChanges && current == graph.get())
+                    timeline = kept;
             }
         }
-        return nr;
+        return kept.asOf(current, date);
+    }
+
+    /**
+     * @param date - the date
+     * @return the connected components of the network as it was at the end of the date
+     */
+    public ConnectedComponents getComponentsAsOf(LocalDate date) {
+        return new ConnectedComponents(getGraphAsOf(date), true);
+    }
+
+    /**
+     * @param email - String the email of the user
+     * @param date - the date
+     * @return the number of friends the user had at the end of the date, 0 if the user is not in the network
+     */
+    public int getNrFriendsAsOf(String email, LocalDate date) {
+        GraphSnapshot past = getGraphAsOf(date);
+        int v = past.id(email);
+        return v < 0 ? 0 : past.degree(v);
+    }
+
+    /**
+     * @param email1 - String the email of the first user
+     * @param email2 - String the email of the second user
+     * @param maxHops - int the maximum number of friendships of the path
+     * @param date - the date
+     * @return the emails of the users of the shortest chain of friends between the two users at the end of the date,
+     * an empty list if there was no chain of at most maxHops friendships
+     */
+    public List<String> getFriendshipPathAsOf(String email1, String email2, int maxHops, LocalDate date) {
+        return pathFinders.get().shortestPath(getGraphAsOf(date), email1, email2, maxHops);
+    }
+
+    /**
+     * @return the number of friends of each user, for the current snapshot
+     */
+    public DegreeCentrality getDegreeCentrality() {
+        return degrees.get(getGraph());
+    }
+
+    /**
+     * @return the PageRank of each user, for the current snapshot
+     */
+    public PageRank getPageRank() {
+        return pageRanks.get(getGraph());
+    }
+
+    /**
+     * @return the betweenness of each user, for the current snapshot; estimated on large networks
+     */
+    public Betweenness getBetweenness() {
+        return betweenness.get(getGraph());
+    }
+
+    /**
+     * @return the triangles and the clustering coefficients, for the current snapshot
+     */
+    public Triangles getTriangles() {
+        return triangles.get(getGraph());
+    }
+
+    /**
+     * @return the estimated number of users each user reaches within 1 to MAX_REACH_HOPS friendships,
+     * for the current snapshot
+     */
+    public ApproximateReach getReach() {
+        return reach.get(getGraph());
+    }
+
+    /**
+     * @return the core number of each user, for the current snapshot
+     */
+    public CoreDecomposition getCoreDecomposition() {
+        return cores.get(getGraph());
+    }
+
+    /**
+     * @return the communities found by label propagation, for the current snapshot
+     */
+    public CommunityDetection getDetectedCommunities() {
+        return detected.get(getGraph());
+    }
+
+    /**
+     * @return the largest clique, for the current snapshot; the largest found within
+     * CLIQUE_BUDGET_MILLIS if the search didn't finish
+     */
+    public MaximumClique getMaximumClique() {
+        return cliques.get(getGraph());
+    }
+
+    /**
+     * @param mode - what the most friendly community is taken to be
+     * @return the emails of the users of the most friendly community
+     */
+    public List<String> getMostFriendlyCommunity(FriendlyCommunityMode mode) {
+        return switch (mode) {
+            case LONGEST_PATH -> getUsersMostFrCom().stream().map(User::getEmail).toList();
+            case DENSEST_CORE -> getCoreDecomposition().getDensestCore();
+            case MAX_CLIQUE -> getMaximumClique().getClique();
+        };
+    }
+
+    /**
+     * @param mode - what the most friendly community is taken to be
+     * @return the friendships of the most friendly community: the ones of the path for LONGEST_PATH,
+     * all the friendships between its users otherwise
+     */
+    public List<Friendship> getMostFriendlyFriendships(FriendlyCommunityMode mode) {
+        if (mode == FriendlyCommunityMode.LONGEST_PATH)
+            return getmfrCom().getFriendshipsMostFrCom();
+        GraphSnapshot current = getGraph();
+        boolean[] member = new boolean[current.size()];
+        getMostFriendlyCommunity(mode).stream().mapToInt(current::id).filter(v -> v >= 0).forEach(v -> member[v] = true);
+        List<Friendship> friendships = new ArrayList<>();
+        NeighborCursor cursor = current.cursor();
+        for (int v = 0; v < member.length; v++) {
+            if (!member[v])
+                continue;
+            cursor.reset(v);
+            while (cursor.hasNext()) {
+                int w = cursor.next();
+                if (v < w && member[w])
+                    friendships.add(new Friendship(current.email(v), current.email(w)));
+            }
+        }
+        return friendships;
+    }
+
+    /**
+     * @param listener - called each time the network changes
+     */
+    public void addChangeListener(Runnable listener) {
+        changeListeners.add(listener);
+    }
+
+    /**
+     * Serves the last saved analysis until a new one is computed. It is out of date unless it was computed
+     * at the current version of the change log, then the next request for it starts a recomputation
+     * @return true if a saved analysis was loaded
+     */
+    public boolean loadStored() {
+        if (aRepo == null)
+            return false;
+        NetworkAnalysis stored = aRepo.getLatest();
+        if (stored == null)
+            return false;
+        publish(stored, false);
+        if (cRepo == null || stored.getGraphVersion() == NetworkAnalysis.UNKNOWN_VERSION ||
+                stored.getGraphVersion() != cRepo.getVersion())
+            invalidate();
+        return true;
+    }
+
+    /**
+     * Returns the last completed analysis. If there is none yet it waits for the one being computed,
+     * or computes it. If it is out of date a recomputation is started in the background
+     * @return the analysis of the network
+     */
+    public NetworkAnalysis getAnalysis() {
+        NetworkAnalysis analysis = last;
+        if (analysis == null) {
+            CompletableFuture<NetworkAnalysis> future;
+            synchronized (this) {
+                future = running;
+            }
+            if (future != null) {
+                try {
+                    return future.join();
+                } catch (CompletionException e) {
+                    if (e.getCause() instanceof RuntimeException)
+                        throw (RuntimeException) e.getCause();
+                    throw e;
+                }
+            }
+            reload();
+            return last;
+        }
+        if (stale)
+            warmUp();
+        return analysis;
+    }
+
+    /**
+     * @return true if an analysis is being computed in the background
+     */
+    public synchronized boolean isComputing() {
+        return running != null && !running.isDone();
+    }
+
+    /**
+     * @return how much of the analysis being computed is done, in percents
+     */
+    public int getProgress() {
+        return progress;
+    }
+
+    /**
+     * Serves an analysis, unless a newer one is served already
+     * @param save - true if the analysis is saved in the analytics repository
+     */
+    private void publish(NetworkAnalysis analysis, boolean save) {
+        synchronized (this) {
+            if (last != null && analysis.getComputedAt().isBefore(last.getComputedAt()))
+                return;
+            last = analysis;
+        }
+        if (save && aRepo != null)
+            aRepo.save(analysis);
+    }
+
+    /**
+     * Maps the snapshot file if it is up to date with the change log, or applies the changes logged since
+     * it was saved; otherwise reads the users and the friendships in one pass over each table.
+     * A snapshot that wasn't up to date is saved to the file and the changes before it are pruned
+     * @return the snapshot of the network, in the storage chosen
+     */
+    private GraphSnapshot readGraph() {
+        GraphStorage chosen;
+        synchronized (graphLock) {
+            chosen = storage;
+        }
+        if (cRepo == null || snapshotFile == null)
+            return stored(readTables(), chosen);
+        // read before the tables: a change made while they are read is applied again later, which changes nothing
+        long version = cRepo.getVersion();
+        GraphSnapshotFile.Loaded loaded = snapshotFile.load();
+        if (loaded != null && loaded.getVersion() == version)
+            return chosen == null ? loaded.getGraph() : loaded.getGraph().stored(chosen);
+        GraphSnapshot read = null;
+        // a file newer than the log belongs to another database
+        List<GraphChange> changes = loaded == null || loaded.getVersion() > version ? null :
+                cRepo.getChangesSince(loaded.getVersion());
+        if (changes != null) {
+            read = loaded.getGraph().withChanges(changes);
+            if (!changes.isEmpty())
+                version = Math.max(version, changes.get(changes.size() - 1).getVersion());
+        } else
+            read = readTables();
+        try {
+            snapshotFile.save(read, version);
+            cRepo.prune(version);
+        } catch (RepoException ignored) {
+            // the file is only a cache, the next start reads the tables again
+        }
+        return stored(read, chosen);
+    }
+
+    /**
+     * Reads the users and the friendships in one pass over each table
+     */
+    private GraphSnapshot readTables() {
+        GraphSnapshot.Builder builder = new GraphSnapshot.Builder();
+        uRepo.forEach(u -> builder.addUser(u.getEmail()));
+        fRepo.forEach(f -> builder.addFriendship(f.getFirst(), f.getSecond()));
+        return builder.build();
+    }
+
+    /**
+     * @param storage - the storage chosen, null if none was chosen
+     * @return the snapshot in the storage, or compressed if none was chosen
+     * and it has more than COMPRESSED_FRIENDSHIPS friendships
+     */
+    private static GraphSnapshot stored(GraphSnapshot snapshot, GraphStorage storage) {
+        if (storage != null)
+            return snapshot.stored(storage);
+        return snapshot.nrFriendships() > COMPRESSED_FRIENDSHIPS ? snapshot.compressed() : snapshot;
+    }
+
+    /**
+     * Reads the users and computes the analysis over the snapshot of the network
+     * @return the new analysis
+     */
+    private NetworkAnalysis compute() {
+        LocalDateTime computedAt = LocalDateTime.now();
+        // read before the snapshot: a change made meanwhile makes the analysis look older than it is, not newer
+        long version = cRepo == null ? NetworkAnalysis.UNKNOWN_VERSION : cRepo.getVersion();
+        progress = 0;
+        Map<String, User> users = new LinkedHashMap<>();
+        Map<String, List<String>> friends = new LinkedHashMap<>();
+        uRepo.forEach(u -> users.put(u.getEmail(), u));
+        GraphSnapshot snapshot = getGraph();
+        NeighborCursor cursor = snapshot.cursor();
+        for (String email : users.keySet()) {
+            List<String> userFriends = new ArrayList<>();
+            int v = snapshot.id(email);
+            // a user saved after the snapshot was read has no friends in it
+            if (v >= 0) {
+                cursor.reset(v);
+                while (cursor.hasNext()) {
+                    String friend = snapshot.email(cursor.next());
+                    if (users.containsKey(friend))
+                        userFriends.add(friend);
+                }
+            }
+            friends.put(email, userFriends);
+        }
+        Map<Integer, List<String>> communities = getCommunities(users.keySet(), new ConnectedComponents(snapshot, true));
+        int total = Math.max(users.size(), 1);
+        MostFriendlyCommunity mfCom = new MostFriendlyCommunity(users, friends, done -> progress = done * 100 / total);
+        progress = 100;
+        return new NetworkAnalysis(communities, mfCom, computedAt, version);
+    }
+
+    /**
+     * Returns a dictionary where the key is the number of the community and the value
+     * is the list of the users' emails from that community
+     * @return the dictionary with the users from the communities - Map[Integer, List[String]]
+     */
+    public Map<Integer, List<String>> getCommunities() {
+        return getAnalysis().getCommunities();
+    }
+
+    /**
+     * Groups the users in communities, numbered in the order their first users are listed
+     * @param emails - the emails of the users
+     * @param components - the connected components of the snapshot; a user saved after it was read is alone
+     * @return the emails of the users of each community, by the number of the community
+     */
+    private Map<Integer, List<String>> getCommunities(Collection<String> emails, ConnectedComponents components) {
+        Map<Integer, Integer> numbers = new HashMap<>();
+        Map<Integer, List<String>> comms = new HashMap<>();
+        for (String e : emails) {
+            int component = components.getComponent(e);
+            Integer c = component == 0 ? null : numbers.get(component);
+            if (c == null) {
+                c = comms.size() + 1;
+                comms.put(c, new ArrayList<>());
+                if (component != 0)
+                    numbers.put(component, c);
+            }
+            comms.get(c).add(e);
+        }
+        return comms;
+    }
+
+    public MostFriendlyCommunity getmfrCom() {
+        return getAnalysis().getMostFriendlyCommunity();
     }
 
     /**
@@ -92,6 +696,6 @@ public class Network {
      * @return no communities - int
      */
     public int getNrCommunities() {
-        return communitiesNr;
+        return getAnalysis().getNrCommunities();
     }
 }
@@ -0,0 +1,101 @@
+package domain.network;
+
+import domain.User;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * The result of one computation of the network analytics; it is never modified after it is built
+ */
+public class NetworkAnalysis {
+    private final Map<Integer, List<String>> communities;
+    private final MostFriendlyCommunity mfCom;
+    private final LocalDateTime computedAt;
+    private final long graphVersion;
+
+    /**
+     * The version of the change log of an analysis computed without one, or saved before it was recorded
+     */
+    public static final long UNKNOWN_VERSION = -1;
+
+    public NetworkAnalysis(Map<Integer, List<String>> communities, MostFriendlyCommunity mfCom, LocalDateTime computedAt) {
+        this(communities, mfCom, computedAt, UNKNOWN_VERSION);
+    }
+
+    /**
+     * @param graphVersion - long the version of the change log of the network the analysis was computed from,
+     *                     UNKNOWN_VERSION if there is no change log
+     */
+    public NetworkAnalysis(Map<Integer, List<String>> communities, MostFriendlyCommunity mfCom, LocalDateTime computedAt,
+                           long graphVersion) {
+        this.communities = Collections.unmodifiableMap(communities);
+        this.mfCom = mfCom;
+        this.computedAt = computedAt;
+        this.graphVersion = graphVersion;
+    }
+
+    /**
+     * Restores an analysis that was already computed
+     * @param communities - the emails of the users of each community, by the number of the community
+     * @param usersMostFrCom - the users of the longest path, in order
+     * @param computedAt - the date and time when the computation started
+     * @param graphVersion - long the version of the change log the analysis was computed from, UNKNOWN_VERSION if unknown
+     */
+    public NetworkAnalysis(Map<Integer, List<String>> communities, List<User> usersMostFrCom, LocalDateTime computedAt,
+                           long graphVersion) {
+        this(communities, new MostFriendlyCommunity(usersMostFrCom), computedAt, graphVersion);
+    }
+
+    /**
+     * @return the emails of the users of each community, by the number of the community - Map[Integer, List[String]]
+     */
+    public Map<Integer, List<String>> getCommunities() {
+        return communities;
+    }
+
+    /**
+     * @return no of communities - int
+     */
+    public int getNrCommunities() {
+        return communities.size();
+    }
+
+    /**
+     * @return the number of users of each community, from the largest community
+     */
+    public List<Integer> getComponentSizes() {
+        List<Integer> sizes = new ArrayList<>();
+        communities.values().forEach(c -> sizes.add(c.size()));
+        sizes.sort(Comparator.reverseOrder());
+        return sizes;
+    }
+
+    /**
+     * @return the longest path from the friends network
+     */
+    public MostFriendlyCommunity getMostFriendlyCommunity() {
+        return mfCom;
+    }
+
+    /**
+     * @return the users of the longest path from the friends network - List[User]
+     */
+    public List<User> getUsersMostFrCom() {
+        return mfCom.getUsersMostFrCom();
+    }
+
+    /**
+     * @return the date and time when the computation started
+     */
+    public LocalDateTime getComputedAt() {
+        return computedAt;
+    }
+
+    /**
+     * @return the version of the change log of the network the analysis was computed from, UNKNOWN_VERSION if unknown
+     */
+    public long getGraphVersion() {
+        return graphVersion;
+    }
+}
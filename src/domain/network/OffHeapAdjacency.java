@@ -0,0 +1,172 @@
+package domain.network;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+
+/**
+ * The lists in compressed sparse rows outside the Java heap, in direct buffers: the garbage collector
+ * sees a few buffer objects instead of arrays of billions of ints, so its pauses don't grow with the graph.
+ * A buffer holds at most 1 GiB, the offsets and the targets are split in pages of that size.
+ * The memory of a snapshot generation is released by the cleaners of its buffers once no thread holds
+ * the snapshot, so a thread still reading an older generation never reads released memory.
+ * The buffers count against the direct memory limit of the JVM (-XX:MaxDirectMemorySize)
+ */
+public class OffHeapAdjacency implements Adjacency {
+    private static final int OFFSET_BITS = 27;
+    private static final int TARGET_BITS = 28;
+    private static final int OFFSET_MASK = (1 << OFFSET_BITS) - 1;
+    private static final int TARGET_MASK = (1 << TARGET_BITS) - 1;
+    // the list of v is targets[offsets[v]], ..., targets[offsets[v + 1] - 1], over the pages
+    private final LongBuffer[] offsets;
+    private final IntBuffer[] targets;
+    private final int size;
+    private final long nrTargets;
+
+    /**
+     * Copies the lists of another adjacency outside the heap
+     */
+    public OffHeapAdjacency(Adjacency adjacency) {
+        size = adjacency.size();
+        nrTargets = adjacency.nrTargets();
+        offsets = new LongBuffer[pages(size + 1L, OFFSET_BITS)];
+        for (int p = 0; p < offsets.length; p++)
+            offsets[p] = allocate(pageSize(size + 1L, OFFSET_BITS, p) * 8L).asLongBuffer();
+        targets = new IntBuffer[pages(nrTargets, TARGET_BITS)];
+        for (int p = 0; p < targets.length; p++)
+            targets[p] = allocate(pageSize(nrTargets, TARGET_BITS, p) * 4L).asIntBuffer();
+        NeighborCursor cursor = adjacency.cursor();
+        long position = 0;
+        for (int v = 0; v < size; v++) {
+            setOffset(v, position);
+            cursor.reset(v);
+            while (cursor.hasNext()) {
+                targets[(int) (position >>> TARGET_BITS)].put((int) (position & TARGET_MASK), cursor.next());
+                position++;
+            }
+        }
+        setOffset(size, position);
+    }
+
+    /**
+     * Reads the lists from buffers that are already filled, like the regions of a mapped file
+     * @param offsets - the offsets, in pages of 2^27 longs
+     * @param targets - the targets, in pages of 2^28 ints
+     */
+    OffHeapAdjacency(LongBuffer[] offsets, IntBuffer[] targets, int size, long nrTargets) {
+        this.offsets = offsets;
+        this.targets = targets;
+        this.size = size;
+        this.nrTargets = nrTargets;
+    }
+
+    static int offsetPages(int size) {
+        return pages(size + 1L, OFFSET_BITS);
+    }
+
+    static int offsetPageSize(int size, int page) {
+        return pageSize(size + 1L, OFFSET_BITS, page);
+    }
+
+    static int targetPages(long nrTargets) {
+        return pages(nrTargets, TARGET_BITS);
+    }
+
+    static int targetPageSize(long nrTargets, int page) {
+        return pageSize(nrTargets, TARGET_BITS, page);
+    }
+
+    private static int pages(long length, int bits) {
+        return Math.max(1, Math.toIntExact((length + (1L << bits) - 1) >>> bits));
+    }
+
+    private static int pageSize(long length, int bits, int page) {
+        return (int) Math.min(1L << bits, length - ((long) page << bits));
+    }
+
+    private static ByteBuffer allocate(long bytes) {
+        return ByteBuffer.allocateDirect((int) bytes).order(ByteOrder.nativeOrder());
+    }
+
+    private void setOffset(int v, long position) {
+        offsets[v >>> OFFSET_BITS].put(v & OFFSET_MASK, position);
+    }
+
+    private long offset(int v) {
+        return offsets[v >>> OFFSET_BITS].get(v & OFFSET_MASK);
+    }
+
+    private int target(long position) {
+        return targets[(int) (position >>> TARGET_BITS)].get((int) (position & TARGET_MASK));
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public long nrTargets() {
+        return nrTargets;
+    }
+
+    @Override
+    public int degree(int v) {
+        return (int) (offset(v + 1) - offset(v));
+    }
+
+    @Override
+    public int neighbor(int v, int i) {
+        return target(offset(v) + i);
+    }
+
+    @Override
+    public NeighborCursor cursor() {
+        return new NeighborCursor() {
+            private IntBuffer page;
+            private int pageNr, index;
+            private long remaining;
+
+            @Override
+            public void reset(int v) {
+                long start = offset(v);
+                remaining = offset(v + 1) - start;
+                pageNr = (int) (start >>> TARGET_BITS);
+                page = remaining == 0 ? null : targets[pageNr];
+                index = (int) (start & TARGET_MASK);
+            }
+
+            @Override
+            public boolean hasNext() {
+                return remaining > 0;
+            }
+
+            @Override
+            public int next() {
+                if (index == page.limit()) {
+                    // a list may go on in the next page
+                    page = targets[++pageNr];
+                    index = 0;
+                }
+                remaining--;
+                return page.get(index++);
+            }
+        };
+    }
+
+    @Override
+    public long sizeInBytes() {
+        return 8L * (size + 1) + 4L * nrTargets;
+    }
+
+    @Override
+    public GraphStorage storage() {
+        return GraphStorage.OFF_HEAP;
+    }
+
+    @Override
+    public Adjacency rebuilt(Adjacency adjacency) {
+        return new OffHeapAdjacency(adjacency);
+    }
+}
@@ -0,0 +1,122 @@
+package domain.network;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Finds the shortest chain of friends between two users with a bidirectional breadth-first search:
+ * the search grows the smaller of the two frontiers, from each user, until they meet.
+ * The visited markers are kept between searches and stamped with the number of the search,
+ * so a search only touches the users it explores. A path finder is used by one thread at a time
+ */
+public class PathFinder {
+    private int search;
+    // the search that last visited each user, from the first user and from the second one
+    private int[] visitedFrom = new int[0];
+    private int[] visitedTo = new int[0];
+    // the user each user was reached from, in the search that visited it
+    private int[] parentFrom = new int[0];
+    private int[] parentTo = new int[0];
+    private int[] frontier = new int[0];
+    private int[] next = new int[0];
+    private int[] otherFrontier = new int[0];
+
+    /**
+     * @param graph - the snapshot of the network
+     * @param email1 - String the email of the first user
+     * @param email2 - String the email of the second user
+     * @param maxHops - int the maximum number of friendships of the path
+     * @return the emails of the users of the shortest path, from the first user to the second one;
+     * an empty list if they are not connected by at most maxHops friendships
+     */
+    public List<String> shortestPath(GraphSnapshot graph, String email1, String email2, int maxHops) {
+        int source = graph.id(email1), target = graph.id(email2);
+        List<String> path = new ArrayList<>();
+        if (source < 0 || target < 0)
+            return path;
+        if (source == target) {
+            path.add(email1);
+            return path;
+        }
+        ensureCapacity(graph.size());
+        if (++search == 0) {
+            // the stamps wrapped around, the old ones could be taken for the new search
+            Arrays.fill(visitedFrom, 0);
+            Arrays.fill(visitedTo, 0);
+            search = 1;
+        }
+        visitedFrom[source] = search;
+        visitedTo[target] = search;
+        int[] fromFrontier = frontier, toFrontier = otherFrontier, spare = next;
+        fromFrontier[0] = source;
+        toFrontier[0] = target;
+        int fromSize = 1, toSize = 1, fromWork = graph.degree(source), toWork = graph.degree(target);
+        NeighborCursor cursor = graph.cursor();
+        for (int hops = 0; hops < maxHops && fromSize > 0 && toSize > 0; hops++) {
+            boolean forward = fromWork <= toWork;
+            int[] current = forward ? fromFrontier : toFrontier;
+            int size = forward ? fromSize : toSize;
+            int[] visited = forward ? visitedFrom : visitedTo;
+            int[] parent = forward ? parentFrom : parentTo;
+            int[] otherVisited = forward ? visitedTo : visitedFrom;
+            int nextSize = 0, work = 0;
+            for (int i = 0; i < size; i++) {
+                int v = current[i];
+                cursor.reset(v);
+                while (cursor.hasNext()) {
+                    int w = cursor.next();
+                    if (visited[w] == search)
+                        continue;
+                    visited[w] = search;
+                    parent[w] = v;
+                    if (otherVisited[w] == search)
+                        return buildPath(graph, w, source, target);
+                    spare[nextSize++] = w;
+                    work += graph.degree(w);
+                }
+            }
+            if (forward) {
+                fromFrontier = spare;
+                fromSize = nextSize;
+                fromWork = work;
+            } else {
+                toFrontier = spare;
+                toSize = nextSize;
+                toWork = work;
+            }
+            spare = current;
+        }
+        return path;
+    }
+
+    /**
+     * @param meet - int the user where the two searches met
+     * @return the emails of the users from source to target, through meet
+     */
+    private List<String> buildPath(GraphSnapshot graph, int meet, int source, int target) {
+        List<String> path = new ArrayList<>();
+        for (int v = meet; v != source; v = parentFrom[v])
+            path.add(graph.email(v));
+        path.add(graph.email(source));
+        Collections.reverse(path);
+        for (int v = meet; v != target; ) {
+            v = parentTo[v];
+            path.add(graph.email(v));
+        }
+        return path;
+    }
+
+    private void ensureCapacity(int n) {
+        if (visitedFrom.length >= n)
+            return;
+        visitedFrom = Arrays.copyOf(visitedFrom, n);
+        visitedTo = Arrays.copyOf(visitedTo, n);
+        parentFrom = new int[n];
+        parentTo = new int[n];
+        frontier = new int[n];
+        next = new int[n];
+        otherFrontier = new int[n];
+    }
+}
@@ -0,0 +1,226 @@
+package domain.network;
+
+import java.util.*;
+import java.util.stream.IntStream;
+
+/**
+ * Friend suggestions by personalized PageRank, estimated with Monte Carlo random walks: a few walks
+ * with restart start from each user and the users visited most often by them are suggested.
+ * The walks are generated once, in parallel, and kept, so the suggestions of a user only count
+ * the visits of the user's walks. When a friendship is added or removed only the walks that
+ * would have taken a different step are generated again from that step
+ */
+public class PersonalizedPageRank {
+    // probability that a walk stops at each step
+    public static final double RESTART = 0.15;
+    // walks are cut at this length, (1 - RESTART)^64 of them would be longer
+    private static final int MAX_LENGTH = 64;
+    private final int walksPerUser;
+    private final long seed;
+    private final SplittableRandom random;
+    private GraphSnapshot graph;
+    // the walks of user u are walks[u * walksPerUser], ..., walks[(u + 1) * walksPerUser - 1]
+    private int[][] walks;
+    // the walks through each user; a rerouted walk leaves stale entries, they are dropped when found
+    private int[][] visitors;
+    private int[] nrVisitors;
+
+    /**
+     * @param graph - the snapshot of the network
+     * @param walksPerUser - int the number of walks that start from each user
+     * @param seed - long the seed of the random walks
+     */
+    public PersonalizedPageRank(GraphSnapshot graph, int walksPerUser, long seed) {
+        this.graph = graph;
+        this.walksPerUser = walksPerUser;
+        this.seed = seed;
+        this.random = new SplittableRandom(seed);
+        this.walks = new int[0][];
+        this.visitors = new int[0][];
+        this.nrVisitors = new int[0];
+        addUsers();
+    }
+
+    /**
+     * @param email - String the email of the user
+     * @param k - int the maximum number of suggestions
+     * @return the users that are not friends with the user and are visited most often
+     * by the user's walks, the most visited first
+     */
+    public synchronized List<Recommendation> getRecommendations(String email, int k) {
+        int u = graph.id(email);
+        List<Recommendation> recommendations = new ArrayList<>();
+        if (u < 0)
+            return recommendations;
+        Map<Integer, Integer> visits = new HashMap<>();
+        for (int w = u * walksPerUser; w < (u + 1) * walksPerUser; w++)
+            for (int p = 1; p < walks[w].length; p++) {
+                int c = walks[w][p];
+                if (c != u && !graph.areFriends(u, c))
+                    visits.merge(c, 1, Integer::sum);
+            }
+        visits.entrySet().stream()
+                .sorted(Map.Entry.<Integer, Integer>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .limit(k)
+                .forEach(e -> recommendations.add(new Recommendation(graph.email(e.getKey()),
+                        graph.mutualFriends(u, e.getKey()).length, e.getValue() * RESTART / walksPerUser)));
+        return recommendations;
+    }
+
+    /**
+     * Updates the walks after a friendship was added. A walk that stepped from one of the two users
+     * takes the new friendship with probability 1 / (the new number of friends of the user)
+     * @param graph - the snapshot with the friendship
+     * @param email1 - String the email of a user of the friendship
+     * @param email2 - String the email of the other user
+     */
+    public synchronized void friendshipAdded(GraphSnapshot graph, String email1, String email2) {
+        this.graph = graph;
+        addUsers();
+        int u = graph.id(email1), v = graph.id(email2);
+        Map<Integer, Integer> rerouted = new HashMap<>();
+        reroute(u, v, true, rerouted);
+        reroute(v, u, true, rerouted);
+    }
+
+    /**
+     * Updates the walks after a friendship was removed. The walks that took it
+     * take another step from the same user
+     * @param graph - the snapshot without the friendship
+     * @param email1 - String the email of a user of the friendship
+     * @param email2 - String the email of the other user
+     */
+    public synchronized void friendshipRemoved(GraphSnapshot graph, String email1, String email2) {
+        this.graph = graph;
+        addUsers();
+        int u = graph.id(email1), v = graph.id(email2);
+        if (u < 0 || v < 0)
+            return;
+        Map<Integer, Integer> rerouted = new HashMap<>();
+        reroute(u, v, false, rerouted);
+        reroute(v, u, false, rerouted);
+    }
+
+    /**
+     * Regenerates the walks through u that take a different step because of the friendship u - v
+     * @param added - true if the friendship was added, false if it was removed
+     * @param rerouted - the position each walk was regenerated from; the steps after it
+     *                 were taken over the new snapshot, so they are not rerouted again
+     */
+    private void reroute(int u, int v, boolean added, Map<Integer, Integer> rerouted) {
+        int degree = graph.degree(u);
+        int[] through = Arrays.copyOf(visitors[u], nrVisitors[u]);
+        nrVisitors[u] = 0;
+        Set<Integer> seen = new HashSet<>();
+        for (int w : through) {
+            if (!seen.add(w))
+                continue;
+            int[] walk = walks[w];
+            int fresh = rerouted.getOrDefault(w, walk.length);
+            boolean visits = false;
+            for (int p = 0; p < walk.length; p++) {
+                if (walk[p] != u)
+                    continue;
+                visits = true;
+                if (p >= fresh)
+                    break;
+                boolean last = p == walk.length - 1;
+                int from = -1;
+                if (added && !last && random.nextInt(degree) == 0)
+                    from = p;
+                // a walk ending on a user without friends stopped only because it had nowhere to go
+                else if (added && last && degree == 1 && walk.length < MAX_LENGTH && random.nextDouble() >= RESTART)
+                    from = p;
+                else if (!added && !last && walk[p + 1] == v)
+                    from = p;
+                if (from >= 0) {
+                    walks[w] = added ? extend(walk, from + 1, v) : extend(walk, from + 1, -1);
+                    rerouted.put(w, from + 1);
+                    index(w, from + 1);
+                    break;
+                }
+            }
+            if (visits)
+                addVisitor(u, w);
+        }
+    }
+
+    /**
+     * Continues a walk from a prefix
+     * @param prefix - the walk kept, its last user is the one the walk continues from
+     * @param length - int the length of the prefix kept
+     * @param next - int the user of the next step, -1 if the next step is a random friend
+     * @return the new walk
+     */
+    private int[] extend(int[] prefix, int length, int next) {
+        int[] walk = Arrays.copyOf(prefix, MAX_LENGTH);
+        if (next >= 0)
+            walk[length++] = next;
+        else {
+            int current = walk[length - 1];
+            if (graph.degree(current) == 0)
+                return Arrays.copyOf(walk, length);
+            walk[length++] = graph.neighbor(current, random.nextInt(graph.degree(current)));
+        }
+        return Arrays.copyOf(walk, walk(walk, length, random));
+    }
+
+    /**
+     * Continues a walk until it restarts, reaches a user without friends or MAX_LENGTH
+     * @param walk - the users of the walk, with room for MAX_LENGTH users
+     * @param length - int the number of users already in the walk
+     * @return the length of the walk
+     */
+    private int walk(int[] walk, int length, SplittableRandom rnd) {
+        while (length < MAX_LENGTH && rnd.nextDouble() >= RESTART) {
+            int current = walk[length - 1];
+            int degree = graph.degree(current);
+            if (degree == 0)
+                break;
+            walk[length++] = graph.neighbor(current, rnd.nextInt(degree));
+        }
+        return length;
+    }
+
+    /**
+     * Generates the walks of the users that have none, in parallel
+     */
+    private void addUsers() {
+        int old = walks.length / walksPerUser, n = graph.size();
+        if (n == old)
+            return;
+        walks = Arrays.copyOf(walks, n * walksPerUser);
+        visitors = Arrays.copyOf(visitors, n);
+        nrVisitors = Arrays.copyOf(nrVisitors, n);
+        for (int v = old; v < n; v++)
+            visitors[v] = new int[4];
+        IntStream.range(old, n).parallel().forEach(u -> {
+            // each user has its own generator, so the walks don't depend on the order of the threads
+            SplittableRandom rnd = new SplittableRandom(seed ^ u * 0x9E3779B97F4A7C15L);
+            int[] walk = new int[MAX_LENGTH];
+            walk[0] = u;
+            for (int w = u * walksPerUser; w < (u + 1) * walksPerUser; w++)
+                walks[w] = Arrays.copyOf(walk, walk(walk, 1, rnd));
+        });
+        for (int w = old * walksPerUser; w < walks.length; w++)
+            index(w, 0);
+    }
+
+    /**
+     * Adds a walk to the visitors of its users, from a position on
+     */
+    private void index(int w, int from) {
+        int[] walk = walks[w];
+        for (int p = from; p < walk.length; p++) {
+            int v = walk[p];
+            if (nrVisitors[v] == 0 || visitors[v][nrVisitors[v] - 1] != w)
+                addVisitor(v, w);
+        }
+    }
+
+    private void addVisitor(int v, int w) {
+        if (nrVisitors[v] == visitors[v].length)
+            visitors[v] = Arrays.copyOf(visitors[v], visitors[v].length * 2);
+        visitors[v][nrVisitors[v]++] = w;
+    }
+}
@@ -0,0 +1,43 @@
+package domain.network;
+
+/**
+ * A user suggested as a friend, with the score the suggestion was ranked by
+ */
+public class Recommendation {
+    private final String email;
+    private final int mutualFriends;
+    private final double score;
+
+    public Recommendation(String email, int mutualFriends) {
+        this(email, mutualFriends, mutualFriends);
+    }
+
+    /**
+     * @param score - double the score the suggestion was ranked by, higher is better
+     */
+    public Recommendation(String email, int mutualFriends, double score) {
+        this.email = email;
+        this.mutualFriends = mutualFriends;
+        this.score = score;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    /**
+     * @return the number of friends the suggested user has in common with the user - int
+     */
+    public int getMutualFriends() {
+        return mutualFriends;
+    }
+
+    public double getScore() {
+        return score;
+    }
+
+    @Override
+    public String toString() {
+        return email + " | " + mutualFriends + " mutual friends";
+    }
+}
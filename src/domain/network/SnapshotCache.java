@@ -0,0 +1,28 @@
+package domain.network;
+
+import java.util.function.Function;
+
+/**
+ * Keeps a value computed from a snapshot of the network until the snapshot changes
+ */
+class SnapshotCache<T> {
+    private final Function<GraphSnapshot, T> compute;
+    private GraphSnapshot graph;
+    private T value;
+
+    SnapshotCache(Function<GraphSnapshot, T> compute) {
+        this.compute = compute;
+    }
+
+    /**
+     * @param current - the current snapshot
+     * @return the value computed from the current snapshot, computing it if it was computed from another one
+     */
+    synchronized T get(GraphSnapshot current) {
+        if (current != graph) {
+            value = compute.apply(current);
+            graph = current;
+        }
+        return value;
+    }
+}
@@ -0,0 +1,74 @@
+package domain.network;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The emails of the users of a snapshot and their ids: the users of a base, and the users added after it
+ * in a small table of their own. Adding a user copies the small table instead of all the emails, and the table
+ * is merged into the base when the lists of the snapshot are compacted, so it stays about as small as the
+ * replaced lists of a DeltaAdjacency
+ */
+class UserIndex {
+    private final String[] emails;
+    private final Map<String, Integer> ids;
+    // the users added after the base, with ids from emails.length
+    private final String[] added;
+    private final Map<String, Integer> addedIds;
+
+    UserIndex(String[] emails, Map<String, Integer> ids) {
+        this(emails, ids, new String[0], new HashMap<>());
+    }
+
+    private UserIndex(String[] emails, Map<String, Integer> ids, String[] added, Map<String, Integer> addedIds) {
+        this.emails = emails;
+        this.ids = ids;
+        this.added = added;
+        this.addedIds = addedIds;
+    }
+
+    int size() {
+        return emails.length + added.length;
+    }
+
+    /**
+     * @return the id of the user, -1 if the user is not in the index
+     */
+    int id(String email) {
+        Integer id = ids.get(email);
+        if (id == null)
+            id = addedIds.get(email);
+        return id == null ? -1 : id;
+    }
+
+    String email(int v) {
+        return v < emails.length ? emails[v] : added[v - emails.length];
+    }
+
+    /**
+     * The tables of the added users are copied, an index never changes the ones of another
+     * @param email - String the email of a user that is not in the index
+     * @return the index with the user added, with the id size()
+     */
+    UserIndex with(String email) {
+        String[] newAdded = Arrays.copyOf(added, added.length + 1);
+        newAdded[added.length] = email;
+        Map<String, Integer> newAddedIds = new HashMap<>(addedIds);
+        newAddedIds.put(email, size());
+        return new UserIndex(emails, ids, newAdded, newAddedIds);
+    }
+
+    /**
+     * @return the users in one base; this index if no user was added
+     */
+    UserIndex compacted() {
+        if (added.length == 0)
+            return this;
+        String[] allEmails = Arrays.copyOf(emails, size());
+        System.arraycopy(added, 0, allEmails, emails.length, added.length);
+        Map<String, Integer> allIds = new HashMap<>(ids);
+        allIds.putAll(addedIds);
+        return new UserIndex(allEmails, allIds);
+    }
+}
@@ -0,0 +1,108 @@
+package domain.network.analytics;
+
+import domain.network.GraphSnapshot;
+import domain.network.GraphStorage;
+import domain.network.NeighborCursor;
+
+import java.util.SplittableRandom;
+import java.util.function.Supplier;
+
+/**
+ * Times the analytics on a random network, without a database:
+ * java domain.network.analytics.AnalyticsBenchmark [users] [friendships]
+ * The defaults are 1 000 000 users and 5 000 000 friendships
+ */
+public class AnalyticsBenchmark {
+    // sources of the sampled betweenness
+    private static final int SAMPLES = 64;
+    // changes of the friendships timed on the snapshot
+    private static final int CHANGES = 10_000;
+
+    public static void main(String[] args) {
+        int users = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int friendships = args.length > 1 ? Integer.parseInt(args[1]) : 5_000_000;
+        GraphSnapshot graph = time("build the snapshot", () -> randomGraph(users, friendships, 42));
+        System.out.println(graph.size() + " users, " + graph.nrFriendships() + " friendships, " +
+                Runtime.getRuntime().availableProcessors() + " processors");
+        time("degree distribution", () -> new DegreeCentrality(graph));
+        PageRank pageRank = time("PageRank", () -> new PageRank(graph));
+        System.out.println("  " + pageRank.getIterations() + " iterations");
+        Triangles triangles = time("triangles and clustering", () -> new Triangles(graph));
+        System.out.println("  " + triangles.getNrTriangles() + " triangles");
+        CoreDecomposition cores = time("k-cores, buckets", () -> new CoreDecomposition(graph));
+        time("k-cores, parallel h-index", () -> new CoreDecomposition(graph, true));
+        System.out.println("  highest core " + cores.getMaxCore());
+        MaximumClique clique = time("largest clique", () -> new MaximumClique(graph, 60_000));
+        System.out.println("  " + clique.getSize() + " users" + (clique.isComplete() ? "" : ", out of time"));
+        CommunityDetection detection = time("label propagation, parallel", () -> new CommunityDetection(graph, 1, true));
+        time("label propagation, deterministic", () -> new CommunityDetection(graph, 1, false));
+        System.out.println("  " + detection.getNrCommunities() + " communities, modularity " + detection.getModularity());
+        time("betweenness, " + SAMPLES + " sampled sources", () -> new Betweenness(graph, SAMPLES, 1));
+        ApproximateReach reach = time("reach within 3 friendships, HyperLogLog", () -> new ApproximateReach(graph, 3, 1));
+        System.out.println("  " + Math.round(reach.getNeighborhoodFunction(3) / Math.max(1, graph.size())) + " users on average");
+        GraphSnapshot compressed = time("compress the lists", graph::compressed);
+        System.out.printf("  %d bytes in arrays, %d bytes compressed%n", graph.sizeInBytes(), compressed.sizeInBytes());
+        time("read all the lists, arrays", () -> scan(graph));
+        time("read all the lists, compressed", () -> scan(compressed));
+        GraphSnapshot offHeap = time("move the lists off the heap", () -> graph.stored(GraphStorage.OFF_HEAP));
+        time("read all the lists, off the heap", () -> scan(offHeap));
+        time("PageRank, compressed", () -> new PageRank(compressed));
+        time("PageRank, off the heap", () -> new PageRank(offHeap));
+        time(CHANGES + " friendship changes", () -> change(graph, users));
+    }
+
+    /**
+     * Adds and removes random friendships, each change gives the next generation of the snapshot
+     * @return the last generation
+     */
+    private static GraphSnapshot change(GraphSnapshot graph, int users) {
+        SplittableRandom random = new SplittableRandom(7);
+        for (int i = 0; i < CHANGES; i++) {
+            String email1 = "user" + random.nextInt(users) + "@bench.com", email2 = "user" + random.nextInt(users) + "@bench.com";
+            graph = i % 2 == 0 ? graph.withFriendship(email1, email2) : graph.withoutFriendship(email1, email2);
+        }
+        return graph;
+    }
+
+    /**
+     * @return the sum of the ids of all the friends, so the reads aren't optimized away
+     */
+    private static long scan(GraphSnapshot graph) {
+        NeighborCursor cursor = graph.cursor();
+        long sum = 0;
+        for (int v = 0; v < graph.size(); v++) {
+            cursor.reset(v);
+            while (cursor.hasNext())
+                sum += cursor.next();
+        }
+        return sum;
+    }
+
+    /**
+     * A random network where each friendship joins two users picked uniformly
+     * @param seed - long the seed of the generator
+     */
+    public static GraphSnapshot randomGraph(int users, int friendships, long seed) {
+        GraphSnapshot.Builder builder = new GraphSnapshot.Builder();
+        for (int i = 0; i < users; i++)
+            builder.addUser("user" + i + "@bench.com");
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int i = 0; i < friendships; i++)
+            builder.addFriendship("user" + random.nextInt(users) + "@bench.com", "user" + random.nextInt(users) + "@bench.com");
+        return builder.build();
+    }
+
+    /**
+     * Runs a computation once to warm up the compiler, then again and prints the time of the second run
+     * @param name - String the name printed
+     * @param computation - the computation
+     * @return the result of the second run
+     */
+    static <T> T time(String name, Supplier<T> computation) {
+        computation.get();
+        long start = System.nanoTime();
+        T result = computation.get();
+        System.out.printf("%-45s %8d ms%n", name, (System.nanoTime() - start) / 1_000_000);
+        return result;
+    }
+}
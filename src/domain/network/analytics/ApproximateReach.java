@@ -0,0 +1,199 @@
+package domain.network.analytics;
+
+import domain.network.GraphSnapshot;
+import domain.network.NeighborCursor;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * The number of users each user reaches within 1, 2, ..., maxHops friendships, estimated in the style of
+ * HyperANF: every user has a HyperLogLog counter of REGISTERS one-byte registers that starts with the user
+ * alone, and each pass merges into it the counters of its friends (the maximum of each register), so after
+ * h passes it counts the users within h friendships. The registers are packed eight to a long and a merge
+ * takes the maximum of the eight at once, with word operations. A pass is parallel over the users and only recomputes
+ * the users with a friend whose counter changed in the last pass; it stops early when none changed.
+ * The memory is 2 * REGISTERS bytes per user for the counters and a float per user and hop for the estimates,
+ * the relative error of an estimate is about 1.04 / sqrt(REGISTERS). The score of a user is its reach within maxHops
+ */
+public class ApproximateReach extends UserScores {
+    private static final int LOG_REGISTERS = 6;
+    private static final int REGISTERS = 1 << LOG_REGISTERS;
+    // the HyperLogLog bias correction for REGISTERS registers
+    private static final double ALPHA = 0.709;
+    private static final int WORDS = REGISTERS / 8;
+    // the high bit of each byte; the registers hold at most 64 - LOG_REGISTERS + 1, it is never set
+    private static final long HIGH_BITS = 0x8080808080808080L;
+    // the number of other users each user reaches within each number of friendships, indexed by the number minus 1
+    private final float[][] reach;
+
+    /**
+     * @param maxHops - int the largest number of friendships the reach is estimated for, at least 1
+     * @param seed - long the seed of the hash of the users, a run with the same seed gives the same estimates
+     */
+    public ApproximateReach(GraphSnapshot graph, int maxHops, long seed) {
+        this(graph, estimate(graph, maxHops, seed));
+    }
+
+    private ApproximateReach(GraphSnapshot graph, float[][] reach) {
+        super(graph, scores(reach[reach.length - 1]));
+        this.reach = reach;
+    }
+
+    private static double[] scores(float[] reach) {
+        double[] scores = new double[reach.length];
+        for (int v = 0; v < reach.length; v++)
+            scores[v] = reach[v];
+        return scores;
+    }
+
+    /**
+     * @return the estimated reach of each user within 1, ..., maxHops friendships; the first hop is exact,
+     * the number of friends
+     */
+    private static float[][] estimate(GraphSnapshot graph, int maxHops, long seed) {
+        int n = graph.size();
+        float[][] reach = new float[maxHops][];
+        reach[0] = new float[n];
+        for (int v = 0; v < n; v++)
+            reach[0][v] = graph.degree(v);
+        if (maxHops == 1)
+            return reach;
+        // the counters of the users after the last pass, and the ones the next pass writes
+        long[] counters = new long[Math.multiplyExact(n, WORDS)];
+        long[] merged = new long[counters.length];
+        long[] initial = counters;
+        IntStream.range(0, n).parallel().forEach(v -> add(initial, v, hash(v, seed)));
+        boolean[] changed = new boolean[n];
+        Arrays.fill(changed, true);
+        ThreadLocal<NeighborCursor> cursors = ThreadLocal.withInitial(graph::cursor);
+        for (int h = 1; h <= maxHops; h++) {
+            long[] from = counters, to = merged;
+            boolean[] wasChanged = changed, isChanged = new boolean[n];
+            IntStream.range(0, n).parallel().forEach(v -> {
+                System.arraycopy(from, v * WORDS, to, v * WORDS, WORDS);
+                // a friend whose counter didn't change was merged by the last pass already
+                NeighborCursor cursor = cursors.get();
+                cursor.reset(v);
+                boolean any = false;
+                while (cursor.hasNext()) {
+                    int w = cursor.next();
+                    if (wasChanged[w])
+                        any |= merge(to, v, from, w);
+                }
+                isChanged[v] = any;
+            });
+            counters = to;
+            merged = from;
+            changed = isChanged;
+            if (h == 1)
+                continue;
+            // an estimate is at least the one of the last hop and at most the number of other users
+            float[] estimates = new float[n], last = reach[h - 2];
+            IntStream.range(0, n).parallel().forEach(v ->
+                    estimates[v] = (float) Math.min(n - 1, Math.max(last[v], size(to, v) - 1)));
+            reach[h - 1] = estimates;
+            if (IntStream.range(0, n).noneMatch(v -> isChanged[v])) {
+                // the counters won't change any more, the reach is the same for the next hops
+                Arrays.fill(reach, h, maxHops, estimates);
+                break;
+            }
+        }
+        return reach;
+    }
+
+    /**
+     * @return the 64-bit hash of the id of the user, a SplitMix64 step
+     */
+    private static long hash(int v, long seed) {
+        long z = v + seed * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Adds the element with the hash to the counter of v: the first LOG_REGISTERS bits choose the register,
+     * which keeps the largest position of the first 1 bit in the rest of the hash
+     */
+    private static void add(long[] counters, int v, long hash) {
+        int register = (int) (hash >>> (64 - LOG_REGISTERS));
+        long rank = Long.numberOfLeadingZeros(hash << LOG_REGISTERS | 1L << (LOG_REGISTERS - 1)) + 1;
+        int i = v * WORDS + register / 8, shift = 8 * (register % 8);
+        if (rank > register(counters[i], shift))
+            counters[i] = counters[i] & ~(0xFFL << shift) | rank << shift;
+    }
+
+    private static int register(long word, int shift) {
+        return (int) (word >>> shift & 0xFF);
+    }
+
+    /**
+     * Merges the counter of w from one array into the counter of v of another. In each word, the high bit
+     * of a byte of ((a | HIGH_BITS) - b) is set where the register of a is at least the one of b, no borrow
+     * crosses the bytes; it is spread to a mask of the bytes of a to keep
+     * @return true if the counter of v changed
+     */
+    private static boolean merge(long[] to, int v, long[] from, int w) {
+        boolean changed = false;
+        int a = v * WORDS, b = w * WORDS;
+        for (int j = 0; j < WORDS; j++) {
+            long x = to[a + j], y = from[b + j];
+            long keep = ((((x | HIGH_BITS) - y) & HIGH_BITS) >>> 7) * 0xFF;
+            long max = x & keep | y & ~keep;
+            if (max != x) {
+                to[a + j] = max;
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * @return the HyperLogLog estimate of the number of users counted by the counter of v,
+     * by linear counting while it is small
+     */
+    private static double size(long[] counters, int v) {
+        double sum = 0;
+        int zeros = 0;
+        for (int j = v * WORDS; j < (v + 1) * WORDS; j++) {
+            for (int shift = 0; shift < 64; shift += 8) {
+                int register = register(counters[j], shift);
+                sum += Math.scalb(1.0, -register);
+                if (register == 0)
+                    zeros++;
+            }
+        }
+        double estimate = ALPHA * REGISTERS * REGISTERS / sum;
+        if (estimate <= 2.5 * REGISTERS && zeros > 0)
+            return REGISTERS * Math.log((double) REGISTERS / zeros);
+        return estimate;
+    }
+
+    /**
+     * @param email - String the email of the user
+     * @param hops - int the number of friendships, from 1 to maxHops
+     * @return the estimated number of other users within the number of friendships of the user,
+     * 0 for a user that is not in the snapshot
+     */
+    public long getReach(String email, int hops) {
+        int v = graph.id(email);
+        return v < 0 ? 0 : Math.round(reach[hops - 1][v]);
+    }
+
+    /**
+     * @param hops - int the number of friendships, from 1 to maxHops
+     * @return the estimated number of ordered pairs of different users within the number of friendships,
+     * the neighborhood function of the network
+     */
+    public double getNeighborhoodFunction(int hops) {
+        double sum = 0;
+        for (float r : reach[hops - 1])
+            sum += r;
+        return sum;
+    }
+
+    public int getMaxHops() {
+        return reach.length;
+    }
+}
@@ -0,0 +1,157 @@
+package domain.network.analytics;
+
+import domain.network.GraphSnapshot;
+import domain.network.NeighborCursor;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Betweenness centrality of the users by Brandes' algorithm: a breadth-first search from each source
+ * counts the shortest paths, then the dependencies are accumulated in the reverse order of the search.
+ * The sources are split into one chunk per thread of the fork-join pool, each chunk with its own arrays,
+ * so the memory is about 36 bytes per user and thread; the partial sums are added at the end.
+ * On a large network a sample of sources is used and the result is scaled up, which estimates the exact value
+ */
+public class Betweenness extends UserScores {
+    private final int sources;
+
+    /**
+     * Exact betweenness, from every user
+     */
+    public Betweenness(GraphSnapshot graph) {
+        this(graph, IntStream.range(0, graph.size()).toArray());
+    }
+
+    /**
+     * Betweenness estimated from a sample of sources
+     * @param samples - int the number of sources, all the users if there are fewer
+     * @param seed - long the seed of the sample
+     */
+    public Betweenness(GraphSnapshot graph, int samples, long seed) {
+        this(graph, sample(graph.size(), samples, seed));
+    }
+
+    private Betweenness(GraphSnapshot graph, int[] sources) {
+        super(graph, compute(graph, sources));
+        this.sources = sources.length;
+    }
+
+    /**
+     * @return true if the scores were estimated from a sample of sources
+     */
+    public boolean isSampled() {
+        return sources < graph.size();
+    }
+
+    /**
+     * Picks distinct sources by a partial Fisher-Yates shuffle
+     */
+    private static int[] sample(int n, int samples, long seed) {
+        int[] users = IntStream.range(0, n).toArray();
+        int k = Math.min(samples, n);
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int i = 0; i < k; i++) {
+            int j = i + random.nextInt(n - i);
+            int aux = users[i];
+            users[i] = users[j];
+            users[j] = aux;
+        }
+        return Arrays.copyOf(users, k);
+    }
+
+    private static double[] compute(GraphSnapshot graph, int[] sources) {
+        int n = graph.size();
+        if (sources.length == 0)
+            return new double[n];
+        // the chunks take every chunks-th source, so they get sources from all over the sample
+        int chunks = Math.min(sources.length, ForkJoinPool.getCommonPoolParallelism());
+        double[] sum = IntStream.range(0, chunks).parallel()
+                .mapToObj(c -> {
+                    Accumulator accumulator = new Accumulator(graph);
+                    for (int i = c; i < sources.length; i += chunks)
+                        accumulator.add(sources[i]);
+                    return accumulator;
+                })
+                .reduce((a, b) -> {
+                    a.merge(b);
+                    return a;
+                })
+                .orElseThrow()
+                .centrality;
+        // each path is counted from both of its ends
+        double scale = (double) n / sources.length / 2;
+        for (int v = 0; v < n; v++)
+            sum[v] *= scale;
+        return sum;
+    }
+
+    /**
+     * The arrays of one chunk of sources; only the users reached from a source are reset after it
+     */
+    private static class Accumulator {
+        final GraphSnapshot graph;
+        final NeighborCursor cursor;
+        final double[] centrality;
+        final int[] distance;
+        final double[] paths;
+        final double[] dependency;
+        final int[] order;
+
+        Accumulator(GraphSnapshot graph) {
+            int n = graph.size();
+            this.graph = graph;
+            cursor = graph.cursor();
+            centrality = new double[n];
+            distance = new int[n];
+            paths = new double[n];
+            dependency = new double[n];
+            order = new int[n];
+            Arrays.fill(distance, -1);
+        }
+
+        void add(int source) {
+            // the users in the order they were reached, the array is also the queue of the search
+            int head = 0, size = 0;
+            order[size++] = source;
+            distance[source] = 0;
+            paths[source] = 1;
+            while (head < size) {
+                int v = order[head++];
+                cursor.reset(v);
+                while (cursor.hasNext()) {
+                    int w = cursor.next();
+                    if (distance[w] < 0) {
+                        distance[w] = distance[v] + 1;
+                        order[size++] = w;
+                    }
+                    if (distance[w] == distance[v] + 1)
+                        paths[w] += paths[v];
+                }
+            }
+            for (int i = size - 1; i > 0; i--) {
+                int w = order[i];
+                cursor.reset(w);
+                while (cursor.hasNext()) {
+                    int v = cursor.next();
+                    if (distance[v] == distance[w] - 1)
+                        dependency[v] += paths[v] / paths[w] * (1 + dependency[w]);
+                }
+                centrality[w] += dependency[w];
+            }
+            for (int i = 0; i < size; i++) {
+                int v = order[i];
+                distance[v] = -1;
+                paths[v] = 0;
+                dependency[v] = 0;
+            }
+        }
+
+        void merge(Accumulator other) {
+            for (int v = 0; v < centrality.length; v++)
+                centrality[v] += other.centrality[v];
+        }
+    }
+}
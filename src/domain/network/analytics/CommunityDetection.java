@@ -0,0 +1,227 @@
+package domain.network.analytics;
+
+import domain.network.GraphSnapshot;
+import domain.network.NeighborCursor;
+
+import java.util.*;
+import java.util.stream.IntStream;
+
+/**
+ * Communities found by label propagation: every user starts in its own community and repeatedly joins
+ * the community most of its friends are in, until almost no user moves. Unlike the connected components,
+ * a giant component is split into groups that are friends mostly among themselves; the quality of
+ * the split is measured by its modularity.
+ * In parallel mode the users of a round are updated by the threads of the fork-join pool, reading the
+ * communities other threads are writing, so two runs may differ. In deterministic mode the users are
+ * updated one by one, in an order shuffled by the seed, and the same seed gives the same communities
+ */
+public class CommunityDetection {
+    private static final int MAX_ROUNDS = 50;
+    // the propagation stops when fewer than this fraction of the users moved in a round
+    private static final double MIN_MOVED = 0.001;
+    private final GraphSnapshot graph;
+    // the community of each user, communities are numbered from 0 in decreasing order of their sizes
+    private final int[] community;
+    private final int[] sizes;
+    private final double modularity;
+    private final int rounds;
+
+    /**
+     * @param seed - long the seed that breaks the ties between communities and orders the users
+     * @param parallel - true to update the users in parallel, false for the deterministic mode
+     */
+    public CommunityDetection(GraphSnapshot graph, long seed, boolean parallel) {
+        this.graph = graph;
+        int n = graph.size();
+        int[] label = IntStream.range(0, n).toArray();
+        int[] order = shuffled(n, seed);
+        ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(() -> new Scratch(graph));
+        int round = 0;
+        while (round < MAX_ROUNDS) {
+            round++;
+            long r = round;
+            int moved;
+            if (parallel)
+                moved = IntStream.of(order).parallel().map(v -> update(v, label, scratch.get(), seed, r) ? 1 : 0).sum();
+            else {
+                Scratch s = scratch.get();
+                moved = 0;
+                for (int v : order)
+                    if (update(v, label, s, seed, r))
+                        moved++;
+            }
+            if (moved <= MIN_MOVED * n)
+                break;
+        }
+        this.rounds = round;
+        this.community = new int[n];
+        this.sizes = renumber(label, community);
+        this.modularity = modularity(graph, community, sizes.length);
+    }
+
+    /**
+     * The counters of one thread; only the communities of the friends of a user are reset after it
+     */
+    private static class Scratch {
+        final int[] count;
+        final int[] touched;
+        final NeighborCursor cursor;
+
+        Scratch(GraphSnapshot graph) {
+            count = new int[graph.size()];
+            touched = new int[graph.size()];
+            cursor = graph.cursor();
+        }
+    }
+
+    /**
+     * Moves v to the community most of its friends are in; a tie is kept if v's community is in it,
+     * otherwise it is broken by a hash of the seed, the round, the user and the community
+     * @return true if v moved
+     */
+    private boolean update(int v, int[] label, Scratch s, long seed, long round) {
+        int degree = graph.degree(v);
+        if (degree == 0)
+            return false;
+        int nrTouched = 0;
+        s.cursor.reset(v);
+        while (s.cursor.hasNext()) {
+            int l = label[s.cursor.next()];
+            if (s.count[l]++ == 0)
+                s.touched[nrTouched++] = l;
+        }
+        int current = label[v], best = current, bestCount = s.count[current];
+        long bestHash = Long.MIN_VALUE;
+        for (int i = 0; i < nrTouched; i++) {
+            int l = s.touched[i];
+            int count = s.count[l];
+            s.count[l] = 0;
+            if (count < bestCount || l == current)
+                continue;
+            long hash = mix(seed ^ round * 0x9E3779B97F4A7C15L ^ (long) v << 32 ^ l);
+            if (count > bestCount || best != current && hash > bestHash) {
+                best = l;
+                bestCount = count;
+                bestHash = hash;
+            }
+        }
+        s.count[current] = 0;
+        if (best == current)
+            return false;
+        label[v] = best;
+        return true;
+    }
+
+    private static long mix(long x) {
+        x = (x ^ x >>> 33) * 0xFF51AFD7ED558CCDL;
+        x = (x ^ x >>> 33) * 0xC4CEB9FE1A85EC53L;
+        return x ^ x >>> 33;
+    }
+
+    private static int[] shuffled(int n, long seed) {
+        int[] order = IntStream.range(0, n).toArray();
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int i = n - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int aux = order[i];
+            order[i] = order[j];
+            order[j] = aux;
+        }
+        return order;
+    }
+
+    /**
+     * Numbers the communities from 0, the largest first
+     * @param community - receives the number of the community of each user
+     * @return the sizes of the communities
+     */
+    private static int[] renumber(int[] label, int[] community) {
+        int n = label.length;
+        int[] size = new int[n];
+        for (int l : label)
+            size[l]++;
+        Integer[] labels = IntStream.range(0, n).filter(l -> size[l] > 0).boxed().toArray(Integer[]::new);
+        Arrays.sort(labels, (a, b) -> size[a] != size[b] ? Integer.compare(size[b], size[a]) : Integer.compare(a, b));
+        int[] number = new int[n];
+        int[] sizes = new int[labels.length];
+        for (int c = 0; c < labels.length; c++) {
+            number[labels[c]] = c;
+            sizes[c] = size[labels[c]];
+        }
+        for (int v = 0; v < n; v++)
+            community[v] = number[label[v]];
+        return sizes;
+    }
+
+    /**
+     * Q = sum over the communities of (friendships inside / m - (friends of its users / 2m)^2)
+     */
+    private static double modularity(GraphSnapshot graph, int[] community, int nrCommunities) {
+        long m = graph.nrFriendships();
+        if (m == 0)
+            return 0;
+        long[] inside = new long[nrCommunities];
+        long[] degrees = new long[nrCommunities];
+        NeighborCursor cursor = graph.cursor();
+        for (int v = 0; v < graph.size(); v++) {
+            degrees[community[v]] += graph.degree(v);
+            cursor.reset(v);
+            while (cursor.hasNext())
+                if (community[cursor.next()] == community[v])
+                    inside[community[v]]++;
+        }
+        double q = 0;
+        for (int c = 0; c < nrCommunities; c++) {
+            double share = degrees[c] / (2.0 * m);
+            // each friendship inside was counted from both of its users
+            q += inside[c] / (2.0 * m) - share * share;
+        }
+        return q;
+    }
+
+    /**
+     * @return the emails of the users of each community, by the number of the community from 1, the largest first
+     */
+    public Map<Integer, List<String>> getCommunities() {
+        Map<Integer, List<String>> communities = new HashMap<>();
+        for (int c = 0; c < sizes.length; c++)
+            communities.put(c + 1, new ArrayList<>(sizes[c]));
+        for (int v = 0; v < community.length; v++)
+            communities.get(community[v] + 1).add(graph.email(v));
+        return communities;
+    }
+
+    /**
+     * @param email - String the email of the user
+     * @return the number of the community of the user, 0 if the user is not in the snapshot
+     */
+    public int getCommunity(String email) {
+        int v = graph.id(email);
+        return v < 0 ? 0 : community[v] + 1;
+    }
+
+    public int getNrCommunities() {
+        return sizes.length;
+    }
+
+    /**
+     * @return the sizes of the communities, the largest first
+     */
+    public List<Integer> getSizes() {
+        return IntStream.of(sizes).boxed().toList();
+    }
+
+    /**
+     * @return the modularity of the communities, from -0.5 to 1; higher means more friendships inside them
+     */
+    public double getModularity() {
+        return modularity;
+    }
+
+    /**
+     * @return the number of rounds of propagation
+     */
+    public int getRounds() {
+        return rounds;
+    }
+}
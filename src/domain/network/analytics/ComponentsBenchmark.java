@@ -0,0 +1,30 @@
+package domain.network.analytics;
+
+import domain.network.GraphSnapshot;
+
+import java.util.Arrays;
+
+/**
+ * Compares the depth-first search and the parallel union-find for the connected components on random
+ * networks with 5 friendships per user, without a database:
+ * java -Xmx16g domain.network.analytics.ComponentsBenchmark [friendships...]
+ * The defaults are 1 000 000, 10 000 000 and 100 000 000 friendships; the largest needs about 12 GB of heap
+ */
+public class ComponentsBenchmark {
+
+    public static void main(String[] args) {
+        long[] sizes = args.length > 0 ? Arrays.stream(args).mapToLong(Long::parseLong).toArray() :
+                new long[]{1_000_000, 10_000_000, 100_000_000};
+        System.out.println(Runtime.getRuntime().availableProcessors() + " processors");
+        for (long friendships : sizes) {
+            int users = (int) (friendships / 5);
+            GraphSnapshot graph = AnalyticsBenchmark.randomGraph(users, (int) friendships, 42);
+            System.out.println(graph.size() + " users, " + graph.nrFriendships() + " friendships");
+            ConnectedComponents dfs = AnalyticsBenchmark.time("  depth-first search", () -> new ConnectedComponents(graph, false));
+            ConnectedComponents unionFind = AnalyticsBenchmark.time("  parallel union-find", () -> new ConnectedComponents(graph, true));
+            if (!dfs.getSizes().equals(unionFind.getSizes()))
+                throw new IllegalStateException("The two algorithms found different components");
+            System.out.println("  " + dfs.getNrComponents() + " components, the largest has " + dfs.getSizes().get(0) + " users");
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package domain.network.analytics;
+
+import domain.network.GraphSnapshot;
+import domain.network.NeighborCursor;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.stream.IntStream;
+
+/**
+ * The connected components of the network: the groups of users linked by chains of friendships.
+ * The sequential mode is a depth-first search. The parallel mode is a concurrent union-find in the style
+ * of Afforest: the threads link the roots of the trees of the two users of each friendship with
+ * compare-and-set, always the larger root under the smaller one, and halve the paths they follow.
+ * The first NEIGHBOR_ROUNDS friends of every user are linked first; the giant component then found
+ * from a sample of the users is skipped, only the other users link the rest of their friends
+ */
+public class ConnectedComponents {
+    private static final int NEIGHBOR_ROUNDS = 2;
+    private static final int SAMPLES = 1024;
+    private final GraphSnapshot graph;
+    // the component of each user, components are numbered from 0 in decreasing order of their sizes
+    private final int[] component;
+    private final int[] sizes;
+
+    /**
+     * @param parallel - true for the concurrent union-find, false for the depth-first search
+     */
+    public ConnectedComponents(GraphSnapshot graph, boolean parallel) {
+        this.graph = graph;
+        int[] label = parallel ? unionFind(graph) : depthFirst(graph);
+        this.component = new int[graph.size()];
+        this.sizes = renumber(label, component);
+    }
+
+    /**
+     * @return the first user reached of the component of each user
+     */
+    private static int[] depthFirst(GraphSnapshot graph) {
+        int n = graph.size();
+        int[] label = new int[n];
+        Arrays.fill(label, -1);
+        int[] stack = new int[n];
+        NeighborCursor cursor = graph.cursor();
+        for (int s = 0; s < n; s++) {
+            if (label[s] >= 0)
+                continue;
+            label[s] = s;
+            int top = 0;
+            stack[top++] = s;
+            while (top > 0) {
+                cursor.reset(stack[--top]);
+                while (cursor.hasNext()) {
+                    int w = cursor.next();
+                    if (label[w] < 0) {
+                        label[w] = s;
+                        stack[top++] = w;
+                    }
+                }
+            }
+        }
+        return label;
+    }
+
+    /**
+     * @return the smallest user of the component of each user
+     */
+    private static int[] unionFind(GraphSnapshot graph) {
+        int n = graph.size();
+        AtomicIntegerArray parent = new AtomicIntegerArray(IntStream.range(0, n).toArray());
+        for (int r = 0; r < NEIGHBOR_ROUNDS; r++) {
+            int round = r;
+            IntStream.range(0, n).parallel().forEach(v -> {
+                if (graph.degree(v) > round)
+                    union(parent, v, graph.neighbor(v, round));
+            });
+            compress(parent, n);
+        }
+        int giant = giant(parent, n);
+        ThreadLocal<NeighborCursor> cursors = ThreadLocal.withInitial(graph::cursor);
+        IntStream.range(0, n).parallel().forEach(v -> {
+            // a friendship with a user of the giant component is linked from the other user
+            if (graph.degree(v) <= NEIGHBOR_ROUNDS || find(parent, v) == giant)
+                return;
+            NeighborCursor cursor = cursors.get();
+            cursor.reset(v);
+            for (int i = 0; cursor.hasNext(); i++) {
+                int w = cursor.next();
+                if (i >= NEIGHBOR_ROUNDS)
+                    union(parent, v, w);
+            }
+        });
+        compress(parent, n);
+        int[] label = new int[n];
+        for (int v = 0; v < n; v++)
+            label[v] = parent.get(v);
+        return label;
+    }
+
+    private static int find(AtomicIntegerArray parent, int v) {
+        while (true) {
+            int p = parent.get(v);
+            if (p == v)
+                return v;
+            int grandparent = parent.get(p);
+            // path halving; losing the race only leaves a longer path
+            if (p != grandparent)
+                parent.compareAndSet(v, p, grandparent);
+            v = p;
+        }
+    }
+
+    private static void union(AtomicIntegerArray parent, int u, int v) {
+        while (true) {
+            int ru = find(parent, u), rv = find(parent, v);
+            if (ru == rv)
+                return;
+            if (ru < rv) {
+                int aux = ru;
+                ru = rv;
+                rv = aux;
+            }
+            // ru is still a root if the link succeeds, otherwise another thread linked it first
+            if (parent.compareAndSet(ru, ru, rv))
+                return;
+        }
+    }
+
+    /**
+     * Points every user directly at its root
+     */
+    private static void compress(AtomicIntegerArray parent, int n) {
+        IntStream.range(0, n).parallel().forEach(v -> parent.set(v, find(parent, v)));
+    }
+
+    /**
+     * @return the most frequent root in a sample of the users
+     */
+    private static int giant(AtomicIntegerArray parent, int n) {
+        if (n == 0)
+            return -1;
+        SplittableRandom random = new SplittableRandom(n);
+        Map<Integer, Integer> counts = new HashMap<>();
+        for (int i = 0; i < SAMPLES; i++)
+            counts.merge(parent.get(random.nextInt(n)), 1, Integer::sum);
+        return Collections.max(counts.entrySet(), Map.Entry.comparingByValue()).getKey();
+    }
+
+    /**
+     * Numbers the components from 0, the largest first
+     * @param component - receives the number of the component of each user
+     * @return the sizes of the components
+     */
+    private static int[] renumber(int[] label, int[] component) {
+        int n = label.length;
+        int[] size = new int[n];
+        for (int l : label)
+            size[l]++;
+        Integer[] labels = IntStream.range(0, n).filter(l -> size[l] > 0).boxed().toArray(Integer[]::new);
+        Arrays.sort(labels, (a, b) -> size[a] != size[b] ? Integer.compare(size[b], size[a]) : Integer.compare(a, b));
+        int[] number = new int[n];
+        int[] sizes = new int[labels.length];
+        for (int c = 0; c < labels.length; c++) {
+            number[labels[c]] = c;
+            sizes[c] = size[labels[c]];
+        }
+        for (int v = 0; v < n; v++)
+            component[v] = number[label[v]];
+        return sizes;
+    }
+
+    /**
+     * @param email - String the email of the user
+     * @return the number of the component of the user, from 1, the largest first; 0 if the user is not in the snapshot
+     */
+    public int getComponent(String email) {
+        int v = graph.id(email);
+        return v < 0 ? 0 : component[v] + 1;
+    }
+
+    /**
+     * @return the emails of the users of each component, by the number of the component from 1, the largest first
+     */
+    public Map<Integer, List<String>> getComponents() {
+        Map<Integer, List<String>> components = new HashMap<>();
+        for (int c = 0; c < sizes.length; c++)
+            components.put(c + 1, new ArrayList<>(sizes[c]));
+        for (int v = 0; v < component.length; v++)
+            components.get(component[v] + 1).add(graph.email(v));
+        return components;
+    }
+
+    public int getNrComponents() {
+        return sizes.length;
+    }
+
+    /**
+     * @return the sizes of the components, the largest first
+     */
+    public List<Integer> getSizes() {
+        return IntStream.of(sizes).boxed().toList();
+    }
+}
@@ -0,0 +1,169 @@
+package domain.network.analytics;
+
+import domain.network.GraphSnapshot;
+import domain.network.NeighborCursor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * k-core decomposition: the k-core is the largest group of users where everyone has at least k friends
+ * inside the group, and the core number of a user is the largest k with the user in the k-core.
+ * The sequential algorithm removes the users in increasing order of their remaining friends, kept in
+ * buckets, in O(users + friendships). The parallel one starts from the number of friends and lowers
+ * the core number of each user to the h-index of its friends' core numbers until nothing changes.
+ * The score of a user is its core number
+ */
+public class CoreDecomposition extends UserScores {
+    private final int maxCore;
+
+    public CoreDecomposition(GraphSnapshot graph) {
+        this(graph, false);
+    }
+
+    /**
+     * @param parallel - true to use the parallel algorithm, it gives the same core numbers
+     */
+    public CoreDecomposition(GraphSnapshot graph, boolean parallel) {
+        this(graph, parallel ? parallelCores(graph) : bucketCores(graph, new int[graph.size()]));
+    }
+
+    private CoreDecomposition(GraphSnapshot graph, int[] cores) {
+        super(graph, IntStream.of(cores).asDoubleStream().toArray());
+        this.maxCore = IntStream.of(cores).max().orElse(0);
+    }
+
+    /**
+     * @return the users in a degeneracy order: each user has at most maxCore friends after it
+     */
+    static int[] degeneracyOrder(GraphSnapshot graph) {
+        int[] order = new int[graph.size()];
+        bucketCores(graph, order);
+        return order;
+    }
+
+    /**
+     * Batagelj and Zaversnik: the users are kept sorted by their remaining friends in one array,
+     * the buckets are the ranges of users with the same number of remaining friends
+     * @param order - receives the users in the order they were removed, a degeneracy order
+     */
+    private static int[] bucketCores(GraphSnapshot graph, int[] order) {
+        int n = graph.size();
+        int[] degree = new int[n];
+        int maxDegree = 0;
+        for (int v = 0; v < n; v++) {
+            degree[v] = graph.degree(v);
+            maxDegree = Math.max(maxDegree, degree[v]);
+        }
+        // the first position of each bucket
+        int[] bucket = new int[maxDegree + 1];
+        for (int v = 0; v < n; v++)
+            bucket[degree[v]]++;
+        for (int d = 0, start = 0; d <= maxDegree; d++) {
+            int size = bucket[d];
+            bucket[d] = start;
+            start += size;
+        }
+        int[] sorted = new int[n];
+        int[] position = new int[n];
+        for (int v = 0; v < n; v++) {
+            position[v] = bucket[degree[v]]++;
+            sorted[position[v]] = v;
+        }
+        for (int d = maxDegree; d > 0; d--)
+            bucket[d] = bucket[d - 1];
+        bucket[0] = 0;
+        NeighborCursor cursor = graph.cursor();
+        for (int i = 0; i < n; i++) {
+            int v = sorted[i];
+            cursor.reset(v);
+            while (cursor.hasNext()) {
+                int u = cursor.next();
+                if (degree[u] > degree[v]) {
+                    // u moves to the start of its bucket, which then begins one position later
+                    int du = degree[u], pu = position[u], pw = bucket[du], w = sorted[pw];
+                    if (u != w) {
+                        position[u] = pw;
+                        sorted[pw] = u;
+                        position[w] = pu;
+                        sorted[pu] = w;
+                    }
+                    bucket[du]++;
+                    degree[u]--;
+                }
+            }
+        }
+        System.arraycopy(sorted, 0, order, 0, n);
+        return degree;
+    }
+
+    private static int[] parallelCores(GraphSnapshot graph) {
+        int n = graph.size();
+        int[] core = IntStream.range(0, n).map(graph::degree).toArray();
+        // the core numbers only decrease, so a user reading a value being lowered by another thread
+        // is lowered again in a later round; a round where nothing changed read only final values
+        ThreadLocal<NeighborCursor> cursors = ThreadLocal.withInitial(graph::cursor);
+        boolean changed = true;
+        while (changed)
+            changed = IntStream.range(0, n).parallel().map(v -> lower(cursors.get(), core, v) ? 1 : 0).sum() > 0;
+        return core;
+    }
+
+    /**
+     * Lowers the core number of v to the largest h such that h friends of v have core numbers of at least h
+     * @return true if the core number of v was lowered
+     */
+    private static boolean lower(NeighborCursor friends, int[] core, int v) {
+        int current = core[v];
+        if (current == 0)
+            return false;
+        int[] count = new int[current + 1];
+        friends.reset(v);
+        while (friends.hasNext())
+            count[Math.min(core[friends.next()], current)]++;
+        int h = current, atLeast = count[current];
+        while (atLeast < h) {
+            h--;
+            atLeast += count[h];
+        }
+        if (h == current)
+            return false;
+        core[v] = h;
+        return true;
+    }
+
+    /**
+     * @param email - String the email of the user
+     * @return the core number of the user
+     */
+    public int getCoreNumber(String email) {
+        return (int) getScore(email);
+    }
+
+    /**
+     * @return the largest k with a non-empty k-core
+     */
+    public int getMaxCore() {
+        return maxCore;
+    }
+
+    /**
+     * @param k - int the minimum number of friends inside the group
+     * @return the emails of the users of the k-core
+     */
+    public List<String> getKCore(int k) {
+        List<String> users = new ArrayList<>();
+        for (int v = 0; v < scores.length; v++)
+            if (scores[v] >= k)
+                users.add(graph.email(v));
+        return users;
+    }
+
+    /**
+     * @return the emails of the users of the densest core, the k-core with the largest k
+     */
+    public List<String> getDensestCore() {
+        return getKCore(Math.max(maxCore, 1));
+    }
+}
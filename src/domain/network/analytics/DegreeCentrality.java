@@ -0,0 +1,37 @@
+package domain.network.analytics;
+
+import domain.network.GraphSnapshot;
+
+import java.util.stream.IntStream;
+
+/**
+ * The number of friends of each user and the degree distribution of the network
+ */
+public class DegreeCentrality extends UserScores {
+    private final int[] distribution;
+
+    public DegreeCentrality(GraphSnapshot graph) {
+        super(graph, IntStream.range(0, graph.size()).parallel().mapToDouble(graph::degree).toArray());
+        int max = 0;
+        for (double degree : scores)
+            max = Math.max(max, (int) degree);
+        distribution = new int[max + 1];
+        for (double degree : scores)
+            distribution[(int) degree]++;
+    }
+
+    /**
+     * @return the number of users with each number of friends, indexed by the number of friends
+     */
+    public int[] getDistribution() {
+        return distribution.clone();
+    }
+
+    public int getMaxDegree() {
+        return distribution.length - 1;
+    }
+
+    public double getAverageDegree() {
+        return graph.size() == 0 ? 0 : 2.0 * graph.nrFriendships() / graph.size();
+    }
+}
@@ -0,0 +1,193 @@
+package domain.network.analytics;
+
+import domain.network.GraphSnapshot;
+import domain.network.NeighborCursor;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.IntStream;
+
+/**
+ * The largest clique of the network, a group where everyone is friends with everyone, found by
+ * Bron-Kerbosch with pivoting. The users are taken in a degeneracy order and each one only starts
+ * the search for the cliques where it comes first, so the candidates of a search are at most the
+ * degeneracy of the network. The connected components are searched in parallel, the largest first,
+ * sharing the largest clique found so far to cut the searches that can't beat it.
+ * The search stops when its time budget runs out, with the largest clique found until then
+ */
+public class MaximumClique {
+    private final GraphSnapshot graph;
+    private final int[] clique;
+    private final boolean complete;
+
+    /**
+     * @param budgetMillis - long the time the search may take, in milliseconds
+     */
+    public MaximumClique(GraphSnapshot graph, long budgetMillis) {
+        this.graph = graph;
+        Search search = new Search(graph, System.nanoTime() + budgetMillis * 1_000_000);
+        this.clique = search.run();
+        Arrays.sort(clique);
+        this.complete = !search.timedOut.get();
+    }
+
+    /**
+     * @return the emails of the users of the largest clique found
+     */
+    public List<String> getClique() {
+        List<String> users = new ArrayList<>();
+        for (int v : clique)
+            users.add(graph.email(v));
+        return users;
+    }
+
+    public int getSize() {
+        return clique.length;
+    }
+
+    /**
+     * @return true if the search finished within its budget, so the clique is the largest one
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    private static class Search {
+        final GraphSnapshot graph;
+        final long deadline;
+        final int[] position;
+        final AtomicReference<int[]> best = new AtomicReference<>(new int[0]);
+        final AtomicBoolean timedOut = new AtomicBoolean();
+
+        Search(GraphSnapshot graph, long deadline) {
+            this.graph = graph;
+            this.deadline = deadline;
+            this.position = new int[graph.size()];
+        }
+
+        int[] run() {
+            int[] order = CoreDecomposition.degeneracyOrder(graph);
+            for (int i = 0; i < order.length; i++)
+                position[order[i]] = i;
+            componentsInOrder(order).parallelStream()
+                    .forEach(this::searchComponent);
+            return best.get().clone();
+        }
+
+        /**
+         * @return the users of each component, in the degeneracy order, the largest component first
+         */
+        List<int[]> componentsInOrder(int[] order) {
+            int n = graph.size();
+            int[] component = new int[n];
+            Arrays.fill(component, -1);
+            int[] queue = new int[n];
+            NeighborCursor cursor = graph.cursor();
+            List<Integer> sizes = new ArrayList<>();
+            for (int s = 0; s < n; s++) {
+                if (component[s] >= 0)
+                    continue;
+                int c = sizes.size(), head = 0, size = 0;
+                component[s] = c;
+                queue[size++] = s;
+                while (head < size) {
+                    int v = queue[head++];
+                    cursor.reset(v);
+                    while (cursor.hasNext()) {
+                        int w = cursor.next();
+                        if (component[w] < 0) {
+                            component[w] = c;
+                            queue[size++] = w;
+                        }
+                    }
+                }
+                sizes.add(size);
+            }
+            int[][] users = new int[sizes.size()][];
+            int[] filled = new int[sizes.size()];
+            for (int c = 0; c < users.length; c++)
+                users[c] = new int[sizes.get(c)];
+            for (int v : order)
+                users[component[v]][filled[component[v]]++] = v;
+            List<int[]> components = new ArrayList<>(Arrays.asList(users));
+            components.sort((a, b) -> Integer.compare(b.length, a.length));
+            return components;
+        }
+
+        void searchComponent(int[] users) {
+            for (int v : users) {
+                if (users.length <= best.get().length || timedOut.get())
+                    return;
+                int[] friends = graph.neighbors(v);
+                int[] later = IntStream.of(friends).filter(w -> position[w] > position[v]).toArray();
+                if (later.length + 1 <= best.get().length)
+                    continue;
+                int[] earlier = IntStream.of(friends).filter(w -> position[w] < position[v]).toArray();
+                expand(new int[]{v}, later, earlier);
+            }
+        }
+
+        /**
+         * @param clique - the users of the clique being grown
+         * @param candidates - the users that are friends with everyone in the clique and may be added
+         * @param excluded - the users that are friends with everyone in the clique and were already tried
+         */
+        void expand(int[] clique, int[] candidates, int[] excluded) {
+            if (candidates.length == 0) {
+                if (excluded.length == 0)
+                    best.accumulateAndGet(clique, (a, b) -> b.length > a.length ? b : a);
+                return;
+            }
+            if (clique.length + candidates.length <= best.get().length)
+                return;
+            if (System.nanoTime() > deadline) {
+                timedOut.set(true);
+                return;
+            }
+            // the pivot is the user with the most friends among the candidates,
+            // its friends don't start a search since a clique without it can be grown with it
+            int pivot = -1, most = -1;
+            for (int[] users : new int[][]{candidates, excluded})
+                for (int u : users) {
+                    int friends = 0;
+                    for (int p : candidates)
+                        if (graph.areFriends(u, p))
+                            friends++;
+                    if (friends > most) {
+                        most = friends;
+                        pivot = u;
+                    }
+                }
+            int[] remaining = candidates.clone();
+            int nrRemaining = remaining.length;
+            int[] tried = Arrays.copyOf(excluded, excluded.length + candidates.length);
+            int nrTried = excluded.length;
+            for (int v : candidates) {
+                if (graph.areFriends(pivot, v))
+                    continue;
+                int[] grown = Arrays.copyOf(clique, clique.length + 1);
+                grown[clique.length] = v;
+                expand(grown, friendsOf(v, remaining, nrRemaining), friendsOf(v, tried, nrTried));
+                if (timedOut.get())
+                    return;
+                // v moves from the candidates to the tried users
+                for (int i = 0; i < nrRemaining; i++)
+                    if (remaining[i] == v) {
+                        remaining[i] = remaining[--nrRemaining];
+                        break;
+                    }
+                tried[nrTried++] = v;
+            }
+        }
+
+        int[] friendsOf(int v, int[] users, int size) {
+            int[] friends = new int[size];
+            int nr = 0;
+            for (int i = 0; i < size; i++)
+                if (graph.areFriends(v, users[i]))
+                    friends[nr++] = users[i];
+            return Arrays.copyOf(friends, nr);
+        }
+    }
+}
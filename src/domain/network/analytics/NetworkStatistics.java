@@ -0,0 +1,201 @@
+package domain.network.analytics;
+
+import domain.REQUESTSTATE;
+import domain.network.GraphSnapshot;
+import domain.network.NeighborCursor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.IntStream;
+
+/**
+ * An overview of the network: the degree distribution, the distribution of the sizes of the connected
+ * components, an estimate of the diameter, the requests by state and the messages sent each day.
+ * Only counts are kept, so the memory taken depends on the largest degree, the number of distinct
+ * component sizes and the number of days, not on the number of users, friendships or messages
+ */
+public class NetworkStatistics {
+    private final int nrUsers;
+    private final long nrFriendships;
+    private final int[] degreeDistribution;
+    // the number of components of each size
+    private final SortedMap<Integer, Integer> componentSizes = new TreeMap<>();
+    private final int diameter;
+    private final Map<REQUESTSTATE, Long> requests;
+    private final SortedMap<LocalDate, Long> messagesPerDay;
+    private final LocalDateTime computedAt;
+
+    /**
+     * @param graph - the snapshot of the network
+     * @param components - the connected components of the snapshot
+     * @param requests - the number of friend requests in each state
+     * @param messagesPerDay - the number of messages sent each day
+     */
+    public NetworkStatistics(GraphSnapshot graph, ConnectedComponents components,
+                             Map<REQUESTSTATE, Long> requests, SortedMap<LocalDate, Long> messagesPerDay) {
+        this.nrUsers = graph.size();
+        this.nrFriendships = graph.nrFriendships();
+        int max = IntStream.range(0, nrUsers).parallel().map(graph::degree).max().orElse(0);
+        this.degreeDistribution = new int[max + 1];
+        for (int v = 0; v < nrUsers; v++)
+            degreeDistribution[graph.degree(v)]++;
+        for (int size : components.getSizes())
+            componentSizes.merge(size, 1, Integer::sum);
+        this.diameter = estimateDiameter(graph);
+        this.requests = new EnumMap<>(REQUESTSTATE.class);
+        for (REQUESTSTATE state : REQUESTSTATE.values())
+            this.requests.put(state, requests.getOrDefault(state, 0L));
+        this.messagesPerDay = new TreeMap<>(messagesPerDay);
+        this.computedAt = LocalDateTime.now();
+    }
+
+    /**
+     * Double sweep: a breadth-first search from the user with the most friends, then one from the user
+     * it reached last. The distance to the user the second search reaches last is a lower bound of the
+     * diameter, the longest shortest path, and on social networks it is usually the diameter itself
+     * @return the estimate of the diameter of the component of the user with the most friends
+     */
+    public static int estimateDiameter(GraphSnapshot graph) {
+        int n = graph.size();
+        if (n == 0)
+            return 0;
+        int start = 0;
+        for (int v = 1; v < n; v++)
+            if (graph.degree(v) > graph.degree(start))
+                start = v;
+        int[] distance = new int[n];
+        int[] queue = new int[n];
+        int end = farthest(graph, farthest(graph, start, distance, queue), distance, queue);
+        return distance[end];
+    }
+
+    /**
+     * @param distance - receives the distance to each user reached from the source, -1 for the others
+     * @return the user reached last, one of the farthest from the source
+     */
+    private static int farthest(GraphSnapshot graph, int source, int[] distance, int[] queue) {
+        Arrays.fill(distance, -1);
+        NeighborCursor cursor = graph.cursor();
+        int head = 0, tail = 0;
+        distance[source] = 0;
+        queue[tail++] = source;
+        while (head < tail) {
+            int v = queue[head++];
+            cursor.reset(v);
+            while (cursor.hasNext()) {
+                int w = cursor.next();
+                if (distance[w] < 0) {
+                    distance[w] = distance[v] + 1;
+                    queue[tail++] = w;
+                }
+            }
+        }
+        return queue[tail - 1];
+    }
+
+    public int getNrUsers() {
+        return nrUsers;
+    }
+
+    public long getNrFriendships() {
+        return nrFriendships;
+    }
+
+    /**
+     * @return the number of users with each number of friends, indexed by the number of friends
+     */
+    public int[] getDegreeDistribution() {
+        return degreeDistribution.clone();
+    }
+
+    /**
+     * @return the number of connected components of each size, by size
+     */
+    public SortedMap<Integer, Integer> getComponentSizes() {
+        return Collections.unmodifiableSortedMap(componentSizes);
+    }
+
+    /**
+     * @return the estimate of the diameter, a lower bound found by a double sweep
+     */
+    public int getDiameter() {
+        return diameter;
+    }
+
+    /**
+     * @return the number of friend requests in each state
+     */
+    public Map<REQUESTSTATE, Long> getRequests() {
+        return Collections.unmodifiableMap(requests);
+    }
+
+    /**
+     * @return the share of the answered requests that were approved, 0 if none was answered
+     */
+    public double getAcceptanceRate() {
+        long approved = requests.get(REQUESTSTATE.APPROVED), answered = approved + requests.get(REQUESTSTATE.REJECTED);
+        return answered == 0 ? 0 : (double) approved / answered;
+    }
+
+    /**
+     * @return the number of messages sent each day, by day
+     */
+    public SortedMap<LocalDate, Long> getMessagesPerDay() {
+        return Collections.unmodifiableSortedMap(messagesPerDay);
+    }
+
+    public LocalDateTime getComputedAt() {
+        return computedAt;
+    }
+
+    /**
+     * The statistics as a JSON object; the degree distribution is an array indexed by the number of friends,
+     * the other distributions are objects with the sizes, the states and the days as keys
+     * @return the JSON text
+     */
+    public String toJson() {
+        StringBuilder json = new StringBuilder();
+        json.append("{\n  \"computedAt\": ").append(quoted(computedAt.toString()));
+        json.append(",\n  \"users\": ").append(nrUsers);
+        json.append(",\n  \"friendships\": ").append(nrFriendships);
+        json.append(",\n  \"diameter\": ").append(diameter);
+        json.append(",\n  \"degreeDistribution\": [");
+        for (int d = 0; d < degreeDistribution.length; d++)
+            json.append(d == 0 ? "" : ", ").append(degreeDistribution[d]);
+        json.append("],\n  \"componentSizes\": ");
+        appendObject(json, componentSizes);
+        json.append(",\n  \"requests\": ");
+        appendObject(json, requests);
+        json.append(",\n  \"acceptanceRate\": ").append(getAcceptanceRate());
+        json.append(",\n  \"messagesPerDay\": ");
+        appendObject(json, messagesPerDay);
+        return json.append("\n}\n").toString();
+    }
+
+    private static void appendObject(StringBuilder json, Map<?, ? extends Number> counts) {
+        json.append('{');
+        boolean first = true;
+        for (Map.Entry<?, ? extends Number> entry : counts.entrySet()) {
+            json.append(first ? "" : ", ").append(quoted(entry.getKey().toString())).append(": ").append(entry.getValue());
+            first = false;
+        }
+        json.append('}');
+    }
+
+    /**
+     * @return the text as a JSON string, with the quotes, the backslashes and the control characters escaped
+     */
+    private static String quoted(String text) {
+        StringBuilder quoted = new StringBuilder("\"");
+        for (char c : text.toCharArray()) {
+            if (c == '"' || c == '\\')
+                quoted.append('\\').append(c);
+            else if (c < 0x20)
+                quoted.append(String.format("\\u%04x", (int) c));
+            else
+                quoted.append(c);
+        }
+        return quoted.append('"').toString();
+    }
+}
@@ -0,0 +1,72 @@
+package domain.network.analytics;
+
+import domain.network.GraphSnapshot;
+import domain.network.NeighborCursor;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * PageRank of the users, by power iteration over the sorted adjacency arrays of the snapshot.
+ * Each iteration pulls the rank of each user from its friends, in parallel over the users
+ */
+public class PageRank extends UserScores {
+    public static final double DAMPING = 0.85;
+    private static final double TOLERANCE = 1e-9;
+    private static final int MAX_ITERATIONS = 100;
+    private final int iterations;
+
+    public PageRank(GraphSnapshot graph) {
+        this(graph, new int[1]);
+    }
+
+    private PageRank(GraphSnapshot graph, int[] iterations) {
+        super(graph, compute(graph, iterations));
+        this.iterations = iterations[0];
+    }
+
+    /**
+     * @param iterations - receives the number of iterations done
+     * @return the ranks of the users, they add up to 1
+     */
+    private static double[] compute(GraphSnapshot graph, int[] iterations) {
+        int n = graph.size();
+        if (n == 0)
+            return new double[0];
+        double[] rank = new double[n];
+        Arrays.fill(rank, 1.0 / n);
+        double[] next = new double[n];
+        double[] share = new double[n];
+        ThreadLocal<NeighborCursor> cursors = ThreadLocal.withInitial(graph::cursor);
+        for (iterations[0] = 1; iterations[0] <= MAX_ITERATIONS; iterations[0]++) {
+            double[] current = rank;
+            IntStream.range(0, n).parallel().forEach(v -> share[v] = graph.degree(v) == 0 ? 0 : current[v] / graph.degree(v));
+            // the rank of the users without friends is spread over all the users
+            double dangling = IntStream.range(0, n).parallel().filter(v -> graph.degree(v) == 0).mapToDouble(v -> current[v]).sum();
+            double base = (1 - DAMPING) / n + DAMPING * dangling / n;
+            double[] updated = next;
+            IntStream.range(0, n).parallel().forEach(v -> {
+                double sum = 0;
+                NeighborCursor cursor = cursors.get();
+                cursor.reset(v);
+                while (cursor.hasNext())
+                    sum += share[cursor.next()];
+                updated[v] = base + DAMPING * sum;
+            });
+            double change = IntStream.range(0, n).parallel().mapToDouble(v -> Math.abs(updated[v] - current[v])).sum();
+            next = rank;
+            rank = updated;
+            if (change < TOLERANCE)
+                break;
+        }
+        iterations[0] = Math.min(iterations[0], MAX_ITERATIONS);
+        return rank;
+    }
+
+    /**
+     * @return the number of iterations until the ranks converged
+     */
+    public int getIterations() {
+        return iterations;
+    }
+}
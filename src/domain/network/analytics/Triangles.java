@@ -0,0 +1,190 @@
+package domain.network.analytics;
+
+import domain.network.GraphSnapshot;
+import domain.network.NeighborCursor;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.IntStream;
+
+/**
+ * Triangles (three users that are all friends) and clustering coefficients. Each friendship is
+ * oriented from the user with fewer friends to the one with more, so every triangle is found once,
+ * from its lowest user, and no user has more than O(sqrt(friendships)) oriented friends.
+ * The oriented friends of two users are intersected by merging their sorted lists, or, for
+ * a user with many of them, by marking them in an array kept by each thread.
+ * The score of a user is its local clustering coefficient
+ */
+public class Triangles extends UserScores {
+    // above this many oriented friends, the friends of a user are marked instead of merged
+    private static final int MARK_THRESHOLD = 32;
+    private final long[] triangles;
+    private final long nrTriangles;
+
+    public Triangles(GraphSnapshot graph) {
+        this(graph, count(graph));
+    }
+
+    private Triangles(GraphSnapshot graph, long[] triangles) {
+        super(graph, clustering(graph, triangles));
+        this.triangles = triangles;
+        this.nrTriangles = Arrays.stream(triangles).sum() / 3;
+    }
+
+    /**
+     * @return the number of triangles of each user
+     */
+    private static long[] count(GraphSnapshot graph) {
+        int n = graph.size();
+        // the oriented friends of v are out[outOffsets[v]], ..., out[outOffsets[v + 1] - 1], sorted by id
+        int[] outOffsets = new int[n + 1];
+        NeighborCursor cursor = graph.cursor();
+        for (int v = 0; v < n; v++) {
+            int higher = 0;
+            cursor.reset(v);
+            while (cursor.hasNext())
+                if (before(graph, v, cursor.next()))
+                    higher++;
+            outOffsets[v + 1] = outOffsets[v] + higher;
+        }
+        int[] out = new int[outOffsets[n]];
+        ThreadLocal<NeighborCursor> cursors = ThreadLocal.withInitial(graph::cursor);
+        IntStream.range(0, n).parallel().forEach(v -> {
+            NeighborCursor friends = cursors.get();
+            int size = outOffsets[v];
+            friends.reset(v);
+            while (friends.hasNext()) {
+                int w = friends.next();
+                if (before(graph, v, w))
+                    out[size++] = w;
+            }
+        });
+        AtomicLongArray counts = new AtomicLongArray(n);
+        ThreadLocal<int[]> marks = ThreadLocal.withInitial(() -> {
+            int[] mark = new int[n];
+            Arrays.fill(mark, -1);
+            return mark;
+        });
+        IntStream.range(0, n).parallel().forEach(u -> {
+            int start = outOffsets[u], end = outOffsets[u + 1];
+            boolean marked = end - start > MARK_THRESHOLD;
+            int[] mark = marked ? marks.get() : null;
+            if (marked)
+                for (int i = start; i < end; i++)
+                    mark[out[i]] = u;
+            long own = 0;
+            for (int i = start; i < end; i++) {
+                int w = out[i];
+                long found = 0;
+                if (marked) {
+                    for (int j = outOffsets[w]; j < outOffsets[w + 1]; j++)
+                        if (mark[out[j]] == u) {
+                            counts.incrementAndGet(out[j]);
+                            found++;
+                        }
+                } else {
+                    int a = start, b = outOffsets[w], endW = outOffsets[w + 1];
+                    while (a < end && b < endW) {
+                        if (out[a] < out[b])
+                            a++;
+                        else if (out[a] > out[b])
+                            b++;
+                        else {
+                            counts.incrementAndGet(out[a]);
+                            found++;
+                            a++;
+                            b++;
+                        }
+                    }
+                }
+                if (found > 0)
+                    counts.addAndGet(w, found);
+                own += found;
+            }
+            if (own > 0)
+                counts.addAndGet(u, own);
+        });
+        long[] triangles = new long[n];
+        for (int v = 0; v < n; v++)
+            triangles[v] = counts.get(v);
+        return triangles;
+    }
+
+    /**
+     * @return true if the friendship of v and w is oriented from v to w: v has fewer friends, or as many and a smaller id
+     */
+    private static boolean before(GraphSnapshot graph, int v, int w) {
+        int dv = graph.degree(v), dw = graph.degree(w);
+        return dv < dw || dv == dw && v < w;
+    }
+
+    /**
+     * @return the local clustering coefficient of each user: the fraction of the pairs of its friends that are friends
+     */
+    private static double[] clustering(GraphSnapshot graph, long[] triangles) {
+        return IntStream.range(0, graph.size()).parallel()
+                .mapToDouble(v -> wedges(graph, v) == 0 ? 0 : (double) triangles[v] / wedges(graph, v))
+                .toArray();
+    }
+
+    /**
+     * @return the number of pairs of friends of v
+     */
+    private static long wedges(GraphSnapshot graph, int v) {
+        long d = graph.degree(v);
+        return d * (d - 1) / 2;
+    }
+
+    /**
+     * @return the number of triangles in the network
+     */
+    public long getNrTriangles() {
+        return nrTriangles;
+    }
+
+    /**
+     * @param email - String the email of the user
+     * @return the number of triangles the user is part of
+     */
+    public long getTriangles(String email) {
+        int v = graph.id(email);
+        return v < 0 ? 0 : triangles[v];
+    }
+
+    /**
+     * @return the global clustering coefficient (transitivity) of the network:
+     * the fraction of the pairs of friends of a user that are friends, over all the users
+     */
+    public double getGlobalClustering() {
+        return transitivity(IntStream.range(0, graph.size()));
+    }
+
+    /**
+     * @param community - the emails of the users of a community
+     * @return the transitivity of the triangles of the users of the community;
+     * for a connected component these are exactly the triangles inside it
+     */
+    public double getClustering(Collection<String> community) {
+        return transitivity(community.stream().mapToInt(graph::id).filter(v -> v >= 0));
+    }
+
+    /**
+     * @param community - the emails of the users of a community
+     * @return the average local clustering coefficient of the users of the community
+     */
+    public double getAverageClustering(Collection<String> community) {
+        return community.stream().mapToDouble(this::getScore).average().orElse(0);
+    }
+
+    private double transitivity(IntStream users) {
+        long[] sums = users.collect(() -> new long[2], (s, v) -> {
+            s[0] += triangles[v];
+            s[1] += wedges(graph, v);
+        }, (a, b) -> {
+            a[0] += b[0];
+            a[1] += b[1];
+        });
+        return sums[1] == 0 ? 0 : (double) sums[0] / sums[1];
+    }
+}
@@ -0,0 +1,27 @@
+package domain.network.analytics;
+
+/**
+ * The score of a user by a metric of the network
+ */
+public class UserScore {
+    private final String email;
+    private final double score;
+
+    public UserScore(String email, double score) {
+        this.email = email;
+        this.score = score;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public double getScore() {
+        return score;
+    }
+
+    @Override
+    public String toString() {
+        return email + " | " + score;
+    }
+}
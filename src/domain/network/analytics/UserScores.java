@@ -0,0 +1,53 @@
+package domain.network.analytics;
+
+import domain.network.GraphSnapshot;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * A score for each user of a snapshot of the network, indexed by the id of the user
+ */
+public abstract class UserScores {
+    protected final GraphSnapshot graph;
+    protected final double[] scores;
+
+    protected UserScores(GraphSnapshot graph, double[] scores) {
+        this.graph = graph;
+        this.scores = scores;
+    }
+
+    /**
+     * @param email - String the email of the user
+     * @return the score of the user; 0 for a user that is not in the snapshot, it has no friends yet
+     */
+    public double getScore(String email) {
+        int v = graph.id(email);
+        return v < 0 ? 0 : scores[v];
+    }
+
+    /**
+     * @param k - int the number of users
+     * @return the k users with the highest scores, the highest first
+     */
+    public List<UserScore> getTop(int k) {
+        // a min-heap of the best k users seen, so the worst of them is replaced first
+        PriorityQueue<Integer> best = new PriorityQueue<>(
+                (a, b) -> scores[a] != scores[b] ? Double.compare(scores[a], scores[b]) : Integer.compare(b, a));
+        for (int v = 0; v < scores.length && k > 0; v++) {
+            if (best.size() < k)
+                best.add(v);
+            else if (best.comparator().compare(v, best.peek()) > 0) {
+                best.poll();
+                best.add(v);
+            }
+        }
+        List<UserScore> top = new ArrayList<>();
+        while (!best.isEmpty()) {
+            int v = best.poll();
+            top.add(0, new UserScore(graph.email(v), scores[v]));
+        }
+        return top;
+    }
+}
@@ -0,0 +1,10 @@
+package repository;
+
+import domain.network.NetworkAnalysis;
+
+public interface AnalyticsRepository {
+
+    public void save(NetworkAnalysis analysis);
+
+    public NetworkAnalysis getLatest();
+}
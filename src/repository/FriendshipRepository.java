@@ -4,6 +4,8 @@ import domain.Friendship;
 import domain.User;
 
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 public interface FriendshipRepository {
 
@@ -14,6 +16,21 @@ public interface FriendshipRepository {
     public boolean isEmpty();
     public List<Friendship> getAll();
 
+    /**
+     * @return the saved friendships, read lazily; the stream has to be closed
+     */
+    public Stream<Friendship> stream();
+
+    /**
+     * Passes every saved friendship to the action, without keeping them in memory
+     * @param action - receives the friendships
+     */
+    public default void forEach(Consumer<Friendship> action) {
+        try (Stream<Friendship> friendships = stream()) {
+            friendships.forEach(action);
+        }
+    }
+
     public List<String> getUserFriends(String email);
 
     List<String> getUserFriendsAll(String email);
@@ -22,4 +39,6 @@ public interface FriendshipRepository {
 
     public Friendship getFriendship(String email1, String email2);
 
+    public boolean areFriends(String email1, String email2);
+
 }
@@ -1,8 +1,13 @@
 package repository;
 
 import domain.FriendshipRequest;
+import domain.REQUESTSTATE;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 public interface FriendshipRequestRepository {
     public void addRequest(FriendshipRequest request);
@@ -13,6 +18,21 @@ public interface FriendshipRequestRepository {
 
     public List<FriendshipRequest> getAll();
 
+    /**
+     * @return the saved requests, read lazily; the stream has to be closed
+     */
+    public Stream<FriendshipRequest> stream();
+
+    /**
+     * Passes every saved request to the action, without keeping them in memory
+     * @param action - receives the requests
+     */
+    public default void forEach(Consumer<FriendshipRequest> action) {
+        try (Stream<FriendshipRequest> requests = stream()) {
+            requests.forEach(action);
+        }
+    }
+
     public FriendshipRequest getRequest(String email1, String email2);
 
     public void removeRequest(FriendshipRequest friendshipRequest);
@@ -22,5 +42,11 @@ public interface FriendshipRequestRepository {
     void update(FriendshipRequest request);
 
     public List<String> getUserFriendRequests(String email);
+
+    public Map<String, REQUESTSTATE> getRequestStates(String receiver, Collection<String> requesters);
+
+    public List<String> acceptRequests(String receiver, Collection<String> requesters);
+
+    public List<String> rejectRequests(String receiver, Collection<String> requesters);
 }
 
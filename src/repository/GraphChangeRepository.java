@@ -0,0 +1,25 @@
+package repository;
+
+import domain.network.GraphChange;
+
+import java.util.List;
+
+public interface GraphChangeRepository {
+
+    /**
+     * @return the number of the last change of the users and the friendships, 0 if none was recorded
+     */
+    public long getVersion();
+
+    /**
+     * @param version - long the version a snapshot of the network was read at
+     * @return the changes after the version, in order; null if some of them were pruned
+     */
+    public List<GraphChange> getChangesSince(long version);
+
+    /**
+     * Removes the changes up to a version, a snapshot older than it has to be read again
+     * @param version - long the version of the last change removed
+     */
+    public void prune(long version);
+}
@@ -2,16 +2,43 @@ package repository;
 
 import domain.User;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 public interface UserRepository {
 
     public void save(User u) throws RepoException;
     public User getUser(String email) throws RepoException;
+
+    /**
+     * @param emails - the emails of the users
+     * @return map with key the email of a user, value the user; the emails without a user are missing from the map
+     */
+    public Map<String, User> getUsers(Collection<String> emails);
     public void remove(String email) throws RepoException;
+    public void remove(String email, BiConsumer<String, Integer> progress) throws RepoException;
     public int size();
     public void clear();
     public List<User> getAll();
+
+    /**
+     * @return the saved users, read lazily; the stream has to be closed
+     */
+    public Stream<User> stream();
+
+    /**
+     * Passes every saved user to the action, without keeping them in memory
+     * @param action - receives the users
+     */
+    public default void forEach(Consumer<User> action) {
+        try (Stream<User> users = stream()) {
+            users.forEach(action);
+        }
+    }
     public boolean isEmpty();
     public void update(User user);
 }
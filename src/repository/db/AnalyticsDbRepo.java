@@ -0,0 +1,101 @@
+package repository.db;
+
+import domain.User;
+import domain.network.NetworkAnalysis;
+import repository.AnalyticsRepository;
+
+import java.sql.*;
+import java.util.*;
+
+public class AnalyticsDbRepo implements AnalyticsRepository {
+    private final String url, username, password, analyticsTable;
+    // emails only contain letters, digits and ._+-@, so they are joined with these separators
+    private static final String EMAIL_SEPARATOR = ",";
+    private static final String COMMUNITY_SEPARATOR = "\n";
+
+    public AnalyticsDbRepo(String url, String username, String password, String analyticsTable) {
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.analyticsTable = analyticsTable;
+    }
+
+    /**
+     * Saves an analysis of the network and removes the older ones, in one transaction
+     * @param analysis - the analysis to be saved
+     */
+    @Override
+    public void save(NetworkAnalysis analysis) {
+        String sql = "INSERT INTO " + analyticsTable +
+                " (computedat, nrcommunities, componentsizes, communities, mostfriendlypath, graphversion)" +
+                " VALUES (?, ?, ?, ?, ?, ?)";
+        String removeSql = "DELETE FROM " + analyticsTable + " WHERE computedat < ?";
+        StringJoiner communities = new StringJoiner(COMMUNITY_SEPARATOR);
+        analysis.getCommunities().values().forEach(c -> communities.add(String.join(EMAIL_SEPARATOR, c)));
+        StringJoiner sizes = new StringJoiner(EMAIL_SEPARATOR);
+        analysis.getComponentSizes().forEach(s -> sizes.add(s.toString()));
+        StringJoiner path = new StringJoiner(EMAIL_SEPARATOR);
+        analysis.getUsersMostFrCom().forEach(u -> path.add(u.getEmail()));
+        Timestamp computedAt = Timestamp.valueOf(analysis.getComputedAt());
+        try (Connection connection = DriverManager.getConnection(url, username, password)) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement ps = connection.prepareStatement(sql);
+                 PreparedStatement removeStatement = connection.prepareStatement(removeSql)) {
+                ps.setTimestamp(1, computedAt);
+                ps.setInt(2, analysis.getNrCommunities());
+                ps.setString(3, sizes.toString());
+                ps.setString(4, communities.toString());
+                ps.setString(5, path.toString());
+                ps.setLong(6, analysis.getGraphVersion());
+                ps.executeUpdate();
+                removeStatement.setTimestamp(1, computedAt);
+                removeStatement.executeUpdate();
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            }
+        } catch (SQLException throwables) {
+            throw new DbException(throwables.getMessage());
+        }
+    }
+
+    /**
+     * @return the last analysis saved, null if no analysis was saved
+     */
+    @Override
+    public NetworkAnalysis getLatest() {
+        String sql = "SELECT computedat, communities, mostfriendlypath, graphversion FROM " + analyticsTable +
+                " ORDER BY computedat DESC LIMIT 1";
+        // the users of the path, in the order of the path; the users removed since are skipped
+        String pathSql = "SELECT u.user_id, u.firstname, u.lastname, u.email, u.password" +
+                " FROM unnest(?::varchar[]) WITH ORDINALITY p(email, i) JOIN users u ON u.email = p.email" +
+                " ORDER BY p.i";
+        try (Connection connection = DriverManager.getConnection(url, username, password);
+             PreparedStatement ps = connection.prepareStatement(sql)) {
+            ResultSet res = ps.executeQuery();
+            if (!res.next())
+                return null;
+            Map<Integer, List<String>> communities = new HashMap<>();
+            String text = res.getString("communities");
+            if (!text.isEmpty())
+                for (String community : text.split(COMMUNITY_SEPARATOR))
+                    communities.put(communities.size() + 1, new ArrayList<>(Arrays.asList(community.split(EMAIL_SEPARATOR))));
+            List<User> path = new ArrayList<>();
+            try (PreparedStatement pathStatement = connection.prepareStatement(pathSql)) {
+                pathStatement.setArray(1, connection.createArrayOf("varchar", res.getString("mostfriendlypath").split(EMAIL_SEPARATOR)));
+                ResultSet users = pathStatement.executeQuery();
+                while (users.next()) {
+                    User user = new User(users.getString("firstname"), users.getString("lastname"),
+                            users.getString("email"), users.getString("password"));
+                    user.setId(users.getLong("user_id"));
+                    path.add(user);
+                }
+            }
+            return new NetworkAnalysis(communities, path, res.getTimestamp("computedat").toLocalDateTime(),
+                    res.getLong("graphversion"));
+        } catch (SQLException throwables) {
+            throw new DbException(throwables.getMessage());
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package repository.db;
+
+import java.sql.*;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Streams the rows of a query through a server-side cursor, so that only one batch
+ * of rows is held in memory at a time.
+ * The stream holds its connection open until it is closed, so it has to be used
+ * in a try-with-resources block
+ */
+public class CursorStream {
+    // rows fetched from the server in one round trip
+    public static final int FETCH_SIZE = 1000;
+
+    /**
+     * Maps the current row of a result set to an object
+     */
+    public interface RowMapper<T> {
+        T map(ResultSet res) throws SQLException;
+    }
+
+    /**
+     * Sets the parameters of a statement
+     */
+    public interface Parameters {
+        void set(PreparedStatement ps) throws SQLException;
+    }
+
+    private CursorStream() {
+    }
+
+    /**
+     * @param sql - the query
+     * @param mapper - maps each row to an element of the stream
+     * @return a stream with the rows of the query, closing it closes the cursor and the connection
+     */
+    public static <T> Stream<T> of(String url, String username, String password, String sql, RowMapper<T> mapper) {
+        return of(url, username, password, sql, ps -> {}, mapper);
+    }
+
+    /**
+     * @param sql - the query
+     * @param parameters - sets the parameters of the query
+     * @param mapper - maps each row to an element of the stream
+     * @return a stream with the rows of the query, closing it closes the cursor and the connection
+     */
+    public static <T> Stream<T> of(String url, String username, String password, String sql,
+                                   Parameters parameters, RowMapper<T> mapper) {
+        Connection connection = null;
+        try {
+            connection = DriverManager.getConnection(url, username, password);
+            // the driver only uses a cursor inside a transaction
+            connection.setAutoCommit(false);
+            PreparedStatement ps = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(FETCH_SIZE);
+            parameters.set(ps);
+            ResultSet res = ps.executeQuery();
+            Connection conn = connection;
+            Spliterator<T> rows = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+                @Override
+                public boolean tryAdvance(Consumer<? super T> action) {
+                    try {
+                        if (!res.next())
+                            return false;
+                        action.accept(mapper.map(res));
+                        return true;
+                    } catch (SQLException e) {
+                        throw new DbException(e.getMessage());
+                    }
+                }
+            };
+            return StreamSupport.stream(rows, false).onClose(() -> close(conn));
+        } catch (SQLException e) {
+            if (connection != null)
+                close(connection);
+            throw new DbException(e.getMessage());
+        }
+    }
+
+    private static void close(Connection connection) {
+        try {
+            connection.rollback();
+            connection.close();
+        } catch (SQLException e) {
+            throw new DbException(e.getMessage());
+        }
+    }
+}
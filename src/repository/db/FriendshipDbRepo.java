@@ -5,13 +5,12 @@ import repository.FriendshipRepository;
 import repository.RepoException;
 import validator.Validator;
 
-import javax.swing.text.DateFormatter;
 import java.sql.*;
-import java.text.DateFormat;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class FriendshipDbRepo implements FriendshipRepository {
     private final String url;
@@ -19,6 +18,9 @@ public class FriendshipDbRepo implements FriendshipRepository {
     private final String password;
     private final String fshipsTable;
     private final Validator<Friendship> val;
+    // the ids of the two users with the emails given as the next two parameters
+    private static final String PAIR_IDS = "(SELECT (SELECT user_id FROM users WHERE email = ?) AS x," +
+            " (SELECT user_id FROM users WHERE email = ?) AS y)";
 
     public FriendshipDbRepo(String url, String username, String password, Validator<Friendship> val, String fshipsTable) {
         this.url = url;
@@ -26,23 +28,6 @@ public class FriendshipDbRepo implements FriendshipRepository {
         this.password = password;
         this.val = val;
         this.fshipsTable = fshipsTable;
-
-        String sql = "CREATE TABLE IF NOT EXISTS " + fshipsTable +
-                "(email1 varchar," +
-                " email2 varchar, " +
-                " date varchar DEFAULT NULL," +
-                " PRIMARY KEY (email1,email2)," +
-                " FOREIGN KEY (email1) references users(email) ON DELETE CASCADE," +
-                " FOREIGN KEY (email2) references users(email) ON DELETE CASCADE" +
-                ")";
-
-
-        try (Connection connection = DriverManager.getConnection(url, username, password)) {
-            PreparedStatement ps = connection.prepareStatement(sql);
-            ps.executeUpdate();
-        } catch (SQLException throwables) {
-            throw new DbException(throwables.getMessage());
-        }
     }
 
     /**
@@ -52,18 +37,21 @@ public class FriendshipDbRepo implements FriendshipRepository {
     @Override
     public void addFriendship(Friendship f) {
         val.validate(f);
-        if (getFriendship(f.getFirst(), f.getSecond()) != null)
-            throw new RepoException("These two users are already friends");
-        String sql = "INSERT INTO " + fshipsTable + " (email1, email2, date) VALUES (?, ?, ?)";
+        String sql = "INSERT INTO " + fshipsTable + " (user1, user2, date)" +
+                " SELECT LEAST(ids.x, ids.y), GREATEST(ids.x, ids.y), ? FROM " + PAIR_IDS + " ids" +
+                " ON CONFLICT DO NOTHING";
+        int inserted;
         try (Connection connection = DriverManager.getConnection(url, username, password);
              PreparedStatement ps = connection.prepareStatement(sql)) {
-            ps.setString(1, f.getFirst());
-            ps.setString(2, f.getSecond());
-            ps.setString(3, f.getDate().toString());
-            ps.executeUpdate();
+            ps.setString(1, f.getDate().toString());
+            ps.setString(2, f.getFirst());
+            ps.setString(3, f.getSecond());
+            inserted = ps.executeUpdate();
         } catch (SQLException throwables) {
             throw new DbException(throwables.getMessage());
         }
+        if (inserted == 0)
+            throw new RepoException("These two users are already friends");
     }
 
     /**
@@ -73,17 +61,16 @@ public class FriendshipDbRepo implements FriendshipRepository {
      * null otherwise
      */
     public Friendship getFriendship(String email1, String email2) {
-        String sql = "SELECT * FROM " + fshipsTable + " WHERE (email1 = ? AND email2 = ?) OR (email2 = ? AND email1 = ?)";
+        String sql = "SELECT f.date FROM " + PAIR_IDS + " ids JOIN " + fshipsTable + " f" +
+                " ON f.user1 = LEAST(ids.x, ids.y) AND f.user2 = GREATEST(ids.x, ids.y)";
         try (Connection connection = DriverManager.getConnection(url, username, password);
         PreparedStatement ps = connection.prepareStatement(sql)) {
             ps.setString(1, email1);
             ps.setString(2, email2);
-            ps.setString(3, email1);
-            ps.setString(4, email2);
             ResultSet res = ps.executeQuery();
             if (!res.next())
                 return null;
-            Friendship friendship =  new Friendship(res.getString("email1"), res.getString("email2"));
+            Friendship friendship =  new Friendship(email1, email2);
             String date =  res.getString("date");
             if (date != null)
                 friendship.setDate(LocalDate.parse(date));
@@ -105,16 +92,36 @@ public class FriendshipDbRepo implements FriendshipRepository {
      */
     @Override
     public void removeFriendship(Friendship f) {
-        if (getFriendship(f.getFirst(), f.getSecond()) == null)
-            throw new RepoException("These two users aren't friends");
-        String sql = "DELETE FROM " + fshipsTable + " WHERE (email1 = ? AND email2 = ?) OR (email2 = ? AND email1 = ?)";
+        String sql = "DELETE FROM " + fshipsTable + " f USING " + PAIR_IDS + " ids" +
+                " WHERE f.user1 = LEAST(ids.x, ids.y) AND f.user2 = GREATEST(ids.x, ids.y)";
+        int removed;
         try (Connection connection = DriverManager.getConnection(url, username, password);
              PreparedStatement ps = connection.prepareStatement(sql)) {
             ps.setString(1, f.getFirst());
             ps.setString(2, f.getSecond());
-            ps.setString(3, f.getFirst());
-            ps.setString(4, f.getSecond());
-            ps.executeUpdate();
+            removed = ps.executeUpdate();
+        } catch (SQLException e) {
+            throw new DbException(e.getMessage());
+        }
+        if (removed == 0)
+            throw new RepoException("These two users aren't friends");
+    }
+
+    /**
+     * Verifies if two users are friends, with a primary key lookup
+     * @param email1 - String the email of the first user
+     * @param email2 - String the email of the second user
+     * @return true if the friendship of the two users is saved in the database, false otherwise
+     */
+    @Override
+    public boolean areFriends(String email1, String email2) {
+        String sql = "SELECT 1 FROM " + PAIR_IDS + " ids JOIN " + fshipsTable + " f" +
+                " ON f.user1 = LEAST(ids.x, ids.y) AND f.user2 = GREATEST(ids.x, ids.y)";
+        try (Connection connection = DriverManager.getConnection(url, username, password);
+             PreparedStatement ps = connection.prepareStatement(sql)) {
+            ps.setString(1, email1);
+            ps.setString(2, email2);
+            return ps.executeQuery().next();
         } catch (SQLException e) {
             throw new DbException(e.getMessage());
         }
@@ -165,22 +172,25 @@ public class FriendshipDbRepo implements FriendshipRepository {
      *  @return List<Friendship>
      */
     public List<Friendship> getAll() {
-        List<Friendship> fships = new ArrayList<>();
-        String sql = "SELECT * FROM " + fshipsTable;
-        try (Connection connection = DriverManager.getConnection(url, username, password);
-             PreparedStatement ps = connection.prepareStatement(sql)) {
-            ResultSet res = ps.executeQuery();
-            while (res.next()) {
-                String email1 = res.getString("email1");
-                String email2 = res.getString("email2");
-                fships.add(new Friendship(email1, email2));
-            }
-            return fships;
-        } catch (SQLException e) {
-            throw new DbException(e.getMessage());
+        try (Stream<Friendship> fships = stream()) {
+            return fships.collect(Collectors.toList());
         }
     }
 
+    /**
+     * @return the friendships saved in the database, read through a cursor; the stream has to be closed
+     */
+    @Override
+    public Stream<Friendship> stream() {
+        String sql = "SELECT a.email AS email1, b.email AS email2, f.date FROM " + fshipsTable + " f" +
+                " JOIN users a ON a.user_id = f.user1 JOIN users b ON b.user_id = f.user2";
+        return CursorStream.of(url, username, password, sql, res -> {
+            String date = res.getString("date");
+            return new Friendship(res.getString("email1"), res.getString("email2"),
+                    date == null ? null : LocalDate.parse(date));
+        });
+    }
+
     /**
      * @param email - String the email of the user
      * @return a list with the emails of a user's friends
@@ -188,11 +198,21 @@ public class FriendshipDbRepo implements FriendshipRepository {
     @Override
     public List<String> getUserFriends(String email) {
         List<String> friends = new ArrayList<>();
-        for (Friendship f : getAll()) {
-            if (f.getFirst().equals(email))
-                friends.add(f.getSecond());
-            else if (f.getSecond().equals(email))
-                friends.add(f.getFirst());
+        // one probe on the primary key for user1 and one on the index of user2
+        String sql = "SELECT u.email FROM " + fshipsTable + " f JOIN users u ON u.user_id = f.user2" +
+                " WHERE f.user1 = (SELECT user_id FROM users WHERE email = ?)" +
+                " UNION ALL" +
+                " SELECT u.email FROM " + fshipsTable + " f JOIN users u ON u.user_id = f.user1" +
+                " WHERE f.user2 = (SELECT user_id FROM users WHERE email = ?)";
+        try (Connection connection = DriverManager.getConnection(url, username, password);
+             PreparedStatement ps = connection.prepareStatement(sql)) {
+            ps.setString(1, email);
+            ps.setString(2, email);
+            ResultSet res = ps.executeQuery();
+            while (res.next())
+                friends.add(res.getString("email"));
+        } catch (SQLException e) {
+            throw new DbException(e.getMessage());
         }
         return friends;
     }
@@ -203,14 +223,7 @@ public class FriendshipDbRepo implements FriendshipRepository {
      */
     @Override
     public List<String> getUserFriendsAll(String email) {
-        List<String> friends = new ArrayList<>();
-        for (Friendship f : getAll()) {
-            if (f.getFirst().equals(email))
-                friends.add(f.getSecond());
-            else if (f.getSecond().equals(email))
-                friends.add(f.getFirst());
-        }
-        return friends;
+        return getUserFriends(email);
     }
 
     /**
@@ -219,11 +232,11 @@ public class FriendshipDbRepo implements FriendshipRepository {
      */
     @Override
     public void removeUserFships(String email) {
-        String sql = "DELETE FROM " + fshipsTable + " WHERE email1 = ? OR email2 = ?";
+        String sql = "DELETE FROM " + fshipsTable + " f USING users u" +
+                " WHERE u.email = ? AND (f.user1 = u.user_id OR f.user2 = u.user_id)";
         try (Connection connection = DriverManager.getConnection(url, username, password);
         PreparedStatement ps = connection.prepareStatement(sql)) {
             ps.setString(1, email);
-            ps.setString(2, email);
             ps.executeUpdate();
         } catch (SQLException throwables) {
             throw new DbException(throwables.getMessage());
@@ -8,42 +8,40 @@ import repository.FriendshipRequestRepository;
 import repository.RepoException;
 
 import java.sql.*;
-import java.util.ArrayList;
-import java.util.List;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class FriendshipRequestDbRepo implements FriendshipRequestRepository {
     private String url;
     private String username;
     private String password;
     private String tableName;
+    private String fshipsTable;
+    // the id of the user with the email given as parameter
+    private static final String USER_ID = "(SELECT user_id FROM users WHERE email = ?)";
 
     public FriendshipRequestDbRepo(String url, String username, String password, String tableName){
+        this(url, username, password, tableName, "friendships");
+    }
+
+    /**
+     * @param fshipsTable - the table where the friendships of the accepted requests are saved
+     */
+    public FriendshipRequestDbRepo(String url, String username, String password, String tableName, String fshipsTable){
         this.url = url;
         this.username = username;
         this.password = password;
         this.tableName = tableName;
-        String sql = "CREATE TABLE IF NOT EXISTS " + tableName +
-                "(email1 varchar," +
-                " email2 varchar," +
-                " requeststate varchar DEFAULT 'PENDING'," +
-                " PRIMARY KEY (email1,email2)," +
-                " FOREIGN KEY (email1) references users(email) ON DELETE CASCADE," +
-                " FOREIGN KEY (email2) references users(email) ON DELETE CASCADE" +
-                ")";
-        try (Connection connection = DriverManager.getConnection(url, username, password)) {
-            PreparedStatement ps = connection.prepareStatement(sql);
-            ps.executeUpdate();
-        } catch (SQLException throwables) {
-            throw new DbException(throwables.getMessage());
-        }
-
+        this.fshipsTable = fshipsTable;
     }
 
     public void addRequest(FriendshipRequest request) {
         if(getRequest(request.getFirst(), request.getSecond()) != null){
             throw new RepoException("There is already a request send by user");
         }
-        String sql = "INSERT INTO " + tableName + " (email1, email2, requeststate) values (?, ?, ?) ";
+        String sql = "INSERT INTO " + tableName + " (user1, user2, requeststate) values (" + USER_ID + ", " + USER_ID + ", ?) ";
         try(Connection connection = DriverManager.getConnection(url, username, password)){
             PreparedStatement ps = connection.prepareStatement(sql);
             ps.setString(1, request.getFirst());
@@ -67,39 +65,45 @@ public class FriendshipRequestDbRepo implements FriendshipRequestRepository {
     }
 
     public int size() {
-        return getAll().size();
+        String sql = "SELECT COUNT(*) AS size FROM " + tableName;
+        try (Connection connection = DriverManager.getConnection(url, username, password);
+             PreparedStatement ps = connection.prepareStatement(sql)) {
+            ResultSet res = ps.executeQuery();
+            if (res.next())
+                return res.getInt("size");
+        } catch (SQLException e) {
+            throw new DbException(e.getMessage());
+        }
+        return 0;
     }
 
     public List<FriendshipRequest> getAll() {
-        ArrayList<FriendshipRequest> friendshipRequests = new ArrayList<>();
-        String sql = "SELECT * FROM " + tableName;
-        try(Connection connection = DriverManager.getConnection(url,username,password)){
-            PreparedStatement ps = connection.prepareStatement(sql);
-            ResultSet resultSet = ps.executeQuery();
-            while(resultSet.next()){
-                String requestEmail1 = resultSet.getString("email1");
-                String requestEmail2 = resultSet.getString("email2");
-                REQUESTSTATE requestState = REQUESTSTATE.valueOf(resultSet.getString("requeststate"));
-                friendshipRequests.add(new FriendshipRequest(requestEmail1,requestEmail2,requestState));
-            }
-        } catch (SQLException throwables) {
-            throw new DbException(throwables.getMessage());
+        try (Stream<FriendshipRequest> requests = stream()) {
+            return requests.collect(Collectors.toList());
         }
-        return friendshipRequests;
+    }
+
+    /**
+     * @return the requests saved in the database, read through a cursor; the stream has to be closed
+     */
+    @Override
+    public Stream<FriendshipRequest> stream() {
+        String sql = "SELECT a.email AS email1, b.email AS email2, r.requeststate FROM " + tableName + " r" +
+                " JOIN users a ON a.user_id = r.user1 JOIN users b ON b.user_id = r.user2";
+        return CursorStream.of(url, username, password, sql, res -> new FriendshipRequest(res.getString("email1"),
+                res.getString("email2"), REQUESTSTATE.valueOf(res.getString("requeststate"))));
     }
 
     public FriendshipRequest getRequest(String email1, String email2) {
-        String sql = "SELECT * FROM " + tableName + " WHERE (email1 = ? AND email2 = ?)";
+        String sql = "SELECT requeststate FROM " + tableName + " WHERE (user1 = " + USER_ID + " AND user2 = " + USER_ID + ")";
         try(Connection connection = DriverManager.getConnection(url,username,password)){
             PreparedStatement ps = connection.prepareStatement(sql);
             ps.setString(1, email1);
             ps.setString(2, email2);
             ResultSet resultSet = ps.executeQuery();
             if(resultSet.next()){
-                String requestEmail1 = resultSet.getString("email1");
-                String requestEmail2 = resultSet.getString("email2");
                 REQUESTSTATE requestState = REQUESTSTATE.valueOf(resultSet.getString("requeststate"));
-                return new FriendshipRequest(requestEmail1,requestEmail2,requestState);
+                return new FriendshipRequest(email1,email2,requestState);
             }
             else
                 return null;
@@ -114,7 +118,7 @@ public class FriendshipRequestDbRepo implements FriendshipRequestRepository {
     public void removeRequest(FriendshipRequest friendshipRequest) {
         if(getRequest(friendshipRequest.getFirst(),friendshipRequest.getSecond()) == null)
             throw new RepoException("Friendship request doesn't exists");
-        String sql = "DELETE FROM " + tableName + " WHERE (email1 = ? AND email2 = ?) ";
+        String sql = "DELETE FROM " + tableName + " WHERE (user1 = " + USER_ID + " AND user2 = " + USER_ID + ") ";
         try(Connection connection = DriverManager.getConnection(url,username, password)){
             PreparedStatement ps = connection.prepareStatement(sql);
             ps.setString(1, friendshipRequest.getFirst());
@@ -127,14 +131,14 @@ public class FriendshipRequestDbRepo implements FriendshipRequestRepository {
     }
 
     public boolean isEmpty() {
-        return getAll().isEmpty();
+        return size() == 0;
     }
 
     @Override
     public void update(FriendshipRequest request) {
         String sql = "UPDATE " + tableName +
                 " SET requeststate = ?" +
-                " WHERE (email1 = ? AND email2 = ?)";
+                " WHERE (user1 = " + USER_ID + " AND user2 = " + USER_ID + ")";
         try(Connection connection = DriverManager.getConnection(url,username,password)){
             PreparedStatement ps = connection.prepareStatement(sql);
             ps.setString(1, request.getState().toString());
@@ -154,7 +158,8 @@ public class FriendshipRequestDbRepo implements FriendshipRequestRepository {
     @Override
     public List<String> getUserFriendRequests(String email) {
         ArrayList<String> friends = new ArrayList<>();
-        String sql = "SELECT * FROM " + tableName + " WHERE email2 = ? AND requeststate = ?";
+        String sql = "SELECT u.email AS email1 FROM " + tableName + " r JOIN users u ON u.user_id = r.user1" +
+                " WHERE r.user2 = " + USER_ID + " AND r.requeststate = ?";
         try (Connection connection = DriverManager.getConnection(url, username, password);
              PreparedStatement ps = connection.prepareStatement(sql)) {
             ps.setString(1, email);
@@ -169,4 +174,114 @@ public class FriendshipRequestDbRepo implements FriendshipRequestRepository {
         }
         return friends;
     }
+
+    /**
+     * Returns the states of the requests sent by the requesters to the receiver, with one query
+     * @param receiver - String the email of the user that received the requests
+     * @param requesters - the emails of the users that sent the requests
+     * @return map with key the email of a requester, value the state of its request;
+     * requesters without a request are missing from the map
+     */
+    @Override
+    public Map<String, REQUESTSTATE> getRequestStates(String receiver, Collection<String> requesters) {
+        Map<String, REQUESTSTATE> states = new HashMap<>();
+        if (requesters.isEmpty())
+            return states;
+        String sql = "SELECT u.email AS email1, r.requeststate FROM " + tableName + " r JOIN users u ON u.user_id = r.user1" +
+                " WHERE r.user2 = " + USER_ID + " AND u.email = ANY (?)";
+        try (Connection connection = DriverManager.getConnection(url, username, password);
+             PreparedStatement ps = connection.prepareStatement(sql)) {
+            ps.setString(1, receiver);
+            ps.setArray(2, connection.createArrayOf("varchar", requesters.toArray()));
+            ResultSet res = ps.executeQuery();
+            while (res.next())
+                states.put(res.getString("email1"), REQUESTSTATE.valueOf(res.getString("requeststate")));
+        } catch (SQLException throwables) {
+            throw new DbException(throwables.getMessage());
+        }
+        return states;
+    }
+
+    /**
+     * Approves the pending requests sent by the requesters to the receiver and saves the friendships,
+     * in one transaction: one set-based update of the requests and one batched insert of the friendships
+     * @param receiver - String the email of the user that received the requests
+     * @param requesters - the emails of the users that sent the requests
+     * @return the emails of the requesters whose requests were pending and are now approved
+     */
+    @Override
+    public List<String> acceptRequests(String receiver, Collection<String> requesters) {
+        List<String> accepted = new ArrayList<>();
+        if (requesters.isEmpty())
+            return accepted;
+        String insertSql = "INSERT INTO " + fshipsTable + " (user1, user2, date) VALUES (?, ?, ?)" +
+                " ON CONFLICT DO NOTHING";
+        try (Connection connection = DriverManager.getConnection(url, username, password)) {
+            connection.setAutoCommit(false);
+            try {
+                List<long[]> pairs = new ArrayList<>();
+                accepted = updatePending(connection, receiver, requesters, REQUESTSTATE.APPROVED, pairs);
+                String date = LocalDate.now().toString();
+                try (PreparedStatement ps = connection.prepareStatement(insertSql)) {
+                    for (long[] pair : pairs) {
+                        ps.setLong(1, Math.min(pair[0], pair[1]));
+                        ps.setLong(2, Math.max(pair[0], pair[1]));
+                        ps.setString(3, date);
+                        ps.addBatch();
+                    }
+                    ps.executeBatch();
+                }
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            }
+        } catch (SQLException throwables) {
+            throw new DbException(throwables.getMessage());
+        }
+        return accepted;
+    }
+
+    /**
+     * Rejects the pending requests sent by the requesters to the receiver, with one set-based update
+     * @param receiver - String the email of the user that received the requests
+     * @param requesters - the emails of the users that sent the requests
+     * @return the emails of the requesters whose requests were pending and are now rejected
+     */
+    @Override
+    public List<String> rejectRequests(String receiver, Collection<String> requesters) {
+        if (requesters.isEmpty())
+            return new ArrayList<>();
+        try (Connection connection = DriverManager.getConnection(url, username, password)) {
+            return updatePending(connection, receiver, requesters, REQUESTSTATE.REJECTED, null);
+        } catch (SQLException throwables) {
+            throw new DbException(throwables.getMessage());
+        }
+    }
+
+    /**
+     * Sets the state of the pending requests sent by the requesters to the receiver
+     * @param pairs - if not null, receives the ids (requester, receiver) of the updated requests
+     * @return the emails of the requesters whose requests were updated
+     */
+    private List<String> updatePending(Connection connection, String receiver, Collection<String> requesters,
+                                       REQUESTSTATE state, List<long[]> pairs) throws SQLException {
+        List<String> updated = new ArrayList<>();
+        String sql = "UPDATE " + tableName + " r SET requeststate = ? FROM users u" +
+                " WHERE u.user_id = r.user1 AND r.user2 = " + USER_ID + " AND u.email = ANY (?) AND r.requeststate = ?" +
+                " RETURNING u.email AS email1, r.user1, r.user2";
+        try (PreparedStatement ps = connection.prepareStatement(sql)) {
+            ps.setString(1, state.toString());
+            ps.setString(2, receiver);
+            ps.setArray(3, connection.createArrayOf("varchar", requesters.toArray()));
+            ps.setString(4, REQUESTSTATE.PENDING.toString());
+            ResultSet res = ps.executeQuery();
+            while (res.next()) {
+                updated.add(res.getString("email1"));
+                if (pairs != null)
+                    pairs.add(new long[]{res.getLong("user1"), res.getLong("user2")});
+            }
+        }
+        return updated;
+    }
 }
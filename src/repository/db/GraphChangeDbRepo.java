@@ -0,0 +1,91 @@
+package repository.db;
+
+import domain.network.GraphChange;
+import repository.GraphChangeRepository;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads the changes of the users and the friendships logged by the triggers of the schema
+ */
+public class GraphChangeDbRepo implements GraphChangeRepository {
+    private final String url, username, password;
+
+    public GraphChangeDbRepo(String url, String username, String password) {
+        this.url = url;
+        this.username = username;
+        this.password = password;
+    }
+
+    @Override
+    public long getVersion() {
+        String sql = "SELECT version FROM graph_version";
+        try (Connection connection = DriverManager.getConnection(url, username, password);
+             PreparedStatement ps = connection.prepareStatement(sql)) {
+            ResultSet res = ps.executeQuery();
+            return res.next() ? res.getLong("version") : 0;
+        } catch (SQLException throwables) {
+            throw new DbException(throwables.getMessage());
+        }
+    }
+
+    /**
+     * The changes and the pruned version are read in one repeatable read transaction,
+     * so a prune running meanwhile can't remove changes that are then missing from the list
+     */
+    @Override
+    public List<GraphChange> getChangesSince(long version) {
+        String prunedSql = "SELECT pruned FROM graph_version";
+        String sql = "SELECT version, email1, email2, added FROM graph_changes WHERE version > ? ORDER BY version";
+        try (Connection connection = DriverManager.getConnection(url, username, password)) {
+            connection.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+            connection.setAutoCommit(false);
+            try (PreparedStatement prunedStatement = connection.prepareStatement(prunedSql);
+                 PreparedStatement ps = connection.prepareStatement(sql)) {
+                ResultSet pruned = prunedStatement.executeQuery();
+                if (pruned.next() && pruned.getLong("pruned") > version) {
+                    connection.commit();
+                    return null;
+                }
+                ps.setLong(1, version);
+                ResultSet res = ps.executeQuery();
+                List<GraphChange> changes = new ArrayList<>();
+                while (res.next())
+                    changes.add(new GraphChange(res.getLong("version"), res.getString("email1"),
+                            res.getString("email2"), res.getBoolean("added")));
+                connection.commit();
+                return changes;
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            }
+        } catch (SQLException throwables) {
+            throw new DbException(throwables.getMessage());
+        }
+    }
+
+    @Override
+    public void prune(long version) {
+        String sql = "UPDATE graph_version SET pruned = ? WHERE pruned < ?";
+        String removeSql = "DELETE FROM graph_changes WHERE version <= ?";
+        try (Connection connection = DriverManager.getConnection(url, username, password)) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement ps = connection.prepareStatement(sql);
+                 PreparedStatement removeStatement = connection.prepareStatement(removeSql)) {
+                ps.setLong(1, version);
+                ps.setLong(2, version);
+                ps.executeUpdate();
+                removeStatement.setLong(1, version);
+                removeStatement.executeUpdate();
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            }
+        } catch (SQLException throwables) {
+            throw new DbException(throwables.getMessage());
+        }
+    }
+}
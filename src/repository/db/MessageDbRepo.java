@@ -6,6 +6,7 @@ import validator.Validator;
 
 import java.sql.*;
 import java.time.LocalDateTime;
+import java.util.stream.Stream;
 
 public class MessageDbRepo {
     private final String url, username, password, messagesTable;
@@ -17,25 +18,6 @@ public class MessageDbRepo {
         this.password = password;
         this.messagesTable = messagesTable;
         this.validator = validator;
-        String sql = "CREATE TABLE IF NOT EXISTS " + messagesTable +
-                "(id serial, " +
-                " sender varchar NOT NULL," +
-                " messagetext varchar NOT NULL," +
-                " sentdate varchar NOT NULL," +
-                " idmsgrepliedto int DEFAULT NULL," +
-                " PRIMARY KEY (id)," +
-                " FOREIGN KEY (sender) REFERENCES users (email) ON DELETE CASCADE," +
-                " FOREIGN KEY (idmsgrepliedto) REFERENCES messages (id) ON DELETE CASCADE" +
-                ");" +
-                " CREATE UNIQUE index IF NOT EXISTS " + messagesTable + "_id_uindex ON " +
-                messagesTable + " (id);";
-
-        try (Connection connection = DriverManager.getConnection(url, username, password);
-             PreparedStatement ps = connection.prepareStatement(sql)) {
-            ps.executeUpdate();
-        } catch (SQLException throwables) {
-            throw new DbException(throwables.getMessage());
-        }
     }
 
     /**
@@ -44,7 +26,8 @@ public class MessageDbRepo {
      */
     public Message save(Message message) {
         validator.validate(message);
-        String sql = "INSERT INTO " + messagesTable + " (sender, messagetext, sentdate, idmsgrepliedto) VALUES (?, ?, ?, ?)";
+        String sql = "INSERT INTO " + messagesTable + " (sender_id, messagetext, sentdate, idmsgrepliedto)" +
+                " VALUES ((SELECT user_id FROM users WHERE email = ?), ?, ?, ?)";
         try (Connection connection = DriverManager.getConnection(url, username, password);
         PreparedStatement ps = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
             ps.setString(1, message.getSender());
@@ -70,7 +53,8 @@ public class MessageDbRepo {
      * null if no message has the given id
      */
     public Message getMessage(int id) {
-        String sql = "SELECT * FROM " + messagesTable + " WHERE id = ?";
+        String sql = "SELECT u.email AS sender, m.messagetext, m.sentdate, m.idmsgrepliedto FROM " + messagesTable + " m" +
+                " JOIN users u ON u.user_id = m.sender_id WHERE m.id = ?";
         Message message;
         try (Connection connection = DriverManager.getConnection(url, username, password);
         PreparedStatement ps = connection.prepareStatement(sql)) {
@@ -91,6 +75,14 @@ public class MessageDbRepo {
         }
     }
 
+    /**
+     * @return the dates the messages were sent, read through a cursor; the stream has to be closed
+     */
+    public Stream<LocalDateTime> sentDates() {
+        String sql = "SELECT sentdate FROM " + messagesTable;
+        return CursorStream.of(url, username, password, sql, res -> LocalDateTime.parse(res.getString("sentdate")));
+    }
+
     /**
      * @return int - the number of messages saved in the database
      */
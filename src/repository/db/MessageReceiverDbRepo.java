@@ -17,20 +17,6 @@ public class MessageReceiverDbRepo {
         this.password = password;
         this.receiversTable = receiversTable;
         this.validator = validator;
-        String sql = "CREATE TABLE IF NOT EXISTS " + receiversTable +
-                "(idmessage int NOT NULL," +
-                " receiver varchar NOT NULL," +
-                " PRIMARY KEY (idmessage, receiver)," +
-                " FOREIGN KEY (idmessage) REFERENCES messages (id) ON DELETE CASCADE," +
-                " FOREIGN KEY (receiver) REFERENCES users (email) ON DELETE CASCADE" +
-                ");";
-
-        try (Connection connection = DriverManager.getConnection(url, username, password);
-        PreparedStatement ps = connection.prepareStatement(sql)) {
-            ps.executeUpdate();
-        } catch (SQLException throwables) {
-            throw new DbException(throwables.getMessage());
-        }
     }
 
     /**
@@ -39,7 +25,8 @@ public class MessageReceiverDbRepo {
      */
     public void save(MessageReceiver messageReceiver) {
         validator.validate(messageReceiver);
-        String sql = "INSERT INTO " + receiversTable + " (idmessage, receiver) VALUES (?, ?)";
+        String sql = "INSERT INTO " + receiversTable + " (idmessage, receiver_id)" +
+                " VALUES (?, (SELECT user_id FROM users WHERE email = ?))";
         try (Connection connection = DriverManager.getConnection(url, username, password);
         PreparedStatement ps = connection.prepareStatement(sql)) {
             ps.setInt(1, messageReceiver.getIdMessage());
@@ -88,7 +75,7 @@ public class MessageReceiverDbRepo {
     public List<Integer> getMessageIdsReceivedBy(String email) {
         List<Integer> messages = new ArrayList<>();
         String sql = "SELECT idmessage FROM " + receiversTable +
-                " WHERE receiver = ?";
+                " WHERE receiver_id = (SELECT user_id FROM users WHERE email = ?)";
         try (Connection connection = DriverManager.getConnection(url, username, password);
         PreparedStatement ps = connection.prepareStatement(sql)) {
             ps.setString(1, email);
@@ -103,8 +90,8 @@ public class MessageReceiverDbRepo {
 
     public List<String> getMessageReceivers(int idMessage) {
         List<String> receivers = new ArrayList<>();
-        String sql = "SELECT receiver FROM " + receiversTable +
-                " WHERE idmessage = ?";
+        String sql = "SELECT u.email AS receiver FROM " + receiversTable + " r" +
+                " JOIN users u ON u.user_id = r.receiver_id WHERE r.idmessage = ?";
         try (Connection connection = DriverManager.getConnection(url, username, password);
         PreparedStatement ps = connection.prepareStatement(sql)) {
             ps.setInt(1, idMessage);
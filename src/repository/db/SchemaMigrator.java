@@ -0,0 +1,303 @@
+package repository.db;
+
+import java.sql.*;
+import java.util.List;
+
+public class SchemaMigrator {
+    private final String url, username, password;
+    // key of the advisory lock held while migrating, so two processes don't apply the same migration
+    private static final long LOCK_KEY = 7_341_002_030L;
+
+    /**
+     * A change of the schema, applied once and recorded in the schema_version table
+     */
+    public static class Migration {
+        private final int version;
+        private final String description;
+        private final boolean transactional;
+        private final String[] statements;
+
+        /**
+         * @param version - int the position of the migration, migrations are applied in increasing order
+         * @param description - String what the migration does
+         * @param transactional - false for statements that can't run in a transaction block,
+         *                      like CREATE INDEX CONCURRENTLY; each statement is then committed on its own
+         * @param statements - the sql statements of the migration
+         */
+        public Migration(int version, String description, boolean transactional, String... statements) {
+            this.version = version;
+            this.description = description;
+            this.transactional = transactional;
+            this.statements = statements;
+        }
+
+        public int getVersion() {
+            return version;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+    }
+
+    /**
+     * The migrations of the schema, in order. A migration that was released is never changed,
+     * a new schema change is appended with the next version
+     */
+    public static final List<Migration> MIGRATIONS = List.of(
+            new Migration(1, "tables keyed by email", true,
+                    "CREATE TABLE IF NOT EXISTS users" +
+                            "(firstname varchar NOT NULL," +
+                            " lastname varchar NOT NULL, " +
+                            " email varchar NOT NULL, " +
+                            " PRIMARY KEY (email) " +
+                            ")",
+                    "ALTER TABLE users ADD COLUMN IF NOT EXISTS password varchar DEFAULT '000000'",
+                    "CREATE TABLE IF NOT EXISTS friendships" +
+                            "(email1 varchar," +
+                            " email2 varchar, " +
+                            " date varchar DEFAULT NULL," +
+                            " PRIMARY KEY (email1,email2)," +
+                            " FOREIGN KEY (email1) references users(email) ON DELETE CASCADE," +
+                            " FOREIGN KEY (email2) references users(email) ON DELETE CASCADE" +
+                            ")",
+                    "CREATE TABLE IF NOT EXISTS requests" +
+                            "(email1 varchar," +
+                            " email2 varchar," +
+                            " requeststate varchar DEFAULT 'PENDING'," +
+                            " PRIMARY KEY (email1,email2)," +
+                            " FOREIGN KEY (email1) references users(email) ON DELETE CASCADE," +
+                            " FOREIGN KEY (email2) references users(email) ON DELETE CASCADE" +
+                            ")",
+                    "CREATE TABLE IF NOT EXISTS messages" +
+                            "(id serial, " +
+                            " sender varchar NOT NULL," +
+                            " messagetext varchar NOT NULL," +
+                            " sentdate varchar NOT NULL," +
+                            " idmsgrepliedto int DEFAULT NULL," +
+                            " PRIMARY KEY (id)," +
+                            " FOREIGN KEY (sender) REFERENCES users (email) ON DELETE CASCADE," +
+                            " FOREIGN KEY (idmsgrepliedto) REFERENCES messages (id) ON DELETE CASCADE" +
+                            ")",
+                    "CREATE UNIQUE index IF NOT EXISTS messages_id_uindex ON messages (id)",
+                    "CREATE TABLE IF NOT EXISTS receivers" +
+                            "(idmessage int NOT NULL," +
+                            " receiver varchar NOT NULL," +
+                            " PRIMARY KEY (idmessage, receiver)," +
+                            " FOREIGN KEY (idmessage) REFERENCES messages (id) ON DELETE CASCADE," +
+                            " FOREIGN KEY (receiver) REFERENCES users (email) ON DELETE CASCADE" +
+                            ")"),
+            // the checks on the columns keep the migration a no-op on databases
+            // that were migrated by the repositories before the schema was versioned
+            new Migration(2, "bigint identity keys for users, canonical friendship pairs", true,
+                    "DO $$ BEGIN" +
+                            " IF NOT EXISTS (SELECT 1 FROM information_schema.columns" +
+                            "  WHERE table_name = 'users' AND column_name = 'user_id') THEN" +
+                            "  ALTER TABLE users ADD COLUMN user_id bigint GENERATED BY DEFAULT AS IDENTITY;" +
+                            "  ALTER TABLE users DROP CONSTRAINT users_pkey CASCADE;" +
+                            "  ALTER TABLE users ADD PRIMARY KEY (user_id), ADD UNIQUE (email);" +
+                            " END IF;" +
+                            " END $$",
+                    "DO $$ BEGIN" +
+                            " IF EXISTS (SELECT 1 FROM information_schema.columns" +
+                            "  WHERE table_name = 'friendships' AND column_name = 'email1') THEN" +
+                            "  ALTER TABLE friendships DROP CONSTRAINT IF EXISTS friendships_canonical_pair," +
+                            "   ADD COLUMN user1 bigint, ADD COLUMN user2 bigint;" +
+                            "  UPDATE friendships f SET user1 = LEAST(a.user_id, b.user_id), user2 = GREATEST(a.user_id, b.user_id)" +
+                            "   FROM users a, users b WHERE a.email = f.email1 AND b.email = f.email2;" +
+                            "  DELETE FROM friendships WHERE user1 IS NULL OR user2 IS NULL;" +
+                            "  DELETE FROM friendships a USING friendships b" +
+                            "   WHERE a.user1 = b.user1 AND a.user2 = b.user2 AND a.ctid > b.ctid;" +
+                            "  ALTER TABLE friendships DROP COLUMN email1, DROP COLUMN email2," +
+                            "   ADD PRIMARY KEY (user1, user2)," +
+                            "   ADD FOREIGN KEY (user1) REFERENCES users(user_id) ON DELETE CASCADE," +
+                            "   ADD FOREIGN KEY (user2) REFERENCES users(user_id) ON DELETE CASCADE," +
+                            "   ADD CONSTRAINT friendships_canonical_pair CHECK (user1 < user2);" +
+                            " END IF;" +
+                            " END $$",
+                    "DO $$ BEGIN" +
+                            " IF EXISTS (SELECT 1 FROM information_schema.columns" +
+                            "  WHERE table_name = 'requests' AND column_name = 'email1') THEN" +
+                            "  ALTER TABLE requests ADD COLUMN user1 bigint, ADD COLUMN user2 bigint;" +
+                            "  UPDATE requests r SET user1 = a.user_id, user2 = b.user_id" +
+                            "   FROM users a, users b WHERE a.email = r.email1 AND b.email = r.email2;" +
+                            "  DELETE FROM requests WHERE user1 IS NULL OR user2 IS NULL;" +
+                            "  ALTER TABLE requests DROP COLUMN email1, DROP COLUMN email2," +
+                            "   ADD PRIMARY KEY (user1, user2)," +
+                            "   ADD FOREIGN KEY (user1) REFERENCES users(user_id) ON DELETE CASCADE," +
+                            "   ADD FOREIGN KEY (user2) REFERENCES users(user_id) ON DELETE CASCADE;" +
+                            " END IF;" +
+                            " END $$",
+                    "DO $$ BEGIN" +
+                            " IF EXISTS (SELECT 1 FROM information_schema.columns" +
+                            "  WHERE table_name = 'messages' AND column_name = 'sender') THEN" +
+                            "  ALTER TABLE messages ADD COLUMN sender_id bigint;" +
+                            "  UPDATE messages m SET sender_id = u.user_id FROM users u WHERE u.email = m.sender;" +
+                            "  DELETE FROM messages WHERE sender_id IS NULL;" +
+                            "  ALTER TABLE messages DROP COLUMN sender," +
+                            "   ALTER COLUMN sender_id SET NOT NULL," +
+                            "   ADD FOREIGN KEY (sender_id) REFERENCES users (user_id) ON DELETE CASCADE;" +
+                            " END IF;" +
+                            " END $$",
+                    "DO $$ BEGIN" +
+                            " IF EXISTS (SELECT 1 FROM information_schema.columns" +
+                            "  WHERE table_name = 'receivers' AND column_name = 'receiver') THEN" +
+                            "  ALTER TABLE receivers ADD COLUMN receiver_id bigint;" +
+                            "  UPDATE receivers r SET receiver_id = u.user_id FROM users u WHERE u.email = r.receiver;" +
+                            "  DELETE FROM receivers WHERE receiver_id IS NULL;" +
+                            "  ALTER TABLE receivers DROP COLUMN receiver," +
+                            "   ALTER COLUMN receiver_id SET NOT NULL," +
+                            "   ADD PRIMARY KEY (idmessage, receiver_id)," +
+                            "   ADD FOREIGN KEY (receiver_id) REFERENCES users (user_id) ON DELETE CASCADE;" +
+                            " END IF;" +
+                            " END $$"),
+            // built without blocking the writes; the leading columns are covered by the primary keys
+            new Migration(3, "indexes on the foreign keys", false,
+                    "CREATE INDEX CONCURRENTLY IF NOT EXISTS friendships_user2_index ON friendships (user2)",
+                    "CREATE INDEX CONCURRENTLY IF NOT EXISTS requests_user2_index ON requests (user2)",
+                    "CREATE INDEX CONCURRENTLY IF NOT EXISTS messages_sender_id_index ON messages (sender_id)",
+                    "CREATE INDEX CONCURRENTLY IF NOT EXISTS messages_idmsgrepliedto_index ON messages (idmsgrepliedto)",
+                    "CREATE INDEX CONCURRENTLY IF NOT EXISTS receivers_receiver_id_index ON receivers (receiver_id)"),
+            new Migration(4, "materialized network analytics", true,
+                    "CREATE TABLE IF NOT EXISTS network_analytics" +
+                            "(id serial," +
+                            " computedat timestamp NOT NULL," +
+                            " nrcommunities int NOT NULL," +
+                            " componentsizes varchar NOT NULL," +
+                            " communities text NOT NULL," +
+                            " mostfriendlypath text NOT NULL," +
+                            " PRIMARY KEY (id)" +
+                            ")",
+                    "CREATE INDEX IF NOT EXISTS network_analytics_computedat_index ON network_analytics (computedat)"),
+            // the single row of graph_version is locked by each change until its transaction ends,
+            // so the changes are numbered in the order they are committed
+            new Migration(5, "change log of the friends network", true,
+                    "CREATE TABLE IF NOT EXISTS graph_version" +
+                            "(version bigint NOT NULL," +
+                            " pruned bigint NOT NULL" +
+                            ")",
+                    "INSERT INTO graph_version SELECT 0, 0 WHERE NOT EXISTS (SELECT 1 FROM graph_version)",
+                    "CREATE TABLE IF NOT EXISTS graph_changes" +
+                            "(version bigint," +
+                            " email1 varchar NOT NULL," +
+                            " email2 varchar," +
+                            " added boolean NOT NULL," +
+                            " PRIMARY KEY (version)" +
+                            ")",
+                    // removing a user deletes its friendships first, so each is logged as removed before the user
+                    "CREATE OR REPLACE FUNCTION log_graph_change() RETURNS trigger AS $$" +
+                            " DECLARE v bigint;" +
+                            " BEGIN" +
+                            "  UPDATE graph_version SET version = version + 1 RETURNING version INTO v;" +
+                            "  IF TG_TABLE_NAME = 'users' AND TG_OP = 'INSERT' THEN" +
+                            "   INSERT INTO graph_changes VALUES (v, NEW.email, NULL, true);" +
+                            "  ELSIF TG_TABLE_NAME = 'users' THEN" +
+                            "   INSERT INTO graph_changes VALUES (v, OLD.email, NULL, false);" +
+                            "  ELSIF TG_OP = 'INSERT' THEN" +
+                            "   INSERT INTO graph_changes SELECT v, a.email, b.email, true FROM users a, users b" +
+                            "    WHERE a.user_id = NEW.user1 AND b.user_id = NEW.user2;" +
+                            "  ELSE" +
+                            "   INSERT INTO graph_changes SELECT v, a.email, b.email, false FROM users a, users b" +
+                            "    WHERE a.user_id = OLD.user1 AND b.user_id = OLD.user2;" +
+                            "  END IF;" +
+                            "  RETURN NULL;" +
+                            " END $$ LANGUAGE plpgsql",
+                    "DROP TRIGGER IF EXISTS users_graph_change ON users",
+                    "CREATE TRIGGER users_graph_change AFTER INSERT OR DELETE ON users" +
+                            " FOR EACH ROW EXECUTE FUNCTION log_graph_change()",
+                    "DROP TRIGGER IF EXISTS friendships_graph_change ON friendships",
+                    "CREATE TRIGGER friendships_graph_change AFTER INSERT OR DELETE ON friendships" +
+                            " FOR EACH ROW EXECUTE FUNCTION log_graph_change()"),
+            // the analyses saved before have an unknown version, they are recomputed after a restart
+            new Migration(6, "change log version of the network analytics", true,
+                    "ALTER TABLE network_analytics ADD COLUMN IF NOT EXISTS graphversion bigint NOT NULL DEFAULT -1")
+    );
+
+    public SchemaMigrator(String url, String username, String password) {
+        this.url = url;
+        this.username = username;
+        this.password = password;
+    }
+
+    /**
+     * Applies the migrations that were not applied yet, in order.
+     * On an up to date database this is a single query on the schema_version table
+     * @return the number of migrations applied
+     */
+    public int migrate() {
+        int latest = MIGRATIONS.get(MIGRATIONS.size() - 1).getVersion();
+        try (Connection connection = DriverManager.getConnection(url, username, password)) {
+            if (currentVersion(connection) >= latest)
+                return 0;
+            try (Statement st = connection.createStatement()) {
+                st.execute("SELECT pg_advisory_lock(" + LOCK_KEY + ")");
+            }
+            try {
+                try (Statement st = connection.createStatement()) {
+                    st.executeUpdate("CREATE TABLE IF NOT EXISTS schema_version" +
+                            "(version int PRIMARY KEY," +
+                            " description varchar NOT NULL," +
+                            " appliedat timestamp NOT NULL DEFAULT now()" +
+                            ")");
+                }
+                // another process may have migrated while this one was waiting for the lock
+                int current = currentVersion(connection);
+                int applied = 0;
+                for (Migration migration : MIGRATIONS) {
+                    if (migration.getVersion() <= current)
+                        continue;
+                    apply(connection, migration);
+                    applied++;
+                }
+                return applied;
+            } finally {
+                try (Statement st = connection.createStatement()) {
+                    st.execute("SELECT pg_advisory_unlock(" + LOCK_KEY + ")");
+                }
+            }
+        } catch (SQLException throwables) {
+            throw new DbException(throwables.getMessage());
+        }
+    }
+
+    /**
+     * @return the version of the last migration applied, 0 if the schema is not versioned yet
+     */
+    private int currentVersion(Connection connection) throws SQLException {
+        try (Statement st = connection.createStatement()) {
+            ResultSet res = st.executeQuery("SELECT COALESCE(MAX(version), 0) AS version FROM schema_version");
+            res.next();
+            return res.getInt("version");
+        } catch (SQLException e) {
+            // 42P01 - undefined table
+            if ("42P01".equals(e.getSQLState()))
+                return 0;
+            throw e;
+        }
+    }
+
+    private void apply(Connection connection, Migration migration) throws SQLException {
+        connection.setAutoCommit(!migration.transactional);
+        try {
+            try (Statement st = connection.createStatement()) {
+                for (String statement : migration.statements)
+                    st.executeUpdate(statement);
+            }
+            try (PreparedStatement ps = connection.prepareStatement(
+                    "INSERT INTO schema_version (version, description) VALUES (?, ?)")) {
+                ps.setInt(1, migration.getVersion());
+                ps.setString(2, migration.getDescription());
+                ps.executeUpdate();
+            }
+            if (migration.transactional)
+                connection.commit();
+        } catch (SQLException e) {
+            if (migration.transactional)
+                connection.rollback();
+            throw new DbException("Migration " + migration.getVersion() + " (" + migration.getDescription() +
+                    ") failed: " + e.getMessage());
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+}
@@ -7,37 +7,43 @@ import validator.Validator;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class UserDbRepo implements UserRepository {
     private final String url, username, password, usersTable;
     private final Validator<User> validator;
+    // the rows that reference a user, deleted before the user in this order: table name, delete statement
+    private final String[][] userRows;
 
     public UserDbRepo(String url, String username, String password, Validator<User> validator, String usersTable) {
+        this(url, username, password, validator, usersTable, "friendships", "requests", "messages", "receivers");
+    }
+
+    /**
+     * @param fshipsTable - the table of the friendships
+     * @param requestsTable - the table of the friend requests
+     * @param messagesTable - the table of the messages
+     * @param receiversTable - the table of the receivers of the messages
+     */
+    public UserDbRepo(String url, String username, String password, Validator<User> validator, String usersTable,
+                      String fshipsTable, String requestsTable, String messagesTable, String receiversTable) {
         this.url = url;
         this.username = username;
         this.password = password;
         this.validator = validator;
         this.usersTable = usersTable;
-        String sql = "CREATE TABLE IF NOT EXISTS " + usersTable +
-                "(firstname varchar NOT NULL," +
-                " lastname varchar NOT NULL, " +
-                " email varchar NOT NULL, " +
-                " PRIMARY KEY (email) " +
-                ")";
-
-        String updateTable = "ALTER TABLE " + usersTable +
-                " ADD COLUMN IF NOT EXISTS password varchar DEFAULT '000000'";
-
-        try (Connection connection = DriverManager.getConnection(this.url, this.username, this.password);
-             PreparedStatement ps = connection.prepareStatement(sql)) {
-            ps.executeUpdate();
-            PreparedStatement updateStatement = connection.prepareStatement(updateTable);
-            updateStatement.executeUpdate();
-        } catch (SQLException e) {
-            throw new DbException(e.getMessage());
-        }
-
+        this.userRows = new String[][]{
+                {receiversTable, "DELETE FROM " + receiversTable + " WHERE receiver_id = ?"},
+                {messagesTable, "DELETE FROM " + messagesTable + " WHERE sender_id = ?"},
+                {requestsTable, "DELETE FROM " + requestsTable + " WHERE ? IN (user1, user2)"},
+                {fshipsTable, "DELETE FROM " + fshipsTable + " WHERE ? IN (user1, user2)"}
+        };
     }
 
     /**
@@ -49,14 +55,17 @@ public class UserDbRepo implements UserRepository {
         validator.validate(u);
         if (getUser(u.getEmail()) != null)
             throw new RepoException("Exista deja un utilizator cu acest email");
-        String sql = "INSERT INTO " + usersTable + " (firstname, lastname, email, password) VALUES (?, ?, ?, ?)";
+        String sql = "INSERT INTO " + usersTable + " (firstname, lastname, email, password) VALUES (?, ?, ?, ?)" +
+                " RETURNING user_id";
         try (Connection connection = DriverManager.getConnection(url, username, password);
              PreparedStatement ps = connection.prepareStatement(sql)) {
             ps.setString(1, u.getFirstName());
             ps.setString(2, u.getLastName());
             ps.setString(3, u.getEmail());
             ps.setString(4, u.getPassword());
-            ps.executeUpdate();
+            ResultSet res = ps.executeQuery();
+            if (res.next())
+                u.setId(res.getLong("user_id"));
         } catch (SQLException e) {
             throw new DbException(e.getMessage());
         }
@@ -78,6 +87,7 @@ public class UserDbRepo implements UserRepository {
             if (!res.next())
                 return null;
             us = new User(res.getString("firstname"), res.getString("lastname"), res.getString("email"), res.getString("password"));
+            us.setId(res.getLong("user_id"));
             return us;
         }
         catch (SQLException e) {
@@ -85,18 +95,77 @@ public class UserDbRepo implements UserRepository {
         }
     }
 
+    /**
+     * Reads the users with one query
+     * @param emails - the emails of the users
+     * @return map with key the email of a user, value the user; the emails without a user are missing from the map
+     */
+    @Override
+    public Map<String, User> getUsers(Collection<String> emails) {
+        Map<String, User> users = new HashMap<>();
+        if (emails.isEmpty())
+            return users;
+        String sql = "SELECT user_id, firstname, lastname, email, password FROM " + usersTable + " WHERE email = ANY (?)";
+        try (Connection connection = DriverManager.getConnection(url, username, password);
+             PreparedStatement ps = connection.prepareStatement(sql)) {
+            ps.setArray(1, connection.createArrayOf("varchar", emails.toArray()));
+            ResultSet res = ps.executeQuery();
+            while (res.next()) {
+                User user = new User(res.getString("firstname"), res.getString("lastname"),
+                        res.getString("email"), res.getString("password"));
+                user.setId(res.getLong("user_id"));
+                users.put(user.getEmail(), user);
+            }
+        } catch (SQLException e) {
+            throw new DbException(e.getMessage());
+        }
+        return users;
+    }
+
     /**
      * Removes a user from the database
      * @param email - String the email of the user to be removed
      */
     @Override
     public void remove(String email) {
-        getUser(email);
-        String sql = "DELETE FROM " + usersTable + " WHERE email = ?";
-        try (Connection connection = DriverManager.getConnection(url, username, password);
-            PreparedStatement ps = connection.prepareStatement(sql)) {
-            ps.setString(1, email);
-            ps.executeUpdate();
+        remove(email, (table, rows) -> {});
+    }
+
+    /**
+     * Removes a user and all the rows that reference it from the database, in one transaction
+     * @param email - String the email of the user to be removed
+     * @param progress - receives the name of each table and the number of rows removed from it
+     */
+    @Override
+    public void remove(String email, BiConsumer<String, Integer> progress) {
+        String idSql = "SELECT user_id FROM " + usersTable + " WHERE email = ? FOR UPDATE";
+        String sql = "DELETE FROM " + usersTable + " WHERE user_id = ?";
+        try (Connection connection = DriverManager.getConnection(url, username, password)) {
+            connection.setAutoCommit(false);
+            try {
+                long id;
+                try (PreparedStatement ps = connection.prepareStatement(idSql)) {
+                    ps.setString(1, email);
+                    ResultSet res = ps.executeQuery();
+                    if (!res.next())
+                        throw new RepoException("Utilizatorul nu este salvat");
+                    id = res.getLong("user_id");
+                }
+                for (String[] rows : userRows) {
+                    try (PreparedStatement ps = connection.prepareStatement(rows[1])) {
+                        ps.setLong(1, id);
+                        progress.accept(rows[0], ps.executeUpdate());
+                    }
+                }
+                try (PreparedStatement ps = connection.prepareStatement(sql)) {
+                    ps.setLong(1, id);
+                    progress.accept(usersTable, ps.executeUpdate());
+                }
+                connection.commit();
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            }
         } catch (SQLException e) {
             throw new DbException(e.getMessage());
         }
@@ -139,24 +208,25 @@ public class UserDbRepo implements UserRepository {
      */
     @Override
     public List<User> getAll() {
-        List<User> users = new ArrayList<>();
-        String sql = "SELECT * FROM " + usersTable;
-        try (Connection connection = DriverManager.getConnection(url, username, password);
-            PreparedStatement ps = connection.prepareStatement(sql)) {
-            ResultSet res = ps.executeQuery();
-            //DE CONTINUAT
-            while (res.next()) {
-                String firstname = res.getString("firstname");
-                String lastname = res.getString("lastname");
-                String email = res.getString("email");
-                users.add(new User(firstname, lastname, email));
-            }
-            return users;
-        } catch (SQLException e) {
-            throw new DbException(e.getMessage());
+        try (Stream<User> users = stream()) {
+            return users.collect(Collectors.toList());
         }
     }
 
+    /**
+     * @return the users saved in the database, read through a cursor; the stream has to be closed
+     */
+    @Override
+    public Stream<User> stream() {
+        String sql = "SELECT user_id, firstname, lastname, email, password FROM " + usersTable;
+        return CursorStream.of(url, username, password, sql, res -> {
+            User user = new User(res.getString("firstname"), res.getString("lastname"),
+                    res.getString("email"), res.getString("password"));
+            user.setId(res.getLong("user_id"));
+            return user;
+        });
+    }
+
     /**
      * @return true if the database has no users saved, false otherwise
      */
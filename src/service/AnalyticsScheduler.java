@@ -0,0 +1,71 @@
+package service;
+
+import domain.network.Network;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Recomputes the network analytics off the request path: every period, and after a number
+ * of changes of the network, whichever comes first. A period without any change, with an analysis
+ * that is up to date, recomputes nothing
+ */
+public class AnalyticsScheduler {
+    private final Network network;
+    private final long periodMinutes;
+    private final int changesThreshold;
+    private final AtomicInteger changes = new AtomicInteger();
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * @param periodMinutes - long the minutes between two recomputations
+     * @param changesThreshold - int the number of changes of the network that start a recomputation
+     */
+    public AnalyticsScheduler(Network network, long periodMinutes, int changesThreshold) {
+        this.network = network;
+        this.periodMinutes = periodMinutes;
+        this.changesThreshold = changesThreshold;
+        network.addChangeListener(this::changed);
+    }
+
+    /**
+     * Starts the periodic recomputation, if it isn't started
+     */
+    public synchronized void start() {
+        if (scheduler != null)
+            return;
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "network-analytics-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(this::tick, periodMinutes, periodMinutes, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Stops the periodic recomputation; an analysis being computed is finished
+     */
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+            scheduler = null;
+        }
+    }
+
+    private void changed() {
+        if (changes.incrementAndGet() >= changesThreshold)
+            recompute();
+    }
+
+    private void tick() {
+        if (changes.get() > 0 || network.isStale())
+            recompute();
+    }
+
+    private void recompute() {
+        changes.set(0);
+        network.warmUp();
+    }
+}
@@ -3,12 +3,14 @@ package service;
 import domain.FriendshipRequest;
 import domain.REQUESTSTATE;
 import domain.Friendship;
+import domain.RequestOutcome;
 import repository.FriendshipRepository;
 import repository.FriendshipRequestRepository;
 import repository.RepoException;
 
 import java.time.LocalDate;
-import java.util.List;
+import java.util.*;
+import java.util.function.Consumer;
 
 public class FriendshipService {
     FriendshipRepository friendshipRepository;
@@ -29,6 +31,15 @@ public class FriendshipService {
         return friendshipRepository.getFriendship(email1, email2);
     }
 
+    /**
+     * @param email1 - String the email of the first user
+     * @param email2 - String the email of the second user
+     * @return true if the two users are friends, false otherwise
+     */
+    public boolean areFriends(String email1, String email2) {
+        return friendshipRepository.areFriends(email1, email2);
+    }
+
     /**
      * Adds a friendship request to the repository
      * @param email1 - the email of the first user
@@ -57,6 +68,26 @@ public class FriendshipService {
         return friendshipRepository.getAll();
     }
 
+    /**
+     * Passes every saved friendship to the action, without keeping them in memory
+     * @param action - receives the friendships
+     */
+    public void forEachFriendship(Consumer<Friendship> action) {
+        friendshipRepository.forEach(action);
+    }
+
+    /**
+     * Counts the requests in one pass over the repository, without keeping them in memory
+     * @return the number of requests in each state
+     */
+    public Map<REQUESTSTATE, Long> countRequestsByState() {
+        Map<REQUESTSTATE, Long> counts = new EnumMap<>(REQUESTSTATE.class);
+        for (REQUESTSTATE state : REQUESTSTATE.values())
+            counts.put(state, 0L);
+        requestRepository.forEach(r -> counts.merge(r.getState(), 1L, Long::sum));
+        return counts;
+    }
+
     /**
      * @return the number of friendships saved in the repository
      */
@@ -133,6 +164,70 @@ public class FriendshipService {
         }
     }
 
+    /**
+     * Accepts the pending friend requests sent by the requesters to the receiver.
+     * All the requests are approved and the friendships saved in one transaction
+     * @param receiver - String the email of the user that received the requests
+     * @param requesters - the emails of the users that sent the requests
+     * @return map with key the email of a requester, value the outcome of its request
+     */
+    public Map<String, RequestOutcome> acceptFriendships(String receiver, Collection<String> requesters) {
+        Map<String, RequestOutcome> outcomes = new LinkedHashMap<>();
+        List<String> pending = checkPending(receiver, requesters, outcomes, RequestOutcome.ACCEPTED);
+        markAnswered(outcomes, pending, requestRepository.acceptRequests(receiver, pending));
+        return outcomes;
+    }
+
+    /**
+     * Rejects the pending friend requests sent by the requesters to the receiver
+     * @param receiver - String the email of the user that received the requests
+     * @param requesters - the emails of the users that sent the requests
+     * @return map with key the email of a requester, value the outcome of its request
+     */
+    public Map<String, RequestOutcome> rejectFriendships(String receiver, Collection<String> requesters) {
+        Map<String, RequestOutcome> outcomes = new LinkedHashMap<>();
+        List<String> pending = checkPending(receiver, requesters, outcomes, RequestOutcome.REJECTED);
+        markAnswered(outcomes, pending, requestRepository.rejectRequests(receiver, pending));
+        return outcomes;
+    }
+
+    /**
+     * Puts the outcome of each request in outcomes, in the order of the requesters, from its current state
+     * @param outcomes - receives the outcomes
+     * @param answer - the outcome of a pending request if the update succeeds
+     * @return the emails of the requesters whose requests are pending
+     */
+    private List<String> checkPending(String receiver, Collection<String> requesters,
+                                      Map<String, RequestOutcome> outcomes, RequestOutcome answer) {
+        Map<String, REQUESTSTATE> states = requestRepository.getRequestStates(receiver, requesters);
+        List<String> pending = new ArrayList<>();
+        for (String requester : requesters) {
+            // a requester given twice is answered once
+            if (outcomes.containsKey(requester))
+                continue;
+            REQUESTSTATE state = states.get(requester);
+            if (state == null)
+                outcomes.put(requester, RequestOutcome.NO_REQUEST);
+            else if (state == REQUESTSTATE.PENDING) {
+                outcomes.put(requester, answer);
+                pending.add(requester);
+            } else
+                outcomes.put(requester, RequestOutcome.ALREADY_ANSWERED);
+        }
+        return pending;
+    }
+
+    /**
+     * The requests that were answered by someone else between the check and the update
+     * are marked as already answered
+     */
+    private void markAnswered(Map<String, RequestOutcome> outcomes, List<String> pending, List<String> updated) {
+        Set<String> updatedSet = new HashSet<>(updated);
+        for (String requester : pending)
+            if (!updatedSet.contains(requester))
+                outcomes.put(requester, RequestOutcome.ALREADY_ANSWERED);
+    }
+
     /**
      * @param email - String the email of the user
      * @return list with the emails of a user's friends
@@ -3,6 +3,12 @@ package service;
 import domain.Message;
 import repository.db.MessageDbRepo;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
 public class MessageService {
     MessageDbRepo repo;
 
@@ -37,4 +43,16 @@ public class MessageService {
     public Message getMessage(int id) {
         return repo.getMessage(id);
     }
+
+    /**
+     * Counts the messages in one pass over the repository, without keeping them in memory
+     * @return the number of messages sent each day, by day
+     */
+    public SortedMap<LocalDate, Long> countMessagesByDay() {
+        SortedMap<LocalDate, Long> counts = new TreeMap<>();
+        try (Stream<LocalDateTime> dates = repo.sentDates()) {
+            dates.forEach(date -> counts.merge(date.toLocalDate(), 1L, Long::sum));
+        }
+        return counts;
+    }
 }
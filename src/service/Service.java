@@ -4,15 +4,45 @@ import Utils.UserFriendDTO;
 import domain.Friendship;
 import domain.FriendshipRequest;
 import domain.Message;
+import domain.REQUESTSTATE;
+import domain.RequestOutcome;
 import domain.User;
+import domain.network.FriendlyCommunityMode;
+import domain.network.GraphSnapshot;
+import domain.network.GraphStorage;
 import domain.network.Network;
+import domain.network.Recommendation;
+import domain.network.analytics.ApproximateReach;
+import domain.network.analytics.Betweenness;
+import domain.network.analytics.CommunityDetection;
+import domain.network.analytics.ConnectedComponents;
+import domain.network.analytics.CoreDecomposition;
+import domain.network.analytics.DegreeCentrality;
+import domain.network.analytics.NetworkStatistics;
+import domain.network.analytics.PageRank;
+import domain.network.analytics.Triangles;
 import repository.RepoException;
 import validator.ValidatorException;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 public class Service {
@@ -21,6 +51,10 @@ public class Service {
     private final MessageService messageService;
     private final MessageReceiverService messageReceiverService;
     private final Network network;
+    // below this many mutual-friend suggestions, personalized PageRank suggestions are added
+    private static final int MIN_RECOMMENDATIONS = 5;
+    // the longest chain of friends searched between two users
+    private static final int MAX_SEPARATION = 6;
 
     public Service(UserService userService, FriendshipService friendshipService, MessageService messageService, MessageReceiverService messageReceiverService, Network network) {
         this.userService = userService;
@@ -30,6 +64,55 @@ public class Service {
         this.network = network;
     }
 
+    /**
+     * @return true if the network analytics are being computed in the background
+     */
+    public boolean isNetworkComputing() {
+        return network.isComputing();
+    }
+
+    /**
+     * @return how much of the network analytics being computed is done, in percents
+     */
+    public int getNetworkProgress() {
+        return network.getProgress();
+    }
+
+    /**
+     * @return when the network analytics that are served were computed
+     */
+    public LocalDateTime getNetworkComputedAt() {
+        return network.getAnalysis().getComputedAt();
+    }
+
+    /**
+     * @return the number of friends of each user and the degree distribution
+     */
+    public DegreeCentrality getDegreeCentrality() {
+        return network.getDegreeCentrality();
+    }
+
+    /**
+     * @return the PageRank of each user
+     */
+    public PageRank getPageRank() {
+        return network.getPageRank();
+    }
+
+    /**
+     * @return the betweenness centrality of each user
+     */
+    public Betweenness getBetweenness() {
+        return network.getBetweenness();
+    }
+
+    /**
+     * @return the triangles of the users and the clustering coefficients
+     */
+    public Triangles getTriangles() {
+        return network.getTriangles();
+    }
+
     /**
      * @return no of communities - int
      */
@@ -44,6 +127,67 @@ public class Service {
         return network.getUsersMostFrCom();
     }
 
+    /**
+     * @param mode - what the most friendly community is taken to be
+     * @return the users of the most friendly community
+     */
+    public List<User> getUsersMostFrCom(FriendlyCommunityMode mode) {
+        List<String> emails = network.getMostFriendlyCommunity(mode);
+        return inOrder(emails, userService.getUsers(emails));
+    }
+
+    /**
+     * @param mode - what the most friendly community is taken to be
+     * @return the friendships between the users of the most friendly community
+     */
+    public List<Friendship> getFriendshipsMostFrCom(FriendlyCommunityMode mode) {
+        return network.getMostFriendlyFriendships(mode);
+    }
+
+    /**
+     * @return true if the largest clique reported is known to be the largest one,
+     * false if its search ran out of time
+     */
+    public boolean isMaxCliqueComplete() {
+        return network.getMaximumClique().isComplete();
+    }
+
+    /**
+     * @return where the friends lists of the network are kept
+     */
+    public GraphStorage getGraphStorage() {
+        return network.getStorage();
+    }
+
+    /**
+     * @return the memory taken by the friends lists of the network, in bytes
+     */
+    public long getGraphSizeInBytes() {
+        return network.getGraph().sizeInBytes();
+    }
+
+    /**
+     * Moves the friends lists of the network to another storage
+     * @param storage - the storage
+     */
+    public void setGraphStorage(GraphStorage storage) {
+        network.setStorage(storage);
+    }
+
+    /**
+     * @return the communities of users that are friends mostly among themselves, with their modularity
+     */
+    public CommunityDetection getDetectedCommunities() {
+        return network.getDetectedCommunities();
+    }
+
+    /**
+     * @return the core number of each user
+     */
+    public CoreDecomposition getCoreDecomposition() {
+        return network.getCoreDecomposition();
+    }
+
     /**
      * Adds a user
      * @param firstname - the first name of the user
@@ -55,16 +199,28 @@ public class Service {
      */
     public void addUser(String firstname, String lastname, String email, String password) throws ValidatorException, RepoException {
         userService.save(firstname, lastname, email, password);
+        network.invalidate();
     }
 
     /**
-     * Removes a user
+     * Removes a user, with its friendships, requests and messages, in one transaction
      * @param email - String the email of the user to be removed
      * @throws RepoException - if there's no user with the given email
      */
     public void removeUser(String email) {
         userService.remove(email);
-        friendshipService.removeUserFships(email);
+        network.userRemoved();
+    }
+
+    /**
+     * Removes a user, with its friendships, requests and messages, in one transaction
+     * @param email - String the email of the user to be removed
+     * @param progress - receives the name of each table and the number of rows removed from it
+     * @throws RepoException - if there's no user with the given email
+     */
+    public void removeUser(String email, BiConsumer<String, Integer> progress) {
+        userService.remove(email, progress);
+        network.userRemoved();
     }
 
     /**
@@ -93,6 +249,7 @@ public class Service {
      */
     public void removeFriendship(String email1, String email2) {
         friendshipService.removeFriendship(email1, email2);
+        network.friendshipRemoved(email1, email2);
     }
 
     /**
@@ -123,6 +280,15 @@ public class Service {
         return network.getCommunities();
     }
 
+    /**
+     * Reads the users with one lookup
+     * @param emails - the emails of the users
+     * @return map with key the email of a user, value the user; the emails without a user are missing from the map
+     */
+    public Map<String, User> getUsers(Collection<String> emails) {
+        return userService.getUsers(emails);
+    }
+
     /**
      * @return saved users - List[User]
      */
@@ -144,6 +310,14 @@ public class Service {
         return friendshipService.getFriendships();
     }
 
+    /**
+     * Passes every saved friendship to the action, without keeping them in memory
+     * @param action - receives the friendships
+     */
+    public void forEachFriendship(Consumer<Friendship> action) {
+        friendshipService.forEachFriendship(action);
+    }
+
     /**
      * @return no of users - int
      */
@@ -173,6 +347,32 @@ public class Service {
      */
     public void acceptFriendship(String email1, String email2)  {
         friendshipService.acceptFriendship(email1, email2);
+        network.friendshipAdded(email1, email2);
+    }
+
+    /**
+     * Accepts the pending friend requests sent by the requesters to the receiver, in one transaction
+     * @param receiver - String the email of the user that received the requests
+     * @param requesters - the emails of the users that sent the requests
+     * @return map with key the email of a requester, value the outcome of its request
+     */
+    public Map<String, RequestOutcome> acceptFriendships(String receiver, Collection<String> requesters) {
+        Map<String, RequestOutcome> outcomes = friendshipService.acceptFriendships(receiver, requesters);
+        outcomes.forEach((requester, outcome) -> {
+            if (outcome == RequestOutcome.ACCEPTED)
+                network.friendshipAdded(receiver, requester);
+        });
+        return outcomes;
+    }
+
+    /**
+     * Rejects the pending friend requests sent by the requesters to the receiver
+     * @param receiver - String the email of the user that received the requests
+     * @param requesters - the emails of the users that sent the requests
+     * @return map with key the email of a requester, value the outcome of its request
+     */
+    public Map<String, RequestOutcome> rejectFriendships(String receiver, Collection<String> requesters) {
+        return friendshipService.rejectFriendships(receiver, requesters);
     }
     /**
      * @param email - String the email of the user
@@ -187,6 +387,39 @@ public class Service {
         return friends;
     }
 
+    /**
+     * The extended network of a user: the friends, the friends of friends and so on, up to k friendships away
+     * @param email - String the email of the user
+     * @param k - int the maximum number of friendships from the user
+     * @param limit - int the maximum number of users returned, the closest ones are returned first
+     * @return the users by their number of friendships from the user, from 1; empty if the user has no friends
+     */
+    public Map<Integer, List<User>> getNeighborhood(String email, int k, int limit) {
+        Map<Integer, List<User>> neighborhood = new TreeMap<>();
+        List<List<String>> levels = network.getNeighborhood(email, k, limit);
+        List<String> emails = new ArrayList<>();
+        levels.forEach(emails::addAll);
+        Map<String, User> users = userService.getUsers(emails);
+        for (int i = 0; i < levels.size(); i++)
+            neighborhood.put(i + 1, inOrder(levels.get(i), users));
+        return neighborhood;
+    }
+
+    /**
+     * @param emails - the emails of the users, in order
+     * @param users - the users read, by email
+     * @return the users of the emails in the same order; the ones removed since the emails were read are skipped
+     */
+    private static List<User> inOrder(List<String> emails, Map<String, User> users) {
+        List<User> ordered = new ArrayList<>(emails.size());
+        for (String email : emails) {
+            User user = users.get(email);
+            if (user != null)
+                ordered.add(user);
+        }
+        return ordered;
+    }
+
     /**
      * Returns a list of DTOs with a user's friends
      * A dto contains the first name and last name of a friend and the date
@@ -228,17 +461,144 @@ public class Service {
                 .filter(x -> x.getDate().getMonth().getValue() == month);
    }
 
+    /**
+     * "People you may know": the users with the most mutual friends, then, for users
+     * with few suggestions, the users found by personalized PageRank
+     * @param email - String the email of the user
+     * @return the users suggested as friends
+     */
+    public List<Recommendation> getRecommendations(String email) {
+        List<Recommendation> recommendations = new ArrayList<>(network.getRecommendations(email));
+        // users with few friends have few friends of friends, they get suggestions from further away
+        if (recommendations.size() < MIN_RECOMMENDATIONS) {
+            Set<String> suggested = new HashSet<>();
+            recommendations.forEach(r -> suggested.add(r.getEmail()));
+            for (Recommendation r : network.getPageRankRecommendations(email, MIN_RECOMMENDATIONS + suggested.size()))
+                if (recommendations.size() < MIN_RECOMMENDATIONS && suggested.add(r.getEmail()))
+                    recommendations.add(r);
+        }
+        return recommendations;
+    }
+
+    /**
+     * Returns the shortest chain of friends between two users
+     * @param email1 - String the email of the first user
+     * @param email2 - String the email of the second user
+     * @return the users of the chain, from the first user to the second one; an empty list
+     * if they are not connected by at most MAX_SEPARATION friendships
+     */
+    public List<User> getFriendshipPath(String email1, String email2) {
+        return chainOf(network.getFriendshipPath(email1, email2, MAX_SEPARATION));
+    }
+
+    /**
+     * @param emails - the emails of the users of a chain of friends, in order
+     * @return the users of the chain, read with one lookup; an empty list if one of them was removed since,
+     * the chain is broken
+     */
+    private List<User> chainOf(List<String> emails) {
+        List<User> chain = inOrder(emails, userService.getUsers(emails));
+        return chain.size() == emails.size() ? chain : new ArrayList<>();
+    }
+
+    /**
+     * "People within 2 or 3 hops": the number of users within each number of friendships of a user,
+     * estimated for all the users at once with HyperLogLog counters
+     * @param email - String the email of the user
+     * @return the estimated number of other users within 1, ..., Network.MAX_REACH_HOPS friendships of the user,
+     * by the number of friendships; the first one is the exact number of friends
+     */
+    public Map<Integer, Long> getReach(String email) {
+        ApproximateReach reach = network.getReach();
+        Map<Integer, Long> byHops = new TreeMap<>();
+        for (int h = 1; h <= reach.getMaxHops(); h++)
+            byHops.put(h, reach.getReach(email, h));
+        return byHops;
+    }
+
+    /**
+     * Computes the statistics of the network: the requests and the messages are counted in one pass
+     * over each table, on other threads, while the components and the diameter of the snapshot are computed
+     * @return the statistics
+     */
+    public NetworkStatistics getStatistics() {
+        CompletableFuture<Map<REQUESTSTATE, Long>> requests = CompletableFuture.supplyAsync(friendshipService::countRequestsByState);
+        CompletableFuture<SortedMap<LocalDate, Long>> messages = CompletableFuture.supplyAsync(messageService::countMessagesByDay);
+        GraphSnapshot graph = network.getGraph();
+        ConnectedComponents components = new ConnectedComponents(graph, true);
+        try {
+            return new NetworkStatistics(graph, components, requests.join(), messages.join());
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            throw e;
+        }
+    }
+
+    /**
+     * Writes the statistics to a file as JSON
+     * @param statistics - the statistics
+     * @param path - the file, replaced if it exists
+     * @throws RepoException - if the file can't be written
+     */
+    public void exportStatistics(NetworkStatistics statistics, Path path) {
+        try {
+            Files.writeString(path, statistics.toJson());
+        } catch (IOException e) {
+            throw new RepoException("The statistics could not be exported: " + e.getMessage());
+        }
+    }
+
+    /**
+     * The communities of the network as it was at the end of a date, replayed from the friendships made up to it
+     * @param date - the date
+     * @return the connected components of the network at the end of the date; the users without friends
+     * at that date are each a community
+     */
+    public ConnectedComponents getCommunitiesAsOf(LocalDate date) {
+        return network.getComponentsAsOf(date);
+    }
+
+    /**
+     * @param date - the date
+     * @return the number of friendships made up to the date that still exist
+     */
+    public long getNrFriendshipsAsOf(LocalDate date) {
+        return network.getGraphAsOf(date).nrFriendships();
+    }
+
+    /**
+     * @param email - String the email of the user
+     * @param date - the date
+     * @return the number of friends the user had at the end of the date, 0 if there's no user with the given email
+     */
+    public int getNrFriendsAsOf(String email, LocalDate date) {
+        return network.getNrFriendsAsOf(email, date);
+    }
+
+    /**
+     * Returns the shortest chain of friends between two users at the end of a date
+     * @param email1 - String the email of the first user
+     * @param email2 - String the email of the second user
+     * @param date - the date
+     * @return the users of the chain, from the first user to the second one; an empty list
+     * if they were not connected by at most MAX_SEPARATION friendships
+     */
+    public List<User> getFriendshipPathAsOf(String email1, String email2, LocalDate date) {
+        return chainOf(network.getFriendshipPathAsOf(email1, email2, MAX_SEPARATION, date));
+    }
+
     /**
      * @param email - String the email of the user
      * @return the users that are not friends with the given user
      */
     public List<User> getNotFriends(String email) {
-        List<String> friends = friendshipService.getUserFriendsAll(email);
-        List<User> notFriends = new ArrayList<>();
-        for (User u : userService.getUsers())
-            if (!friends.contains(u.getEmail()) && u.getEmail().compareTo(email) != 0)
-                notFriends.add(u);
-        return notFriends;
+        Set<String> friends = new HashSet<>(friendshipService.getUserFriendsAll(email));
+        try (Stream<User> users = userService.streamUsers()) {
+            return users
+                    .filter(u -> !friends.contains(u.getEmail()) && u.getEmail().compareTo(email) != 0)
+                    .collect(Collectors.toList());
+        }
     }
 
     /**
@@ -302,7 +662,7 @@ public class Service {
         Message msg = messageService.save(sender, message, idMsgRepliedTo);
         receivers.forEach(x -> {
             // verific daca cei doi sunt prieteni
-            if (friendshipService.getFriendship(sender, x) != null)
+            if (friendshipService.areFriends(sender, x))
                 messageReceiverService.save(msg.getID(), x);
         });
         return msg;
@@ -318,7 +678,7 @@ public class Service {
         Message msg = messageService.save(sender, message);
         receivers.forEach(x -> {
             // verific daca cei doi sunt prieteni
-            if (friendshipService.getFriendship(sender, x) != null)
+            if (friendshipService.areFriends(sender, x))
                 messageReceiverService.save(msg.getID(), x);
         });
         return msg;
@@ -3,7 +3,11 @@ package service;
 import domain.User;
 import repository.UserRepository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
 
 public class UserService {
     UserRepository repo;
@@ -31,6 +35,15 @@ public class UserService {
         repo.remove(email);
     }
 
+    /**
+     * Removes a user and everything that references it from the repository
+     * @param email - String the email of the user to be removed
+     * @param progress - receives the name of each table and the number of rows removed from it
+     */
+    public void remove(String email, BiConsumer<String, Integer> progress) {
+        repo.remove(email, progress);
+    }
+
     /**
      * Updates a user in the repository
      * @param firstname - the new first name of the user
@@ -51,6 +64,14 @@ public class UserService {
         return repo.getUser(email);
     }
 
+    /**
+     * @param emails - the emails of the users
+     * @return map with key the email of a user, value the user; the emails without a user are missing from the map
+     */
+    public Map<String, User> getUsers(Collection<String> emails) {
+        return repo.getUsers(emails);
+    }
+
     /**
      * @return all the users saved in the repository
      */
@@ -58,6 +79,13 @@ public class UserService {
         return repo.getAll();
     }
 
+    /**
+     * @return all the users saved in the repository, read lazily; the stream has to be closed
+     */
+    public Stream<User> streamUsers() {
+        return repo.stream();
+    }
+
     /**
      * @return true if the repository has no users saved, false otherwise
      */
@@ -2,16 +2,25 @@ package ui;
 
 import domain.Friendship;
 import domain.User;
+import domain.network.FriendlyCommunityMode;
+import domain.network.GraphStorage;
+import domain.network.analytics.*;
 import repository.RepoException;
 import repository.db.DbException;
 import service.Service;
 import validator.ValidatorException;
 
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
 import java.util.*;
 
 public class AdminInterface implements UserInterface {
     private final Scanner console;
     private final Service srv;
+    // users shown in the top of each metric
+    private static final int TOP = 10;
 
     public AdminInterface(Scanner console, Service srv) {
         this.console = console;
@@ -30,8 +39,16 @@ public class AdminInterface implements UserInterface {
         System.out.println("4. Most friendly network");
         System.out.println("5. Get user by email");
         System.out.println("6. Get friendship by emails");
+        System.out.println("7. Degrees of separation between two users");
+        System.out.println("8. Influence metrics");
+        System.out.println("9. Clustering of the communities");
         System.out.println("10. Show users");
         System.out.println("11. Show friendships");
+        System.out.println("12. Core number of the users");
+        System.out.println("13. Detect communities");
+        System.out.println("14. Graph storage");
+        System.out.println("15. Network as of a date");
+        System.out.println("16. Network statistics");
         System.out.println("0. Exit");
         System.out.print("Write command: ");
         return console.nextLine().strip();
@@ -54,8 +71,16 @@ public class AdminInterface implements UserInterface {
                 case "4" -> mostFrCommunity();
                 case "5" -> showUserByEmail();
                 case "6" -> showFriendshipByEmails();
+                case "7" -> showFriendshipPath();
+                case "8" -> influenceMetrics();
+                case "9" -> communitiesClustering();
                 case "10" -> showUsers();
                 case "11" -> showFriendships();
+                case "12" -> showCoreNumbers();
+                case "13" -> detectCommunities();
+                case "14" -> graphStorage();
+                case "15" -> networkAsOf();
+                case "16" -> networkStatistics();
                 default -> {
                     System.out.println("Invalid option");
                     System.out.println();
@@ -81,6 +106,86 @@ public class AdminInterface implements UserInterface {
         System.out.println(f);
     }
 
+    /**
+     * Shows the shortest chain of friends between two users
+     */
+    private void showFriendshipPath() {
+        System.out.print("Write the email of the first user: ");
+        String email1 = console.nextLine().strip();
+        System.out.print("Write the email of the second user: ");
+        String email2 = console.nextLine().strip();
+        List<User> path = srv.getFriendshipPath(email1, email2);
+        if (path.isEmpty()) {
+            System.out.println("The two users are not connected");
+            return;
+        }
+        System.out.println("Degrees of separation: " + (path.size() - 1));
+        for (User u : path)
+            System.out.print("- " + u + " -");
+        System.out.println();
+    }
+
+    /**
+     * Shows the degree distribution and the most influential users by degree, PageRank and betweenness,
+     * then the scores of a user
+     */
+    private void influenceMetrics() {
+        DegreeCentrality degrees = srv.getDegreeCentrality();
+        System.out.println("Average number of friends: " + String.format("%.2f", degrees.getAverageDegree()) +
+                ", most friends: " + degrees.getMaxDegree());
+        int[] distribution = degrees.getDistribution();
+        for (int d = 0; d < distribution.length; d++)
+            if (distribution[d] > 0)
+                System.out.println(d + " friends: " + distribution[d] + " users");
+        PageRank pageRank = srv.getPageRank();
+        Betweenness betweenness = srv.getBetweenness();
+        showTop("Most friends", degrees);
+        showTop("PageRank", pageRank);
+        showTop(betweenness.isSampled() ? "Betweenness (estimated)" : "Betweenness", betweenness);
+        System.out.print("Write an email to see the scores of a user (or nothing to go back): ");
+        String email = console.nextLine().strip();
+        if (email.isEmpty())
+            return;
+        System.out.println("Friends: " + (int) degrees.getScore(email));
+        System.out.println("PageRank: " + String.format("%.6f", pageRank.getScore(email)));
+        System.out.println("Betweenness: " + String.format("%.2f", betweenness.getScore(email)));
+    }
+
+    /**
+     * Shows how many triangles of friends each community has and how clustered it is
+     */
+    private void communitiesClustering() {
+        showNetworkProgress();
+        Triangles triangles = srv.getTriangles();
+        System.out.println("Triangles: " + triangles.getNrTriangles() +
+                ", global clustering coefficient: " + String.format("%.4f", triangles.getGlobalClustering()));
+        Map<Integer, List<String>> comms = srv.getCommunities();
+        for (int j = 1; j <= comms.size(); j++) {
+            List<String> community = comms.get(j);
+            if (community.size() < 3)
+                continue;
+            long nr = community.stream().mapToLong(triangles::getTriangles).sum() / 3;
+            System.out.println("Community " + j + ": " + community.size() + " users, " + nr + " triangles, clustering " +
+                    String.format("%.4f", triangles.getClustering(community)) + ", average local clustering " +
+                    String.format("%.4f", triangles.getAverageClustering(community)));
+        }
+        System.out.println();
+    }
+
+    /**
+     * Shows the users with the highest scores
+     * @param title - String the name of the metric
+     * @param scores - the scores of the users
+     */
+    private void showTop(String title, UserScores scores) {
+        System.out.println("---" + title + "---");
+        int i = 0;
+        for (UserScore score : scores.getTop(TOP)) {
+            i++;
+            System.out.println(i + ". " + score.getEmail() + " | " + String.format("%.6f", score.getScore()));
+        }
+    }
+
     /**
      * Shows a user
      */
@@ -98,15 +203,175 @@ public class AdminInterface implements UserInterface {
     }
 
     /**
-     * Shows the users of the longest path in the friendship network
+     * Shows the most friendly community, by the definition chosen: the users of the longest path
+     * in the friendship network, the densest core or the largest clique
      */
     private void mostFrCommunity() {
-        List<User> usrs = srv.getUsersMostFrCom();
-        System.out.println("Longest path has a length of " + usrs.size());
+        FriendlyCommunityMode mode = chooseFriendlyCommunityMode();
+        if (mode == null)
+            return;
+        if (mode == FriendlyCommunityMode.LONGEST_PATH)
+            showNetworkProgress();
+        List<User> usrs = srv.getUsersMostFrCom(mode);
+        switch (mode) {
+            case LONGEST_PATH -> System.out.println("Longest path has a length of " + usrs.size());
+            case DENSEST_CORE -> System.out.println("The densest core has " + usrs.size() +
+                    " users, each with at least " + srv.getCoreDecomposition().getMaxCore() + " friends in it");
+            case MAX_CLIQUE -> System.out.println("The largest clique " +
+                    (srv.isMaxCliqueComplete() ? "" : "found in the time budget ") + "has " + usrs.size() + " users");
+        }
         for (User u : usrs) {
             System.out.print("- " + u + " -");
         }
         System.out.println();
+        System.out.println("Friendships: " + srv.getFriendshipsMostFrCom(mode).size());
+        System.out.println();
+    }
+
+    /**
+     * Reads the definition of the most friendly community from keyboard
+     * @return the mode chosen, null if the option is not valid
+     */
+    private FriendlyCommunityMode chooseFriendlyCommunityMode() {
+        FriendlyCommunityMode[] modes = FriendlyCommunityMode.values();
+        for (int i = 0; i < modes.length; i++)
+            System.out.println((i + 1) + ". " + modes[i].name().toLowerCase().replace('_', ' '));
+        System.out.print("Choose the definition: ");
+        String option = console.nextLine().strip();
+        for (int i = 0; i < modes.length; i++)
+            if (option.equals(String.valueOf(i + 1)))
+                return modes[i];
+        System.out.println("Invalid option");
+        return null;
+    }
+
+    /**
+     * Shows the communities of users that are friends mostly among themselves, the largest first
+     */
+    private void detectCommunities() {
+        CommunityDetection detection = srv.getDetectedCommunities();
+        System.out.println(detection.getNrCommunities() + " communities, modularity " +
+                String.format("%.4f", detection.getModularity()));
+        List<Integer> sizes = detection.getSizes();
+        Map<Integer, List<String>> comms = detection.getCommunities();
+        for (int j = 1; j <= Math.min(TOP, sizes.size()); j++) {
+            System.out.print("Community " + j + " (" + sizes.get(j - 1) + " users):");
+            comms.get(j).stream().limit(TOP).forEach(e -> System.out.print(" " + e));
+            System.out.println(sizes.get(j - 1) > TOP ? " ..." : "");
+        }
+        System.out.println();
+    }
+
+    /**
+     * Shows where the friends lists are kept and the memory they take, then moves them to another storage
+     */
+    private void graphStorage() {
+        System.out.println("Friends lists: " + srv.getGraphStorage().name().toLowerCase().replace('_', ' ') +
+                ", " + srv.getGraphSizeInBytes() / 1024 + " KiB");
+        GraphStorage[] storages = GraphStorage.values();
+        for (int i = 0; i < storages.length; i++)
+            System.out.println((i + 1) + ". " + storages[i].name().toLowerCase().replace('_', ' '));
+        System.out.print("Move them to (empty to keep them): ");
+        String option = console.nextLine().strip();
+        if (option.isEmpty())
+            return;
+        for (int i = 0; i < storages.length; i++)
+            if (option.equals(String.valueOf(i + 1))) {
+                srv.setGraphStorage(storages[i]);
+                System.out.println("Friends lists: " + srv.getGraphSizeInBytes() / 1024 + " KiB");
+                return;
+            }
+        System.out.println("Invalid option");
+    }
+
+    /**
+     * Shows the friendships and the communities of the network as it was at the end of a date,
+     * then the friends of a user and the degrees of separation between two users at that date
+     */
+    private void networkAsOf() {
+        System.out.print("Write the date (yyyy-mm-dd): ");
+        LocalDate date;
+        try {
+            date = LocalDate.parse(console.nextLine().strip());
+        } catch (DateTimeParseException e) {
+            System.out.println("Invalid date");
+            return;
+        }
+        ConnectedComponents components = srv.getCommunitiesAsOf(date);
+        System.out.println(srv.getNrFriendshipsAsOf(date) + " friendships, " +
+                components.getNrComponents() + " communities");
+        List<Integer> sizes = components.getSizes();
+        for (int j = 1; j <= Math.min(TOP, sizes.size()) && sizes.get(j - 1) > 1; j++)
+            System.out.println("Community " + j + ": " + sizes.get(j - 1) + " users");
+        System.out.print("Write the email of a user (empty to skip): ");
+        String email1 = console.nextLine().strip();
+        if (email1.isEmpty())
+            return;
+        System.out.println("Friends: " + srv.getNrFriendsAsOf(email1, date));
+        System.out.print("Write the email of another user (empty to skip): ");
+        String email2 = console.nextLine().strip();
+        if (email2.isEmpty())
+            return;
+        List<User> path = srv.getFriendshipPathAsOf(email1, email2, date);
+        if (path.isEmpty())
+            System.out.println("The two users were not connected");
+        else
+            System.out.println("Degrees of separation: " + (path.size() - 1));
+        System.out.println();
+    }
+
+    /**
+     * Shows the statistics of the network, the degrees in ranges that double, the messages of the last TOP days,
+     * then exports them as JSON
+     */
+    private void networkStatistics() {
+        NetworkStatistics stats;
+        try {
+            stats = srv.getStatistics();
+        } catch (RepoException | DbException e) {
+            System.out.println(e.getMessage());
+            return;
+        }
+        System.out.println(stats.getNrUsers() + " users, " + stats.getNrFriendships() + " friendships, diameter about " +
+                stats.getDiameter());
+        System.out.println("Users by number of friends:");
+        int[] degrees = stats.getDegreeDistribution();
+        for (int low = 0; low < degrees.length; low = low == 0 ? 1 : low * 2) {
+            int high = low == 0 ? 0 : Math.min(degrees.length, low * 2) - 1;
+            int users = 0;
+            for (int d = low; d <= high; d++)
+                users += degrees[d];
+            System.out.println("  " + (low == high ? String.valueOf(low) : low + "-" + high) + ": " + users);
+        }
+        System.out.println("Communities by size:");
+        stats.getComponentSizes().forEach((size, nr) -> System.out.println("  " + size + " users: " + nr));
+        System.out.println("Friend requests:");
+        stats.getRequests().forEach((state, nr) -> System.out.println("  " + state.name().toLowerCase() + ": " + nr));
+        System.out.println("  acceptance rate: " + String.format("%.1f%%", 100 * stats.getAcceptanceRate()));
+        System.out.println("Messages per day:");
+        List<Map.Entry<LocalDate, Long>> days = new ArrayList<>(stats.getMessagesPerDay().entrySet());
+        days.subList(Math.max(0, days.size() - TOP), days.size())
+                .forEach(day -> System.out.println("  " + day.getKey() + ": " + day.getValue()));
+        System.out.print("Export as JSON to the file (empty to skip): ");
+        String file = console.nextLine().strip();
+        if (file.isEmpty())
+            return;
+        try {
+            srv.exportStatistics(stats, Path.of(file));
+            System.out.println("Exported to " + file);
+        } catch (RepoException | InvalidPathException e) {
+            System.out.println(e.getMessage());
+        }
+    }
+
+    /**
+     * Shows the core number of each user, the highest first
+     */
+    private void showCoreNumbers() {
+        CoreDecomposition cores = srv.getCoreDecomposition();
+        System.out.println("Highest core number: " + cores.getMaxCore());
+        for (UserScore score : cores.getTop(Integer.MAX_VALUE))
+            System.out.println(score.getEmail() + " | " + (int) score.getScore());
         System.out.println();
     }
 
@@ -114,10 +379,11 @@ public class AdminInterface implements UserInterface {
      * Shows the communities of the network
      */
     private void communities() {
+        showNetworkProgress();
         Map<Integer, List<String>> comms = srv.getCommunities();
-        int nr = srv.nrCommunities();
+        int nr = comms.size();
         if (nr > 1)
-            System.out.println("There are " + srv.nrCommunities() + " communities in the network");
+            System.out.println("There are " + nr + " communities in the network");
         else
             System.out.println("There is only one community in the network");
         List<String> usrs;
@@ -131,6 +397,16 @@ public class AdminInterface implements UserInterface {
         System.out.println();
     }
 
+    /**
+     * Shows how much of the network analytics is computed, if they are being computed
+     */
+    private void showNetworkProgress() {
+        if (srv.isNetworkComputing())
+            System.out.println("Network analytics are being computed (" + srv.getNetworkProgress() +
+                    "%), the last results are shown");
+        System.out.println("Computed at " + srv.getNetworkComputedAt().withNano(0));
+    }
+
     /**
      * Shows all users
      */
@@ -156,13 +432,11 @@ public class AdminInterface implements UserInterface {
      * Shows all friendships
      */
     private void showFriendships() {
-        List<Friendship> friendships = srv.getFriendships();
-        if (friendships.size() == 0)
+        if (srv.friendshipsIsEmpty())
             System.out.println("No friendships saved");
         else {
             System.out.println("----FRIENDSHIPS----");
-            for (Friendship f : friendships)
-                System.out.println(f);
+            srv.forEachFriendship(System.out::println);
         }
         System.out.println();
     }
@@ -187,7 +461,8 @@ public class AdminInterface implements UserInterface {
             console.nextLine();
         }
         try {
-            srv.removeUser(users.get(nrOfUser).getEmail());
+            srv.removeUser(users.get(nrOfUser).getEmail(),
+                    (table, rows) -> System.out.println("- " + table + ": " + rows + " rows removed"));
             System.out.println("The user was removed");
         } catch (RepoException | DbException e) {
             System.out.println(e.getMessage());
@@ -4,7 +4,9 @@ import Utils.PasswordEncryptor;
 import Utils.UserFriendDTO;
 import domain.Friendship;
 import domain.Message;
+import domain.RequestOutcome;
 import domain.User;
+import domain.network.Recommendation;
 import repository.RepoException;
 import repository.db.DbException;
 import service.Service;
@@ -16,6 +18,9 @@ public class LoggedInterface implements UserInterface {
     private final Scanner console;
     private final Service srv;
     private User loggedUser;
+    // the people near the user are shown up to this many hops away, at most this many of them
+    private static final int NEIGHBORHOOD_HOPS = 3;
+    private static final int NEIGHBORHOOD_LIMIT = 30;
 
     public LoggedInterface(Scanner console, Service srv) {
         this.console = console;
@@ -50,6 +55,11 @@ public class LoggedInterface implements UserInterface {
         System.out.println("7. Show friends by month");
         System.out.println("8. Send message");
         System.out.println("9. Show conversation with friend");
+        System.out.println("10. Accept several friend requests");
+        System.out.println("11. Reject several friend requests");
+        System.out.println("12. Show how you are connected to a user");
+        System.out.println("13. Show your extended network");
+        System.out.println("14. Show the people near you");
         System.out.println("0. Exit");
         System.out.print("Write command: ");
         return console.nextLine().strip();
@@ -75,12 +85,65 @@ public class LoggedInterface implements UserInterface {
                 case "7" -> showFriendsByMonth(loggedUser.getEmail());
                 case "8" -> sendMessage();
                 case "9" -> showConversationWithUser();
+                case "10" -> answerFriendRequests(true);
+                case "11" -> answerFriendRequests(false);
+                case "12" -> showConnection();
+                case "13" -> showReach();
+                case "14" -> showNeighborhood();
                 default -> System.out.println("Wrong command");
             }
         }
         System.out.println("Exiting logged interface...");
     }
 
+    /**
+     * Shows the shortest chain of friends from the logged user to the user with the email read from keyboard
+     */
+    private void showConnection() {
+        System.out.print("Write the email of the user: ");
+        String email = console.nextLine().strip();
+        List<User> path = srv.getFriendshipPath(loggedUser.getEmail(), email);
+        if (path.isEmpty()) {
+            System.out.println("You are not connected to this user");
+            return;
+        }
+        for (User u : path)
+            System.out.print("- " + u + " -");
+        System.out.println();
+    }
+
+    /**
+     * Shows about how many users the logged user reaches within each number of friendships
+     */
+    private void showReach() {
+        srv.getReach(loggedUser.getEmail()).forEach((hops, users) -> {
+            if (hops == 1)
+                System.out.println("Friends: " + users);
+            else
+                System.out.println("People within " + hops + " hops: about " + users);
+        });
+    }
+
+    /**
+     * Shows the closest NEIGHBORHOOD_LIMIT users within the number of hops read from keyboard, by distance
+     */
+    private void showNeighborhood() {
+        System.out.print("Write the maximum number of hops (1-" + NEIGHBORHOOD_HOPS + "): ");
+        int hops = askForNumberInput(NEIGHBORHOOD_HOPS);
+        if (hops == 0)
+            return;
+        Map<Integer, List<User>> neighborhood = srv.getNeighborhood(loggedUser.getEmail(), hops, NEIGHBORHOOD_LIMIT);
+        if (neighborhood.isEmpty()) {
+            System.out.println("You have no friends yet");
+            return;
+        }
+        neighborhood.forEach((distance, users) -> {
+            System.out.println(distance + (distance == 1 ? " hop:" : " hops:"));
+            for (User u : users)
+                System.out.println("  " + u);
+        });
+    }
+
     /**
      * Sends a message to other users
      */
@@ -237,6 +300,46 @@ public class LoggedInterface implements UserInterface {
         }
 
     }
+    /**
+     * Accepts or rejects several friend requests at once
+     * The user writes the numbers of the requests separated by spaces, or "all"
+     * @param accept - true to accept the requests, false to reject them
+     */
+    private void answerFriendRequests(boolean accept) {
+        Map<Integer, User> usersMap = showFriendRequests();
+        if (usersMap.size() == 0)
+            return;
+        System.out.print("Write the numbers of the requests you wish to " + (accept ? "accept" : "reject") +
+                " separated by spaces, or \"all\": ");
+        String input = console.nextLine().strip();
+        List<String> requesters = new ArrayList<>();
+        if (input.equalsIgnoreCase("all"))
+            usersMap.values().forEach(u -> requesters.add(u.getEmail()));
+        else {
+            for (String token : input.split("\\s+")) {
+                try {
+                    User user = usersMap.get(Integer.parseInt(token));
+                    if (user == null)
+                        System.out.println("Invalid number: " + token);
+                    else if (!requesters.contains(user.getEmail()))
+                        requesters.add(user.getEmail());
+                } catch (NumberFormatException e) {
+                    System.out.println("Wrong input: " + token);
+                }
+            }
+        }
+        if (requesters.isEmpty())
+            return;
+        try {
+            Map<String, RequestOutcome> outcomes = accept ?
+                    srv.acceptFriendships(loggedUser.getEmail(), requesters) :
+                    srv.rejectFriendships(loggedUser.getEmail(), requesters);
+            outcomes.forEach((email, outcome) -> System.out.println(email + " - " + outcome));
+        } catch (RepoException | DbException e) {
+            System.out.println(e.getMessage());
+        }
+    }
+
     /**
      * Updates the logged user
      */
@@ -257,43 +360,34 @@ public class LoggedInterface implements UserInterface {
     }
 
     /**
-     * Returns a map with the users that are not friends with a user
-     * @param email email of user
-     * @return Map<Integer, User> - key = number of user, value = the user
-     */
-    private Map<Integer, User> getNotFriendsMap(String email){
-        return mapUserList(srv.getNotFriends(email));
-    }
-
-    /**
-     * Prints the users that are not friends with a user
-     * @param email email of user
+     * Sends a friend request to a suggested user or to the user with the email read from keyboard
      */
-    private void printNotFriends(String email) {
-        List<User> notFriends = srv.getNotFriends(email);
+    private void addFriend() {
+        List<Recommendation> recommendations = srv.getRecommendations(loggedUser.getEmail());
+        if (recommendations.isEmpty())
+            System.out.println("No suggestions yet");
+        else
+            System.out.println("People you may know:");
+        Map<String, User> users = srv.getUsers(recommendations.stream().map(Recommendation::getEmail).toList());
         int i = 0;
-        for (User user : notFriends) {
+        for (Recommendation recommendation : recommendations) {
             i++;
-            System.out.println(i + ". " + user);
+            System.out.println(i + ". " + users.get(recommendation.getEmail()) + " | " +
+                    recommendation.getMutualFriends() + " mutual friends");
         }
-    }
-
-    /**
-     * Adds a friend to the logged user
-     */
-    private void addFriend() {
-        printNotFriends(loggedUser.getEmail());
-        Map<Integer, User> notFriendsMap = getNotFriendsMap(loggedUser.getEmail());
-        if (notFriendsMap.size() == 0) {
-            System.out.println("No user available to friend request");
+        System.out.print("Write the number of the user or an email (0 to go back): ");
+        String input = console.nextLine().strip();
+        if (input.isEmpty())
             return;
+        String email = input;
+        if (input.chars().allMatch(Character::isDigit)) {
+            Integer userNumber = parseNumber(input, recommendations.size());
+            if (userNumber == null || userNumber == 0)
+                return;
+            email = recommendations.get(userNumber - 1).getEmail();
         }
-        System.out.print("Write the number of the user: ");
-        int userNumber = askForNumberInput(notFriendsMap.size());
-        if(userNumber == 0)
-            return;
         try {
-            srv.addFriendship(loggedUser.getEmail(), notFriendsMap.get(userNumber).getEmail());
+            srv.addFriendship(loggedUser.getEmail(), email);
             System.out.println("The friend request was sent");
         } catch (RepoException | DbException e) {
             System.out.println(e.getMessage());
@@ -315,6 +409,23 @@ public class LoggedInterface implements UserInterface {
         return input;
     }
 
+    /**
+     * @param input - the digits written by the user
+     * @param size max nr accepted
+     * @return the number, from 0 to size; null if it is not one, after telling the user
+     */
+    private Integer parseNumber(String input, int size) {
+        try {
+            int number = Integer.parseInt(input);
+            if (number >= 0 && number <= size)
+                return number;
+        } catch (NumberFormatException ignored) {
+            // too many digits for an int
+        }
+        System.out.println("Invalid number");
+        return null;
+    }
+
     /**
      * Reads an int from console
      * @return integer input
@@ -2,11 +2,13 @@ package ui;
 
 import domain.Friendship;
 import domain.User;
+import domain.network.GraphSnapshotFile;
 import domain.network.Network;
 import repository.db.*;
 import service.*;
 import validator.*;
 
+import java.nio.file.Path;
 import java.util.Scanner;
 
 public class MainInterface implements UserInterface {
@@ -25,9 +27,10 @@ public class MainInterface implements UserInterface {
         String username = console.nextLine();
         System.out.print("Database password: ");
         String password = console.nextLine();
+        new SchemaMigrator(url, username, password).migrate();
         Validator<User> uVal = new UserValidator();
         UserDbRepo uRepo;
-        uRepo = new UserDbRepo(url, username, password, uVal, "users");
+        uRepo = new UserDbRepo(url, username, password, uVal, "users", "friendships", "requests", "messages", "receivers");
         UserService uSrv = new UserService(uRepo);
         Validator<Friendship> fVal = new FriendshipValidator();
         FriendshipDbRepo fRepo = new FriendshipDbRepo(url, username, password, fVal, "friendships");
@@ -37,7 +40,12 @@ public class MainInterface implements UserInterface {
         MessageService mSrv = new MessageService(mRepo);
         MessageReceiverDbRepo mrRepo = new MessageReceiverDbRepo(url, username, password, new MessageReceiverValidator(), "receivers");
         MessageReceiverService mrSrv = new MessageReceiverService(mrRepo);
-        Network network = new Network(uRepo, fRepo);
+        AnalyticsDbRepo aRepo = new AnalyticsDbRepo(url, username, password, "network_analytics");
+        GraphChangeDbRepo cRepo = new GraphChangeDbRepo(url, username, password);
+        Network network = new Network(uRepo, fRepo, aRepo, cRepo, new GraphSnapshotFile(Path.of("network.graph")));
+        if (!network.loadStored())
+            network.warmUp();
+        new AnalyticsScheduler(network, 15, 50).start();
         srv = new Service(uSrv, fSrv, mSrv, mrSrv, network);
         this.loggedInterface = new LoggedInterface(console, srv);
         this.adminInterface = new AdminInterface(console, srv);